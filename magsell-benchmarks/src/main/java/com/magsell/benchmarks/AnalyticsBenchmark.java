@@ -0,0 +1,77 @@
+package com.magsell.benchmarks;
+
+import com.magsell.services.SalesAnalytics;
+import com.magsell.services.SalesAnalytics.Bucket;
+import com.magsell.services.SalesAnalytics.Dimension;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agregări din depozitul de analiză în memorie, pe tot istoricul.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsBenchmark {
+    @Param({"100000", "1000000"})
+    int salesCount;
+
+    private BenchmarkDatabase db;
+    private SalesAnalytics analytics;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = BenchmarkDatabase.create(2000, salesCount);
+        analytics = SalesAnalytics.getInstance();
+        analytics.clear();
+        analytics.refresh();
+        to = LocalDate.now();
+        from = to.minusYears(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        analytics.clear();
+        db.close();
+    }
+
+    @Benchmark
+    public List<Bucket> byHour() {
+        return analytics.aggregate(from, to, Dimension.HOUR, null);
+    }
+
+    @Benchmark
+    public List<Bucket> byDay() {
+        return analytics.aggregate(from, to, Dimension.DAY, null);
+    }
+
+    @Benchmark
+    public List<Bucket> byProduct() {
+        return analytics.aggregate(from, to, Dimension.PRODUCT, null);
+    }
+
+    @Benchmark
+    public List<Bucket> byHourInCategory() {
+        return analytics.aggregate(from, to, Dimension.HOUR, BenchmarkDatabase.CATEGORIES[0]);
+    }
+}
@@ -0,0 +1,165 @@
+package com.magsell.benchmarks;
+
+import com.magsell.database.DatabaseService;
+import com.magsell.database.SaleWriter;
+import com.magsell.models.Product;
+import com.magsell.models.Sale;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Bază de date SQLite temporară, populată cu un catalog realist de patiserie
+ * și cu un istoric de vânzări. Datele se generează determinist (seed fix),
+ * deci rulările pe versiuni diferite compară aceleași date.
+ */
+final class BenchmarkDatabase {
+    static final String[] CATEGORIES = {
+        "Torturi", "Prăjituri", "Patiserie", "Cozonaci", "Biscuiți", "Pâine", "Fursecuri", "Băuturi"
+    };
+    private static final String[] BASES = {
+        "Tort", "Ecler", "Savarină", "Amandină", "Cremșnit", "Papanași", "Croissant", "Covrig",
+        "Cozonac", "Chec", "Brioșă", "Plăcintă", "Strudel", "Tartă", "Negresă", "Fursec"
+    };
+    private static final String[] FLAVOURS = {
+        "cu ciocolată", "cu vanilie", "cu fistic", "cu căpșuni", "cu nucă", "cu mac", "cu brânză",
+        "cu vișine", "cu caramel", "cu lămâie", "cu mere", "cu cacao", "cu rom", "cu migdale"
+    };
+    private static final String[] NOTES = {
+        "Comandă pentru aniversare, fără zahăr", "Livrare sâmbătă dimineața", "Client fidel, reducere 10%",
+        "Fără nuci, alergie", "Ambalaj de cadou", "Plată la livrare", "Scris pe tort: La mulți ani!",
+        "Ridicare de la magazin după ora 17"
+    };
+    private static final long SEED = 20240601L;
+    // Stoc mare: benchmark-urile de vânzare nu trebuie să rămână fără marfă
+    static final int INITIAL_STOCK = 1_000_000_000;
+
+    private final Path dir;
+    private final List<Product> products = new ArrayList<>();
+
+    private BenchmarkDatabase(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Creează baza temporară, o inițializează prin {@link DatabaseService} și o populează.
+     */
+    static BenchmarkDatabase create(int productCount, int salesCount) throws SQLException, IOException {
+        BenchmarkDatabase db = new BenchmarkDatabase(Files.createTempDirectory("magsell-bench"));
+        DatabaseService.getInstance().init(db.dir);
+        db.seedProducts(productCount);
+        db.seedSales(salesCount);
+        return db;
+    }
+
+    /**
+     * Produsele inserate, cu ID-urile atribuite de baza de date.
+     */
+    List<Product> products() {
+        return products;
+    }
+
+    static String productName(int i) {
+        return BASES[i % BASES.length] + " " + FLAVOURS[(i / BASES.length) % FLAVOURS.length] + " nr. " + i;
+    }
+
+    private void seedProducts(int count) throws SQLException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        try (Connection conn = DatabaseService.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO products (name, description, price_bani, quantity, category) VALUES (?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < count; i++) {
+                    String name = productName(i);
+                    pstmt.setString(1, name);
+                    pstmt.setString(2, "Produs de casă, " + FLAVOURS[i % FLAVOURS.length] + ", porție de "
+                            + (50 + random.nextInt(450)) + " g");
+                    pstmt.setLong(3, 150 + random.nextInt(15_000));
+                    pstmt.setInt(4, INITIAL_STOCK);
+                    pstmt.setString(5, CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                    pstmt.addBatch();
+                    if (i % 1000 == 999) {
+                        pstmt.executeBatch();
+                    }
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id, name, price_bani, quantity, category FROM products ORDER BY id")) {
+                while (rs.next()) {
+                    Product p = new Product();
+                    p.setId(rs.getInt(1));
+                    p.setName(rs.getString(2));
+                    p.setPrice(BigDecimal.valueOf(rs.getLong(3), 2));
+                    p.setQuantity(rs.getInt(4));
+                    p.setCategory(rs.getString(5));
+                    products.add(p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Bonuri de 1-4 linii, răspândite pe ultimul an; aproximativ o linie din zece are o notă.
+     */
+    private void seedSales(int count) throws SQLException {
+        if (count == 0 || products.isEmpty()) {
+            return;
+        }
+        SplittableRandom random = new SplittableRandom(SEED + 1);
+        // Generator separat, ca liniile și datele vânzărilor să rămână aceleași ca fără note
+        SplittableRandom notesRandom = new SplittableRandom(SEED + 2);
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        try (Connection conn = DatabaseService.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (SaleWriter writer = new SaleWriter(conn)) {
+                int written = 0;
+                while (written < count) {
+                    int lines = Math.min(1 + random.nextInt(4), count - written);
+                    List<Sale> basket = new ArrayList<>(lines);
+                    for (int i = 0; i < lines; i++) {
+                        Sale sale = new Sale(products.get(random.nextInt(products.size())), 1 + random.nextInt(3));
+                        if (notesRandom.nextInt(10) == 0) {
+                            sale.setNotes(NOTES[notesRandom.nextInt(NOTES.length)]);
+                        }
+                        basket.add(sale);
+                    }
+                    writer.write(basket, start.plusMinutes(random.nextInt(365 * 24 * 60)));
+                    written += lines;
+                }
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Închide baza de date și șterge directorul temporar.
+     */
+    void close() throws SQLException, IOException {
+        DatabaseService.getInstance().close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.magsell.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Punctul de intrare al benchmark-urilor. Acceptă aceleași argumente ca JMH
+ * ({@code -h} pentru listă); dacă nu se cere alt format, rezultatele se scriu
+ * ca JSON în {@code target/jmh-results/}, câte un fișier pe rulare, ca să poată
+ * fi comparate între versiuni.
+ */
+public final class BenchmarkRunner {
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListProfilers()
+                || cmd.shouldListResultFormats() || cmd.shouldListWithParams()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (!cmd.getResultFormat().hasValue() && !cmd.getResult().hasValue()) {
+            Path dir = Path.of("target", "jmh-results");
+            Files.createDirectories(dir);
+            Path file = dir.resolve("magsell-" + LocalDateTime.now().format(FILE_STAMP) + ".json");
+            options.resultFormat(ResultFormatType.JSON).result(file.toString());
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,84 @@
+package com.magsell.benchmarks;
+
+import com.magsell.models.Money;
+import com.magsell.models.Product;
+import com.magsell.models.Sale;
+import com.magsell.services.SalesService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debitul de bonuri salvate: direct (un commit pe bon) și prin jurnalul de
+ * vânzări (group commit), cu una sau mai multe case în paralel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+    private BenchmarkDatabase db;
+    private SalesService salesService;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = BenchmarkDatabase.create(2000, 10_000);
+        salesService = new SalesService();
+        products = db.products();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        db.close();
+    }
+
+    /**
+     * Un bon de trei linii, cu produse alese la întâmplare.
+     */
+    private List<Sale> basket() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return List.of(
+                new Sale(products.get(random.nextInt(products.size())), 1),
+                new Sale(products.get(random.nextInt(products.size())), 2),
+                new Sale(products.get(random.nextInt(products.size())), 1));
+    }
+
+    @Benchmark
+    public Money checkoutDirect() throws Exception {
+        return salesService.recordSale(basket());
+    }
+
+    @Benchmark
+    public Money checkoutJournal() throws Exception {
+        return salesService.recordSaleAsync(basket()).join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Money checkoutDirectFourTills() throws Exception {
+        return salesService.recordSale(basket());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Money checkoutJournalFourTills() throws Exception {
+        return salesService.recordSaleAsync(basket()).join();
+    }
+}
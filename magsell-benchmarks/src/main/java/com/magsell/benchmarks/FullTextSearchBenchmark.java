@@ -0,0 +1,63 @@
+package com.magsell.benchmarks;
+
+import com.magsell.services.ProductService;
+import com.magsell.services.ProductService.SearchResults;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Căutarea full-text în produse și în notele vânzărilor, fără diacritice în text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FullTextSearchBenchmark {
+    @Param({"100000", "1000000"})
+    int salesCount;
+
+    private BenchmarkDatabase db;
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = BenchmarkDatabase.create(20_000, salesCount);
+        productService = new ProductService();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Benchmark
+    public SearchResults severalWords() throws SQLException {
+        return productService.search("tort ciocolata fara zahar", 20);
+    }
+
+    @Benchmark
+    public SearchResults typedPrefix() throws SQLException {
+        return productService.search("savarina cu vis", 20);
+    }
+
+    @Benchmark
+    public SearchResults commonWord() throws SQLException {
+        return productService.search("livrare", 20);
+    }
+}
@@ -0,0 +1,69 @@
+package com.magsell.benchmarks;
+
+import com.magsell.models.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Totalul unui bon și TVA-ul conținut în el: cu {@link BigDecimal} (calculul de dinainte) și cu
+ * {@link Money}. Rulat cu {@code -prof gc}, arată și alocările pe bon.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+    private static final int LINES = 8;
+    private static final int VAT_PERCENT = 9;
+    private static final BigDecimal VAT_RATE = BigDecimal.valueOf(VAT_PERCENT);
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final BigDecimal[] decimalPrices = new BigDecimal[LINES];
+    private final Money[] moneyPrices = new Money[LINES];
+    private final int[] quantities = new int[LINES];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < LINES; i++) {
+            long bani = 150 + random.nextInt(15_000);
+            decimalPrices[i] = BigDecimal.valueOf(bani, 2);
+            moneyPrices[i] = Money.ofBani(bani);
+            quantities[i] = 1 + random.nextInt(3);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal basketBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < LINES; i++) {
+            total = total.add(decimalPrices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return total.multiply(VAT_RATE).divide(HUNDRED.add(VAT_RATE), 2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public Money basketMoney() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < LINES; i++) {
+            total = total.plus(moneyPrices[i].times(quantities[i]));
+        }
+        return total.vatOfGross(VAT_PERCENT);
+    }
+}
@@ -0,0 +1,124 @@
+package com.magsell.benchmarks;
+
+import com.magsell.models.Product;
+import com.magsell.services.ProductService;
+import com.magsell.services.ProductService.PageFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latența operațiilor din {@link ProductService}: CRUD, editarea cu versiuni, încărcarea listei complete,
+ * categoriile și prima pagină a listei paginate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Param({"1000", "20000"})
+    int productCount;
+
+    private BenchmarkDatabase db;
+    private ProductService productService;
+    private List<Product> products;
+    private int cursor;
+    private int created;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = BenchmarkDatabase.create(productCount, 10_000);
+        productService = new ProductService();
+        products = db.products();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        db.close();
+    }
+
+    private Product nextProduct() {
+        cursor = (cursor + 1) % products.size();
+        return products.get(cursor);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Product> getAllProducts() throws Exception {
+        return productService.getAllProducts();
+    }
+
+    @Benchmark
+    public List<String> getCategories() throws Exception {
+        return productService.getCategories();
+    }
+
+    @Benchmark
+    public Product getProductById() throws Exception {
+        return productService.getProductById(nextProduct().getId());
+    }
+
+    @Benchmark
+    public List<Product> getFirstPage() throws Exception {
+        return productService.getProductsPage(null, 0, 200, PageFilter.NONE);
+    }
+
+    @Benchmark
+    public Product updateProduct() throws Exception {
+        Product p = nextProduct();
+        p.setPrice(p.getPrice().add(BigDecimal.ONE));
+        productService.updateProduct(p);
+        return p;
+    }
+
+    /**
+     * Editare din interfață: citirea versiunii, combinarea și scrierea condiționată.
+     */
+    @Benchmark
+    public ProductService.VersionedProduct mergeProduct() throws Exception {
+        Product base = nextProduct();
+        Product edited = new Product();
+        edited.setId(base.getId());
+        edited.setName(base.getName());
+        edited.setDescription(base.getDescription());
+        edited.setPrice(base.getPrice());
+        edited.setQuantity(base.getQuantity() + 1);
+        edited.setCategory(base.getCategory());
+        return productService.mergeProduct(base, edited);
+    }
+
+    /**
+     * Un ciclu complet: creare, actualizare, ștergere.
+     */
+    @Benchmark
+    public Product createUpdateDelete() throws Exception {
+        Product p = new Product();
+        p.setName("Produs benchmark " + created++);
+        p.setDescription("Creat de benchmark");
+        p.setPrice(new BigDecimal("12.50"));
+        p.setQuantity(10);
+        p.setCategory(BenchmarkDatabase.CATEGORIES[0]);
+        productService.createProduct(p);
+        p.setQuantity(20);
+        productService.updateProduct(p);
+        productService.deleteProduct(p.getId());
+        return p;
+    }
+}
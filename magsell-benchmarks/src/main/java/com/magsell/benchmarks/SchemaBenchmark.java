@@ -0,0 +1,58 @@
+package com.magsell.benchmarks;
+
+import com.magsell.database.SchemaMigrator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costul migrărilor de schemă: pe o bază nouă (prima pornire) și pe o bază
+ * deja la zi (fiecare pornire obișnuită).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaBenchmark {
+    private Connection upToDate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        upToDate = DriverManager.getConnection("jdbc:sqlite::memory:");
+        new SchemaMigrator().migrate(upToDate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        upToDate.close();
+    }
+
+    @Benchmark
+    public int migrateFreshDatabase() throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            new SchemaMigrator().migrate(conn);
+            return SchemaMigrator.latestVersion();
+        }
+    }
+
+    @Benchmark
+    public int migrateUpToDateDatabase() throws Exception {
+        new SchemaMigrator().migrate(upToDate);
+        return SchemaMigrator.latestVersion();
+    }
+}
@@ -0,0 +1,88 @@
+package com.magsell.benchmarks;
+
+import com.magsell.models.Product;
+import com.magsell.services.ProductCatalog;
+import com.magsell.services.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debitul filtrării și căutării din catalog, adică lucrul pe care lista de
+ * produse îl face în fundal la fiecare tastă.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    // Ce tastează vânzătorul, literă cu literă
+    private static final String TYPED_QUERY = "ciocolata";
+
+    @Param({"1000", "50000"})
+    int productCount;
+
+    private BenchmarkDatabase db;
+    private ProductCatalog catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = BenchmarkDatabase.create(productCount, 0);
+        catalog = ProductCatalog.getInstance();
+        catalog.invalidate();
+        catalog.load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        catalog.invalidate();
+        db.close();
+    }
+
+    /**
+     * Filtrarea la fiecare tastă, cu restrângere incrementală ca în lista de produse.
+     */
+    @Benchmark
+    public BitSet filterWhileTyping() throws Exception {
+        BitSet matches = null;
+        String previous = null;
+        for (int i = 1; i <= TYPED_QUERY.length(); i++) {
+            String query = TYPED_QUERY.substring(0, i);
+            boolean narrowing = matches != null && ProductSearchIndex.isNarrowing(previous, query);
+            matches = catalog.filter(query, null, narrowing ? matches : null);
+            previous = query;
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public BitSet filterFullQuery() throws Exception {
+        return catalog.filter("placinta cu mere", null, null);
+    }
+
+    @Benchmark
+    public BitSet filterByCategory() throws Exception {
+        return catalog.filter("", BenchmarkDatabase.CATEGORIES[1], null);
+    }
+
+    @Benchmark
+    public List<Product> searchRanked() throws Exception {
+        return catalog.search("tort ciocolata", 50);
+    }
+}
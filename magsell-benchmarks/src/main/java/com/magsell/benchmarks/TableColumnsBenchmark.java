@@ -0,0 +1,112 @@
+package com.magsell.benchmarks;
+
+import com.magsell.models.Product;
+import com.magsell.ui.CellFormats;
+import com.magsell.ui.TableColumns;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableColumn.CellDataFeatures;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.util.Callback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costul pe rând al celulelor din tabela de produse la derulare: valoarea
+ * celulei plus textul afișat, cu {@link PropertyValueFactory} (reflecție și
+ * un wrapper nou pe celulă) față de coloanele tipizate din {@link TableColumns}.
+ * Nu are nevoie de toolkit-ul JavaFX: se apelează doar fabricile de valori.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// Randare software: pe mașinile fără placă grafică JavaFX nu mai încearcă pipeline-ul OpenGL
+@Fork(value = 1, jvmArgsAppend = "-Dprism.order=sw")
+public class TableColumnsBenchmark {
+    private static final int ROWS = 1000;
+
+    private final List<CellDataFeatures<Product, Object>> reflectiveName = new ArrayList<>(ROWS);
+    private final List<CellDataFeatures<Product, Object>> reflectivePrice = new ArrayList<>(ROWS);
+    private final List<CellDataFeatures<Product, Object>> reflectiveQuantity = new ArrayList<>(ROWS);
+    private final List<CellDataFeatures<Product, Product>> typedName = new ArrayList<>(ROWS);
+    private final List<CellDataFeatures<Product, Product>> typedPrice = new ArrayList<>(ROWS);
+    private final List<CellDataFeatures<Product, Product>> typedQuantity = new ArrayList<>(ROWS);
+    private Callback<CellDataFeatures<Product, Object>, ObservableValue<Object>> nameFactory;
+    private Callback<CellDataFeatures<Product, Object>, ObservableValue<Object>> priceFactory;
+    private Callback<CellDataFeatures<Product, Object>, ObservableValue<Object>> quantityFactory;
+    private Callback<CellDataFeatures<Product, Product>, ObservableValue<Product>> typedNameFactory;
+    private Callback<CellDataFeatures<Product, Product>, ObservableValue<Product>> typedPriceFactory;
+    private Callback<CellDataFeatures<Product, Product>, ObservableValue<Product>> typedQuantityFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TableColumn<Product, Object> nameCol = new TableColumn<>("Nume");
+        TableColumn<Product, Object> priceCol = new TableColumn<>("Pret");
+        TableColumn<Product, Object> qtyCol = new TableColumn<>("Cant.");
+        nameFactory = new PropertyValueFactory<>("name");
+        priceFactory = new PropertyValueFactory<>("price");
+        quantityFactory = new PropertyValueFactory<>("quantity");
+
+        TableColumn<Product, Product> typedNameCol = TableColumns.text("Nume", 150, Product::getName);
+        TableColumn<Product, Product> typedPriceCol = TableColumns.amount("Pret", 100, Product::getPrice);
+        TableColumn<Product, Product> typedQtyCol = TableColumns.integer("Cant.", 80, Product::getQuantity);
+        typedNameFactory = typedNameCol.getCellValueFactory();
+        typedPriceFactory = typedPriceCol.getCellValueFactory();
+        typedQuantityFactory = typedQtyCol.getCellValueFactory();
+
+        for (int i = 0; i < ROWS; i++) {
+            Product p = new Product();
+            p.setId(i + 1);
+            p.setName(BenchmarkDatabase.productName(i));
+            p.setPrice(BigDecimal.valueOf(150 + (i * 37) % 15_000, 2));
+            p.setQuantity(i % 300);
+            reflectiveName.add(new CellDataFeatures<>(null, nameCol, p));
+            reflectivePrice.add(new CellDataFeatures<>(null, priceCol, p));
+            reflectiveQuantity.add(new CellDataFeatures<>(null, qtyCol, p));
+            typedName.add(new CellDataFeatures<>(null, typedNameCol, p));
+            typedPrice.add(new CellDataFeatures<>(null, typedPriceCol, p));
+            typedQuantity.add(new CellDataFeatures<>(null, typedQtyCol, p));
+        }
+    }
+
+    /**
+     * Ce face o celulă implicită: valoarea prin PropertyValueFactory, apoi toString().
+     */
+    @Benchmark
+    public void propertyValueFactory(Blackhole bh) {
+        for (int i = 0; i < ROWS; i++) {
+            bh.consume(String.valueOf(nameFactory.call(reflectiveName.get(i)).getValue()));
+            bh.consume(String.valueOf(priceFactory.call(reflectivePrice.get(i)).getValue()));
+            bh.consume(String.valueOf(quantityFactory.call(reflectiveQuantity.get(i)).getValue()));
+        }
+    }
+
+    /**
+     * Ce face o celulă din {@link TableColumns}: rândul ca valoare, textul prin getter și {@link CellFormats}.
+     */
+    @Benchmark
+    public void typedColumns(Blackhole bh) {
+        for (int i = 0; i < ROWS; i++) {
+            bh.consume(typedNameFactory.call(typedName.get(i)).getValue().getName());
+            bh.consume(CellFormats.amount(typedPriceFactory.call(typedPrice.get(i)).getValue().getPrice()));
+            bh.consume(CellFormats.integer(typedQuantityFactory.call(typedQuantity.get(i)).getValue().getQuantity()));
+        }
+    }
+}
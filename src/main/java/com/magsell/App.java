@@ -2,54 +2,134 @@ package com.magsell;
 
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
-import javafx.scene.image.Image;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.stage.StageStyle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.magsell.database.DatabaseService;
+import com.magsell.metrics.FxStallMonitor;
+import com.magsell.metrics.Metrics;
+import com.magsell.services.AuditLog;
+import com.magsell.services.BackgroundTasks;
+import com.magsell.services.BackgroundTasks.Priority;
+import com.magsell.ui.Fxml;
+import com.magsell.ui.controllers.ProductController;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 
 /**
  * Clasa principală a aplicației MagSell.
  * Inițializează baza de date și interfața grafică.
+ *
+ * La pornire se afișează imediat un ecran de încărcare; deschiderea bazei de date
+ * (cu migrările) și parsarea ferestrei principale rulează în paralel, în fundal, iar
+ * fereastra principală apare când sunt gata amândouă. După afișare se pregătesc în
+ * fundal ferestrele deschise des (lista de produse, editorul).
  */
 public class App extends Application {
     private static final Logger logger = LoggerFactory.getLogger(App.class);
     private static final String APP_TITLE = "MagSell - Gestionare Patiserie";
+    private static final Path METRICS_FILE = Paths.get(System.getProperty("user.home"), ".magsell", "metrics.txt");
+    private static final Path AUDIT_DIR = Paths.get(System.getProperty("user.home"), ".magsell", "audit");
+
+    // Starea pornirii; doar pe firul FX
+    private Stage primaryStage;
+    private Stage splash;
+    private Parent mainWindow;
+    private boolean databaseReady;
 
     @Override
-    public void start(Stage primaryStage) throws IOException {
-        // Inițializare bază de date
-        try {
-            DatabaseService.getInstance().init();
-            logger.info("Baza de date inițializată cu succes");
-        } catch (Exception e) {
+    public void start(Stage primaryStage) {
+        this.primaryStage = primaryStage;
+        FxStallMonitor.getInstance().start();
+        splash = showSplash();
+
+        BackgroundTasks tasks = BackgroundTasks.getInstance();
+        tasks.submit(Priority.TILL, () -> {
+            initServices();
+            return null;
+        }, ignored -> {
+            databaseReady = true;
+            showMainWindowWhenReady();
+        }, e -> {
             logger.error("Eroare la inițializarea bazei de date", e);
             showErrorAndExit("Eroare la conectarea cu baza de date");
-        }
-
-        // Încărcare FXML
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/magsell/ui/fxml/MainWindow.fxml"));
-            Scene scene = new Scene(loader.load(), 1200, 800);
+        });
+        // Fereastra nu e încă afișată, deci se poate construi în afara firului FX
+        FXMLLoader loader = new FXMLLoader(getClass().getResource(Fxml.MAIN_WINDOW));
+        tasks.submit(Priority.TILL, () -> Fxml.<Parent>load(loader), root -> {
+            mainWindow = root;
+            showMainWindowWhenReady();
+        }, e -> {
+            logger.error("Eroare la încărcarea interfeței", e);
+            showErrorAndExit("Eroare la încărcarea interfeței");
+        });
+    }
 
-            // Încărcare stiluri CSS
-            String css = getClass().getResource("/com/magsell/ui/css/styles.css").toExternalForm();
-            scene.getStylesheets().add(css);
+    private Stage showSplash() {
+        Label title = new Label("MagSell");
+        title.setStyle("-fx-font-size: 28px; -fx-font-weight: bold;");
+        VBox box = new VBox(16, title, new ProgressIndicator(), new Label("Se pornește..."));
+        box.setAlignment(Pos.CENTER);
+        box.setPadding(new Insets(30));
 
-            primaryStage.setTitle(APP_TITLE);
-            primaryStage.setScene(scene);
-            primaryStage.setOnCloseRequest(e -> shutdown());
-            primaryStage.show();
+        Stage stage = new Stage(StageStyle.UNDECORATED);
+        stage.setTitle(APP_TITLE);
+        stage.setScene(new Scene(box, 320, 220));
+        stage.show();
+        return stage;
+    }
 
-            logger.info("Aplicație pornită cu succes");
+    /**
+     * Rulează în fundal: baza de date, apoi jurnalul de audit și scrierea metricilor.
+     */
+    private static void initServices() throws Exception {
+        DatabaseService.getInstance().init();
+        logger.info("Baza de date inițializată cu succes");
+        Metrics.getInstance().startDump(METRICS_FILE, Long.getLong(Metrics.DUMP_PROPERTY, 60));
+        try {
+            AuditLog.getInstance().open(AUDIT_DIR);
         } catch (IOException e) {
-            logger.error("Eroare la încărcarea interfeței", e);
-            showErrorAndExit("Eroare la încărcarea interfeței");
+            logger.error("Jurnalul de audit nu poate fi deschis în {}", AUDIT_DIR, e);
+        }
+    }
+
+    private void showMainWindowWhenReady() {
+        if (!databaseReady || mainWindow == null) {
+            return;
         }
+        Scene scene = new Scene(mainWindow, 1200, 800);
+
+        // Încărcare stiluri CSS
+        String css = getClass().getResource("/com/magsell/ui/css/styles.css").toExternalForm();
+        scene.getStylesheets().add(css);
+
+        primaryStage.setTitle(APP_TITLE);
+        primaryStage.setScene(scene);
+        primaryStage.setOnCloseRequest(e -> shutdown());
+        primaryStage.show();
+        splash.close();
+
+        Duration sinceLaunch = ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()))
+                .orElse(Duration.ZERO);
+        Metrics.getInstance().histogram("app.startup").record(sinceLaunch.toNanos());
+        logger.info("Aplicație pornită cu succes în {} ms", sinceLaunch.toMillis());
+
+        Fxml.preload(Fxml.PRODUCT_LIST, ProductController::new);
+        Fxml.preload(Fxml.PRODUCT_EDITOR, ProductController::new);
     }
 
     private void showErrorAndExit(String message) {
@@ -58,8 +138,13 @@ public class App extends Application {
     }
 
     private void shutdown() {
+        Fxml.disposeSpares();
+        FxStallMonitor.getInstance().stop();
+        Metrics.getInstance().stopDump();
+        Metrics.getInstance().dump(METRICS_FILE);
         try {
             DatabaseService.getInstance().close();
+            AuditLog.getInstance().close();
             logger.info("Aplicație închisă normal");
         } catch (Exception e) {
             logger.error("Eroare la închiderea bazei de date", e);
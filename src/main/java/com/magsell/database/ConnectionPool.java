@@ -0,0 +1,282 @@
+package com.magsell.database;
+
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool de conexiuni SQLite peste același fișier de bază de date.
+ * Ține o singură conexiune de scriere, serializată între fire, și un număr
+ * limitat de conexiuni read-only care pot citi în paralel cu scrierile.
+ *
+ * Conexiunile împrumutate sunt legate de firul care le-a obținut și trebuie
+ * închise pe același fir; close() le întoarce în pool, nu le distruge.
+ *
+ * Așteptarea la împrumut și durata cât e ținută conexiunea se măsoară separat pentru
+ * scriere și citire ({@code db.writeWait}, {@code db.writeHold}, {@code db.readWait},
+ * {@code db.readHold}).
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+    private static final long BORROW_TIMEOUT_MS = 10_000;
+    private static final int BUSY_TIMEOUT_MS = 5_000;
+    private static final int CACHE_SIZE_KB = 16 * 1024;
+    private static final long MMAP_SIZE_BYTES = 256L * 1024 * 1024;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    private static final LatencyHistogram WRITE_WAIT = Metrics.getInstance().histogram("db.writeWait");
+    private static final LatencyHistogram WRITE_HOLD = Metrics.getInstance().histogram("db.writeHold");
+    private static final LatencyHistogram READ_WAIT = Metrics.getInstance().histogram("db.readWait");
+    private static final LatencyHistogram READ_HOLD = Metrics.getInstance().histogram("db.readHold");
+
+    private final String url;
+    private final StatementCache.Stats statementStats = new StatementCache.Stats();
+    private final PhysicalConnection writer;
+    private final ReentrantLock writerLock = new ReentrantLock(true);
+    private final BlockingQueue<PhysicalConnection> idleReaders;
+    private final Semaphore readerPermits;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, int maxReaders) throws SQLException {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("maxReaders trebuie să fie cel puțin 1");
+        }
+        this.url = url;
+        this.idleReaders = new ArrayBlockingQueue<>(maxReaders);
+        this.readerPermits = new Semaphore(maxReaders, true);
+        this.writer = openConnection(false);
+        logger.info("Pool de conexiuni deschis: 1 scriere, {} citire", maxReaders);
+    }
+
+    /**
+     * Împrumută conexiunea de scriere. Blochează până când niciun alt fir nu o mai folosește.
+     * Același fir o poate împrumuta de mai multe ori (ex. un serviciu apelat dintr-o tranzacție).
+     */
+    public Connection getWriteConnection() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        try {
+            if (!writerLock.tryLock(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timeout la obținerea conexiunii de scriere");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Întrerupt în așteptarea conexiunii de scriere", e);
+        }
+        WRITE_WAIT.record(System.nanoTime() - start);
+        return wrap(writer, WRITE_HOLD, this::releaseWriter);
+    }
+
+    /**
+     * Împrumută o conexiune read-only. Blochează dacă toate conexiunile de citire sunt ocupate.
+     */
+    public Connection getReadConnection() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        try {
+            if (!readerPermits.tryAcquire(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timeout la obținerea unei conexiuni de citire");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Întrerupt în așteptarea unei conexiuni de citire", e);
+        }
+
+        PhysicalConnection reader = idleReaders.poll();
+        try {
+            if (reader == null || reader.connection().isClosed()) {
+                reader = openConnection(true);
+            }
+        } catch (SQLException e) {
+            readerPermits.release();
+            throw e;
+        }
+        PhysicalConnection physical = reader;
+        READ_WAIT.record(System.nanoTime() - start);
+        return wrap(physical, READ_HOLD, () -> releaseReader(physical));
+    }
+
+    /**
+     * Închide toate conexiunile libere. Conexiunile încă împrumutate se închid la returnare.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        PhysicalConnection reader;
+        while ((reader = idleReaders.poll()) != null) {
+            closeQuietly(reader);
+        }
+        writerLock.lock();
+        try {
+            closeQuietly(writer);
+        } finally {
+            writerLock.unlock();
+        }
+        StatementCache.Snapshot stats = statementStats.snapshot();
+        logger.info("Pool de conexiuni închis; cache instrucțiuni: {} reutilizări, {} compilări, {} evacuări",
+                stats.hits(), stats.misses(), stats.evictions());
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Contoarele cache-urilor de instrucțiuni pregătite, însumate pe toate conexiunile.
+     */
+    public StatementCache.Snapshot getStatementCacheStats() {
+        return statementStats.snapshot();
+    }
+
+    /**
+     * Deschide o conexiune fizică. Conexiunea de scriere comută fișierul în WAL,
+     * astfel încât cititorii nu blochează scrierile (și invers).
+     */
+    private PhysicalConnection openConnection(boolean readOnly) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(readOnly);
+        config.setBusyTimeout(BUSY_TIMEOUT_MS);
+        if (!readOnly) {
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        }
+        // Valoare negativă = dimensiune în KiB, nu în pagini
+        config.setCacheSize(-CACHE_SIZE_KB);
+        config.setTempStore(SQLiteConfig.TempStore.MEMORY);
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(MMAP_SIZE_BYTES));
+        Connection conn = config.createConnection(url);
+        return new PhysicalConnection(conn, new StatementCache(conn, STATEMENT_CACHE_SIZE, statementStats));
+    }
+
+    private void releaseWriter() {
+        try {
+            // Doar ultima eliberare a firului resetează starea, altfel am anula tranzacția exterioară
+            if (writerLock.getHoldCount() == 1) {
+                resetState(writer.connection());
+            }
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    private void releaseReader(PhysicalConnection reader) {
+        try {
+            resetState(reader.connection());
+            if (closed || !idleReaders.offer(reader)) {
+                closeQuietly(reader);
+            }
+        } finally {
+            readerPermits.release();
+        }
+    }
+
+    private void resetState(Connection conn) {
+        try {
+            if (!conn.isClosed() && !conn.getAutoCommit()) {
+                logger.warn("Conexiune returnată cu o tranzacție deschisă; se face rollback");
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.warn("Nu s-a putut reseta conexiunea returnată în pool", e);
+        }
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Conexiunea la baza de date este închisă");
+        }
+    }
+
+    private static void closeQuietly(PhysicalConnection conn) {
+        conn.statements().close();
+        try {
+            conn.connection().close();
+        } catch (SQLException e) {
+            logger.warn("Eroare la închiderea conexiunii", e);
+        }
+    }
+
+    /**
+     * Conexiunea fizică împreună cu cache-ul ei de instrucțiuni pregătite.
+     */
+    private record PhysicalConnection(Connection connection, StatementCache statements) {
+    }
+
+    private static Connection wrap(PhysicalConnection physical, LatencyHistogram hold, Runnable onRelease) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new PooledConnectionHandler(physical, hold, onRelease));
+    }
+
+    /**
+     * Interceptează close() pe conexiunea împrumutată și o întoarce în pool;
+     * prepareStatement() trece prin cache-ul de instrucțiuni al conexiunii.
+     */
+    private static final class PooledConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private final StatementCache statements;
+        private final LatencyHistogram hold;
+        private final long borrowedAt = System.nanoTime();
+        private final Runnable onRelease;
+        private volatile boolean released;
+
+        PooledConnectionHandler(PhysicalConnection physical, LatencyHistogram hold, Runnable onRelease) {
+            this.physical = physical.connection();
+            this.statements = physical.statements();
+            this.hold = hold;
+            this.onRelease = onRelease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        hold.record(System.nanoTime() - borrowedAt);
+                        onRelease.run();
+                    }
+                    return null;
+                case "isClosed":
+                    return released || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Conexiunea a fost deja returnată în pool");
+            }
+            if (method.getName().equals("prepareStatement") && args.length <= 2
+                    && (args.length == 1 || method.getParameterTypes()[1] == int.class)) {
+                int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                return statements.prepare((Connection) proxy, (String) args[0], keys);
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.magsell.database;
 
+import com.magsell.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -7,20 +8,28 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 /**
  * Serviciu singleton pentru gestionarea conexiunilor la baza de date.
  * Implementează Singleton pattern pentru a asigura o singură instanță.
+ * Conexiunile provin dintr-un {@link ConnectionPool}: o conexiune de scriere
+ * serializată și mai multe conexiuni read-only pentru citiri paralele.
  */
 public class DatabaseService {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseService.class);
     private static DatabaseService instance;
-    private Connection connection;
+    private ConnectionPool pool;
+    private SaleJournal saleJournal;
+    private StockLedger stockLedger;
     private static final String DB_DIR = ".magsell";
     private static final String DB_NAME = "magsell.db";
+    // Conexiuni de citire din pool; după el se limitează și lucrul în fundal (BackgroundTasks)
+    public static final int READ_POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final String SALE_JOURNAL_NAME = "sales.journal";
+    private static final int SALE_JOURNAL_MAX_BATCH = 64;
+    private static final long SALE_JOURNAL_MAX_DELAY_MS = 5;
+    private static final int SALE_JOURNAL_CAPACITY = 4096;
 
     private DatabaseService() {
     }
@@ -36,22 +45,42 @@ public class DatabaseService {
     }
 
     /**
-     * Inițializează baza de date și creează schema dacă nu există.
+     * Inițializează baza de date din ~/.magsell și aplică migrările de schemă care lipsesc.
      */
     public void init() throws SQLException {
+        init(Paths.get(System.getProperty("user.home"), DB_DIR));
+    }
+
+    /**
+     * Inițializează baza de date dintr-un director dat (ex. o bază temporară pentru benchmark-uri).
+     */
+    public void init(Path dbDir) throws SQLException {
         try {
-            // Creează directorul .magsell dacă nu există
-            Path dbDir = Paths.get(System.getProperty("user.home"), DB_DIR);
+            // Creează directorul bazei de date dacă nu există
             Files.createDirectories(dbDir);
 
-            // Deschide conexiunea la SQLite
+            // Deschide pool-ul de conexiuni la SQLite
             String dbPath = dbDir.resolve(DB_NAME).toString();
             String url = "jdbc:sqlite:" + dbPath;
-            this.connection = DriverManager.getConnection(url);
-            logger.info("Conectare la baza de date: " + url);
+            this.pool = new ConnectionPool(url, READ_POOL_SIZE);
+            logger.info("Conectare la baza de date: {}", url);
 
-            // Creează tabelele dacă nu există
-            createTables();
+            // Aplică migrările de schemă care lipsesc
+            migrateSchema();
+
+            // Reaplică vânzările rămase în jurnal după o oprire bruscă, apoi pornește jurnalul
+            Path journalPath = dbDir.resolve(SALE_JOURNAL_NAME);
+            // Soldurile de stoc se încarcă după reaplicare, ca să includă și acele vânzări
+            StockLedger ledger = new StockLedger(this);
+            try (Connection conn = pool.getWriteConnection()) {
+                SaleJournal.replay(conn, journalPath);
+                ledger.load(conn);
+            }
+            ledger.startSnapshots(Long.getLong(StockLedger.SNAPSHOT_PROPERTY, 60));
+            this.stockLedger = ledger;
+            this.saleJournal = new SaleJournal(this, SALE_JOURNAL_MAX_BATCH, SALE_JOURNAL_MAX_DELAY_MS,
+                    SALE_JOURNAL_CAPACITY, journalPath);
+            registerGauges();
         } catch (Exception e) {
             logger.error("Eroare la inițializarea bazei de date", e);
             throw new SQLException("Nu s-a putut inițializa baza de date", e);
@@ -59,85 +88,90 @@ public class DatabaseService {
     }
 
     /**
-     * Creează schema tabelelor.
+     * Expune în metrici contoarele cache-ului de instrucțiuni și starea jurnalului de vânzări.
      */
-    private void createTables() throws SQLException {
-        String[] tables = {
-            createProductsTable(),
-            createSalesTable(),
-            createCustomersTable()
-        };
-
-        try (Statement stmt = connection.createStatement()) {
-            for (String table : tables) {
-                stmt.execute(table);
-            }
-            logger.info("Tabelele s-au creat cu succes");
+    private void registerGauges() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.gauge("db.statementCache.hits", () -> pool.getStatementCacheStats().hits());
+        metrics.gauge("db.statementCache.misses", () -> pool.getStatementCacheStats().misses());
+        metrics.gauge("db.statementCache.evictions", () -> pool.getStatementCacheStats().evictions());
+        metrics.gauge("journal.queued", () -> saleJournal.getQueuedSales());
+        metrics.gauge("journal.committedSales", () -> saleJournal.getCommittedSales());
+        metrics.gauge("journal.committedBatches", () -> saleJournal.getCommittedBatches());
+    }
+
+    /**
+     * Aduce schema la zi prin migrările versionate.
+     */
+    private void migrateSchema() throws SQLException {
+        try (Connection conn = pool.getWriteConnection()) {
+            new SchemaMigrator().migrate(conn);
+            logger.info("Schema bazei de date este la versiunea {}", SchemaMigrator.latestVersion());
         }
     }
 
-    private String createProductsTable() {
-        return """
-            CREATE TABLE IF NOT EXISTS products (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                name TEXT NOT NULL UNIQUE,
-                description TEXT,
-                price DECIMAL(10,2) NOT NULL,
-                quantity INTEGER NOT NULL,
-                category TEXT,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-            )
-            """;
+    /**
+     * Obține conexiunea de scriere. Un singur fir o poate folosi la un moment dat;
+     * trebuie închisă (try-with-resources) pentru a o returna în pool.
+     */
+    public Connection getConnection() throws SQLException {
+        return requirePool().getWriteConnection();
     }
 
-    private String createSalesTable() {
-        return """
-            CREATE TABLE IF NOT EXISTS sales (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                product_id INTEGER NOT NULL,
-                product_name TEXT NOT NULL,
-                quantity INTEGER NOT NULL,
-                unit_price DECIMAL(10,2) NOT NULL,
-                total_price DECIMAL(10,2) NOT NULL,
-                sale_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                notes TEXT,
-                FOREIGN KEY (product_id) REFERENCES products(id)
-            )
-            """;
+    /**
+     * Obține o conexiune read-only, care poate rula în paralel cu scrierile.
+     * Trebuie închisă (try-with-resources) pentru a o returna în pool.
+     */
+    public Connection getReadConnection() throws SQLException {
+        return requirePool().getReadConnection();
     }
 
-    private String createCustomersTable() {
-        return """
-            CREATE TABLE IF NOT EXISTS customers (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                name TEXT NOT NULL,
-                email TEXT,
-                phone TEXT,
-                address TEXT,
-                first_purchase TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                last_purchase TIMESTAMP,
-                notes TEXT
-            )
-            """;
+    /**
+     * Obține jurnalul de vânzări cu group commit, pornit la {@link #init()}.
+     */
+    public SaleJournal getSaleJournal() throws SQLException {
+        if (saleJournal == null) {
+            throw new SQLException("Baza de date nu este inițializată");
+        }
+        return saleJournal;
     }
 
     /**
-     * Obține conexiunea la baza de date.
+     * Obține registrul de stoc, cu soldurile curente în memorie, pornit la {@link #init()}.
      */
-    public Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
+    public StockLedger getStockLedger() throws SQLException {
+        if (stockLedger == null) {
+            throw new SQLException("Baza de date nu este inițializată");
+        }
+        return stockLedger;
+    }
+
+    /**
+     * Contoarele cache-ului de instrucțiuni pregătite (reutilizări, compilări, evacuări).
+     */
+    public StatementCache.Snapshot getStatementCacheStats() throws SQLException {
+        return requirePool().getStatementCacheStats();
+    }
+
+    private ConnectionPool requirePool() throws SQLException {
+        if (pool == null || pool.isClosed()) {
             throw new SQLException("Conexiunea la baza de date este închisă");
         }
-        return connection;
+        return pool;
     }
 
     /**
-     * Închide conexiunea la baza de date.
+     * Închide toate conexiunile la baza de date.
      */
     public void close() throws SQLException {
-        if (connection != null && !connection.isClosed()) {
-            connection.close();
+        if (saleJournal != null) {
+            saleJournal.close();
+        }
+        if (stockLedger != null) {
+            stockLedger.close();
+        }
+        if (pool != null && !pool.isClosed()) {
+            pool.close();
             logger.info("Conexiune la baza de date închisă");
         }
     }
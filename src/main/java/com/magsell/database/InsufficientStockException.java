@@ -0,0 +1,26 @@
+package com.magsell.database;
+
+import java.sql.SQLException;
+
+/**
+ * Aruncată când o vânzare ar scădea stocul unui produs sub zero.
+ * Tranzacția vânzării este anulată în întregime.
+ */
+public class InsufficientStockException extends SQLException {
+    private final int productId;
+    private final String productName;
+
+    public InsufficientStockException(int productId, String productName) {
+        super("Stoc insuficient pentru produsul: " + productName);
+        this.productId = productId;
+        this.productName = productName;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+}
@@ -0,0 +1,205 @@
+package com.magsell.database;
+
+import com.magsell.models.Money;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transformă rândurile unui {@link ResultSet} în obiecte.
+ *
+ * Mapper-ul își declară coloanele o singură dată; {@link #columns()} dă lista
+ * explicită pentru SELECT, iar pozițiile coloanelor se caută o singură dată pe
+ * {@code ResultSet}, nu la fiecare citire după nume. În {@link #map(Row)}
+ * coloanele se citesc după poziția din lista declarată.
+ *
+ * Instanțele nu au stare și pot fi partajate între fire.
+ */
+public abstract class RowMapper<T> {
+    // Valorile repetate (categorii, roluri) se păstrează o singură dată în memorie
+    private static final StringPool POOL = new StringPool(4096);
+
+    private final String[] columns;
+    private final String columnList;
+
+    protected RowMapper(String... columns) {
+        this.columns = columns.clone();
+        this.columnList = String.join(", ", columns);
+    }
+
+    /**
+     * Lista coloanelor, pentru {@code SELECT <columns> FROM ...}.
+     */
+    public String columns() {
+        return columnList;
+    }
+
+    /**
+     * Construiește obiectul din rândul curent.
+     */
+    protected abstract T map(Row row) throws SQLException;
+
+    /**
+     * Citește toate rândurile rămase.
+     */
+    public List<T> list(ResultSet rs) throws SQLException {
+        List<T> result = new ArrayList<>();
+        Row row = row(rs);
+        while (rs.next()) {
+            result.add(map(row));
+        }
+        return result;
+    }
+
+    /**
+     * Citește primul rând, sau întoarce null dacă rezultatul e gol.
+     */
+    public T first(ResultSet rs) throws SQLException {
+        return rs.next() ? map(row(rs)) : null;
+    }
+
+    /**
+     * Pregătește citirea rând cu rând, pentru rezultate parcurse direct (ex. exporturi).
+     */
+    public Row row(ResultSet rs) throws SQLException {
+        return new Row(rs, resolve(rs));
+    }
+
+    /**
+     * Mapează rândul curent printr-un {@link Row} obținut cu {@link #row(ResultSet)}.
+     */
+    public T mapCurrent(Row row) throws SQLException {
+        return map(row);
+    }
+
+    private int[] resolve(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int count = meta.getColumnCount();
+        int[] index = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            // De obicei coloana e chiar pe poziția declarată (SELECT cu columns())
+            if (i < count && columns[i].equalsIgnoreCase(meta.getColumnLabel(i + 1))) {
+                index[i] = i + 1;
+                continue;
+            }
+            for (int c = 1; c <= count; c++) {
+                if (columns[i].equalsIgnoreCase(meta.getColumnLabel(c))) {
+                    index[i] = c;
+                    break;
+                }
+            }
+            if (index[i] == 0) {
+                throw new SQLException("Coloana lipsește din rezultat: " + columns[i]);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Rândul curent al unui {@code ResultSet}, cu coloanele adresate după poziția
+     * din lista mapper-ului. Aceeași instanță servește toate rândurile.
+     */
+    public static final class Row {
+        private final ResultSet rs;
+        private final int[] index;
+
+        private Row(ResultSet rs, int[] index) {
+            this.rs = rs;
+            this.index = index;
+        }
+
+        public int getInt(int column) throws SQLException {
+            return rs.getInt(index[column]);
+        }
+
+        public long getLong(int column) throws SQLException {
+            return rs.getLong(index[column]);
+        }
+
+        public String getString(int column) throws SQLException {
+            return rs.getString(index[column]);
+        }
+
+        /**
+         * Citește un text care se repetă mult între rânduri (ex. categoria) și
+         * întoarce instanța deja păstrată, dacă există.
+         */
+        public String getPooledString(int column) throws SQLException {
+            return POOL.canonical(rs.getString(index[column]));
+        }
+
+        /**
+         * Citește o sumă dintr-o coloană în bani ({@code *_bani}); null dacă lipsește.
+         */
+        public Money getMoney(int column) throws SQLException {
+            long bani = rs.getLong(index[column]);
+            return rs.wasNull() ? null : Money.ofBani(bani);
+        }
+
+        /**
+         * Citește o dată scrisă de SQLite ({@code CURRENT_TIMESTAMP}); întoarce null
+         * pentru valori lipsă sau într-un format necunoscut, fără excepții.
+         */
+        public LocalDateTime getTimestamp(int column) throws SQLException {
+            return parseTimestamp(rs.getString(index[column]));
+        }
+    }
+
+    /**
+     * Interpretează {@code yyyy-MM-dd HH:mm:ss} (sau cu {@code T}, opțional cu fracțiuni
+     * de secundă), formatul folosit de SQLite. Întoarce null dacă textul nu se potrivește.
+     */
+    public static LocalDateTime parseTimestamp(String text) {
+        if (text == null || text.length() < 19) {
+            return null;
+        }
+        char sep = text.charAt(10);
+        if (text.charAt(4) != '-' || text.charAt(7) != '-' || (sep != ' ' && sep != 'T')
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return null;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        int nanos = 0;
+        if (text.length() > 20 && text.charAt(19) == '.') {
+            int scale = 100_000_000;
+            for (int i = 20; i < text.length() && scale > 0; i++) {
+                int d = text.charAt(i) - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                nanos += d * scale;
+                scale /= 10;
+            }
+        }
+        if (day > 28 && day > YearMonth.of(year, month).lengthOfMonth()) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+    }
+
+    private static int digits(String text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = text.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,564 @@
+package com.magsell.database;
+
+import com.magsell.models.Money;
+import com.magsell.models.Sale;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Jurnal de vânzări cu scriere întârziată (write-behind) și group commit.
+ *
+ * Bonurile intră într-o coadă lock-free limitată; un singur fir de scriere le
+ * colectează în loturi de cel mult {@code maxBatch} bonuri sau {@code maxDelayMs}
+ * milisecunde și le salvează într-o singură tranzacție (un singur fsync).
+ * Fiecare bon are propriul savepoint, deci un bon fără stoc nu anulează restul lotului.
+ *
+ * În modul crash-safe, fiecare bon este adăugat întâi într-un fișier-jurnal local.
+ * Firul de scriere forțează fișierul pe disc (fsync) o dată pe lot, înainte de a scrie
+ * lotul în baza de date, deci bonurile din lot supraviețuiesc și unei căderi de curent
+ * sau a sistemului de operare. Ultimul număr de secvență salvat se ține în tabela
+ * {@code sale_journal_state}, în aceeași tranzacție cu vânzările, iar la pornire
+ * {@link #replay} reaplică bonurile rămase nesalvate.
+ *
+ * Dacă un lot eșuează în întregime (ex. baza de date e blocată sau o eroare de I/O),
+ * bonurile lui sunt raportate ca eșuate, iar în fișier se adaugă o înregistrare de
+ * anulare pentru secvențele lor, ca {@link #replay} să nu le aplice la pornirea următoare.
+ */
+public class SaleJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SaleJournal.class);
+    private static final LatencyHistogram COMMIT = Metrics.getInstance().histogram("journal.commit");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final DatabaseService dbService;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final int capacity;
+    private final JournalLog log;
+    private final StockLedger ledger;
+
+    private final ConcurrentLinkedQueue<PendingSale> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong committedSales = new AtomicLong();
+    private final AtomicLong committedBatches = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    /**
+     * @param logFile fișierul-jurnal pentru modul crash-safe, sau {@code null} pentru modul doar în memorie
+     */
+    public SaleJournal(DatabaseService dbService, int maxBatch, long maxDelayMs, int capacity, Path logFile)
+            throws SQLException {
+        this.dbService = dbService;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.capacity = capacity;
+        this.ledger = dbService.getStockLedger();
+        if (logFile != null) {
+            try (Connection conn = dbService.getReadConnection()) {
+                this.log = new JournalLog(logFile, readLastSequence(conn));
+            }
+        } else {
+            this.log = null;
+        }
+        this.writerThread = new Thread(this::runWriter, "magsell-sale-journal");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Pune un bon în coada de scriere.
+     *
+     * @return un future care se completează cu totalul bonului după commit, sau cu
+     *         {@link InsufficientStockException} dacă un produs nu are stoc suficient
+     */
+    public CompletableFuture<Money> submit(List<Sale> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Bonul nu conține produse");
+        }
+        PendingSale pending = new PendingSale(List.copyOf(items), LocalDateTime.now(ZoneOffset.UTC));
+        if (closed) {
+            pending.future.completeExceptionally(new SQLException("Jurnalul de vânzări este închis"));
+            return pending.future;
+        }
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            pending.future.completeExceptionally(new SQLException("Coada de vânzări este plină"));
+            return pending.future;
+        }
+
+        if (log != null) {
+            try {
+                // Secvența și ordinea din coadă trebuie să coincidă, altfel replay-ul ar sări bonuri
+                synchronized (log) {
+                    pending.sequence = log.append(pending.items, pending.saleDate);
+                    queue.offer(pending);
+                }
+            } catch (IOException e) {
+                queued.decrementAndGet();
+                pending.future.completeExceptionally(new SQLException("Nu s-a putut scrie în jurnalul de vânzări", e));
+                return pending.future;
+            }
+        } else {
+            queue.offer(pending);
+        }
+        LockSupport.unpark(writerThread);
+        return pending.future;
+    }
+
+    public long getCommittedSales() {
+        return committedSales.get();
+    }
+
+    public long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    public int getQueuedSales() {
+        return queued.get();
+    }
+
+    /**
+     * Oprește jurnalul după ce salvează tot ce se află deja în coadă.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingSale left;
+        while ((left = queue.poll()) != null) {
+            left.future.completeExceptionally(new SQLException("Jurnalul de vânzări este închis"));
+        }
+        if (log != null) {
+            log.close();
+        }
+        logger.info("Jurnal de vânzări închis: {} bonuri în {} loturi", committedSales.get(), committedBatches.get());
+    }
+
+    private void runWriter() {
+        List<PendingSale> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            PendingSale first = queue.poll();
+            if (first == null) {
+                if (closed) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            batch.add(first);
+            long deadline = System.nanoTime() + maxDelayNanos;
+            while (batch.size() < maxBatch) {
+                PendingSale next = queue.poll();
+                if (next != null) {
+                    batch.add(next);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || closed) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+
+            queued.addAndGet(-batch.size());
+            if (log != null && !forceLog(batch)) {
+                batch.clear();
+                continue;
+            }
+            commitBatch(batch);
+            batch.clear();
+        }
+    }
+
+    @SuppressWarnings("try")
+    private void commitBatch(List<PendingSale> batch) {
+        try (LatencyHistogram.Sample timing = COMMIT.time();
+             Connection conn = dbService.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                applyAll(conn, batch);
+                if (log != null) {
+                    writeLastSequence(conn, batch.get(batch.size() - 1).sequence);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            // După commit, dar cât timp conexiunea de scriere e încă ținută, ca soldurile
+            // să urmeze ordinea commit-urilor
+            for (PendingSale pending : batch) {
+                if (pending.error == null) {
+                    ledger.applySale(pending.items);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Eroare la salvarea unui lot de {} vânzări", batch.size(), e);
+            failBatch(batch, e);
+            return;
+        }
+
+        committedBatches.incrementAndGet();
+        for (PendingSale pending : batch) {
+            if (pending.error != null) {
+                pending.future.completeExceptionally(pending.error);
+            } else {
+                committedSales.incrementAndGet();
+                pending.future.complete(pending.total);
+            }
+        }
+        if (log != null) {
+            log.checkpoint(batch.get(batch.size() - 1).sequence);
+        }
+    }
+
+    /**
+     * Forțează pe disc bonurile din lot (și tot ce s-a scris înaintea lor) înainte de commit.
+     *
+     * @return false dacă fișierul nu a putut fi forțat; lotul a fost deja raportat ca eșuat
+     */
+    private boolean forceLog(List<PendingSale> batch) {
+        try {
+            log.force();
+            return true;
+        } catch (IOException e) {
+            logger.error("Nu s-a putut forța pe disc jurnalul de vânzări", e);
+            failBatch(batch, new SQLException("Nu s-a putut scrie în jurnalul de vânzări", e));
+            return false;
+        }
+    }
+
+    /**
+     * Raportează eșecul întregului lot. Secvențele lui se anulează în fișier înainte de a
+     * răspunde casei, altfel replay-ul ar aplica la pornire vânzări raportate ca eșuate.
+     */
+    private void failBatch(List<PendingSale> batch, Exception error) {
+        if (log != null) {
+            long first = batch.get(0).sequence;
+            long last = batch.get(batch.size() - 1).sequence;
+            try {
+                log.cancel(first, last);
+            } catch (IOException e) {
+                logger.error("Nu s-au putut anula în jurnal bonurile {}-{}; pot fi reaplicate la pornire",
+                        first, last, e);
+            }
+        }
+        for (PendingSale pending : batch) {
+            pending.future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Scrie fiecare bon sub propriul savepoint; erorile per bon rămân în {@code PendingSale.error}.
+     */
+    private static void applyAll(Connection conn, List<PendingSale> batch) throws SQLException {
+        try (SaleWriter writer = new SaleWriter(conn)) {
+            for (PendingSale pending : batch) {
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    pending.total = writer.write(pending.items, pending.saleDate);
+                    conn.releaseSavepoint(savepoint);
+                } catch (InsufficientStockException | IllegalArgumentException e) {
+                    conn.rollback(savepoint);
+                    conn.releaseSavepoint(savepoint);
+                    pending.error = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reaplică bonurile din fișierul-jurnal care nu au ajuns în baza de date, apoi golește fișierul.
+     * Se apelează la pornire, înainte de a crea jurnalul.
+     *
+     * @return numărul de bonuri reaplicate
+     */
+    public static int replay(Connection conn, Path logFile) throws SQLException {
+        if (!Files.exists(logFile)) {
+            return 0;
+        }
+        List<PendingSale> pending;
+        try {
+            pending = JournalLog.readAll(logFile);
+        } catch (IOException e) {
+            throw new SQLException("Nu s-a putut citi jurnalul de vânzări: " + logFile, e);
+        }
+
+        long lastSequence = readLastSequence(conn);
+        pending.removeIf(p -> p.sequence <= lastSequence || p.cancelled);
+        if (!pending.isEmpty()) {
+            conn.setAutoCommit(false);
+            try {
+                applyAll(conn, pending);
+                writeLastSequence(conn, pending.get(pending.size() - 1).sequence);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            for (PendingSale p : pending) {
+                if (p.error != null) {
+                    logger.error("Bon din jurnal nereaplicat (secvența {}): {}", p.sequence, p.error.getMessage());
+                }
+            }
+            logger.warn("Reaplicate {} bonuri din jurnalul de vânzări", pending.size());
+        }
+
+        try {
+            Files.write(logFile, new byte[0]);
+        } catch (IOException e) {
+            throw new SQLException("Nu s-a putut goli jurnalul de vânzări: " + logFile, e);
+        }
+        return pending.size();
+    }
+
+    private static long readLastSequence(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT last_seq FROM sale_journal_state WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static void writeLastSequence(Connection conn, long sequence) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE sale_journal_state SET last_seq = ? WHERE id = 1")) {
+            pstmt.setLong(1, sequence);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static final class PendingSale {
+        final List<Sale> items;
+        final LocalDateTime saleDate;
+        final CompletableFuture<Money> future = new CompletableFuture<>();
+        long sequence;
+        Money total;
+        Exception error;
+        boolean cancelled;
+
+        PendingSale(List<Sale> items, LocalDateTime saleDate) {
+            this.items = items;
+            this.saleDate = saleDate;
+        }
+    }
+
+    /**
+     * Fișier append-only cu bonurile încă nesalvate.
+     * Fiecare înregistrare: lungime, secvență, conținut, CRC32. O înregistrare
+     * trunchiată la final (scriere întreruptă) este ignorată la citire.
+     * Anulările au în locul secvenței {@link #CANCEL_MARKER}, urmat de intervalul anulat.
+     */
+    private static final class JournalLog {
+        // Secvențele reale sunt pozitive, deci marcajul nu se confundă cu un bon
+        private static final long CANCEL_MARKER = -1;
+
+        private final FileChannel channel;
+        private long lastSequence;
+
+        JournalLog(Path file, long lastSequence) throws SQLException {
+            try {
+                this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new SQLException("Nu s-a putut deschide jurnalul de vânzări: " + file, e);
+            }
+            this.lastSequence = lastSequence;
+        }
+
+        /**
+         * Adaugă un bon și întoarce secvența lui. Apelantul ține monitorul acestui obiect.
+         */
+        long append(List<Sale> items, LocalDateTime saleDate) throws IOException {
+            long sequence = lastSequence + 1;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * items.size());
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(sequence);
+            out.writeLong(saleDate.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(items.size());
+            for (Sale item : items) {
+                out.writeInt(item.getProductId());
+                out.writeUTF(item.getProductName());
+                out.writeInt(item.getQuantity());
+                // Text, ca înainte de Money: jurnalele scrise de versiunile vechi se citesc la fel
+                out.writeUTF(item.getUnitPrice().toString());
+                out.writeBoolean(item.getNotes() != null);
+                if (item.getNotes() != null) {
+                    out.writeUTF(item.getNotes());
+                }
+            }
+            write(bytes.toByteArray());
+            lastSequence = sequence;
+            return sequence;
+        }
+
+        /**
+         * Anulează bonurile cu secvențele din intervalul dat și forțează anularea pe disc.
+         * Dacă după ele nu s-a mai scris nimic, fișierul se golește direct.
+         */
+        synchronized void cancel(long firstSequence, long lastCancelled) throws IOException {
+            if (lastCancelled == lastSequence) {
+                channel.truncate(0);
+                channel.force(false);
+                return;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(24);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(CANCEL_MARKER);
+            out.writeLong(firstSequence);
+            out.writeLong(lastCancelled);
+            write(bytes.toByteArray());
+            channel.force(false);
+        }
+
+        /**
+         * Forțează pe disc tot ce s-a scris până acum. Un singur apel acoperă un lot întreg.
+         */
+        void force() throws IOException {
+            channel.force(false);
+        }
+
+        private void write(byte[] payload) throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            ByteBuffer record = ByteBuffer.allocate(4 + payload.length + 8);
+            record.putInt(payload.length).put(payload).putLong(crc.getValue()).flip();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        }
+
+        /**
+         * Golește fișierul dacă toate bonurile scrise în el sunt deja în baza de date.
+         */
+        synchronized void checkpoint(long committedSequence) {
+            if (committedSequence != lastSequence) {
+                return;
+            }
+            try {
+                channel.truncate(0);
+            } catch (IOException e) {
+                logger.warn("Nu s-a putut goli jurnalul de vânzări", e);
+            }
+        }
+
+        synchronized void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Eroare la închiderea jurnalului de vânzări", e);
+            }
+        }
+
+        /**
+         * Citește bonurile din fișier; cele anulate ulterior au {@code cancelled} setat.
+         */
+        static List<PendingSale> readAll(Path file) throws IOException {
+            List<PendingSale> result = new ArrayList<>();
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+                while (true) {
+                    byte[] payload;
+                    long storedCrc;
+                    try {
+                        int length = in.readInt();
+                        if (length <= 0 || length > MAX_RECORD_BYTES) {
+                            logger.warn("Lungime invalidă în jurnalul de vânzări; restul fișierului este ignorat");
+                            break;
+                        }
+                        payload = new byte[length];
+                        in.readFully(payload);
+                        storedCrc = in.readLong();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if (crc.getValue() != storedCrc) {
+                        logger.warn("Înregistrare coruptă în jurnalul de vânzări; restul fișierului este ignorat");
+                        break;
+                    }
+                    DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                    if (record.readLong() == CANCEL_MARKER) {
+                        long first = record.readLong();
+                        long last = record.readLong();
+                        for (PendingSale pending : result) {
+                            if (pending.sequence >= first && pending.sequence <= last) {
+                                pending.cancelled = true;
+                            }
+                        }
+                    } else {
+                        result.add(decode(payload));
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static PendingSale decode(byte[] payload) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            long sequence = in.readLong();
+            LocalDateTime saleDate = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+            int count = in.readInt();
+            List<Sale> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Sale item = new Sale();
+                item.setProductId(in.readInt());
+                item.setProductName(in.readUTF());
+                item.setQuantity(in.readInt());
+                item.setUnitPrice(Money.parse(in.readUTF()));
+                if (in.readBoolean()) {
+                    item.setNotes(in.readUTF());
+                }
+                items.add(item);
+            }
+            PendingSale pending = new PendingSale(items, saleDate);
+            pending.sequence = sequence;
+            return pending;
+        }
+    }
+}
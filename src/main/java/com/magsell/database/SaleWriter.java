@@ -0,0 +1,336 @@
+package com.magsell.database;
+
+import com.magsell.models.Money;
+import com.magsell.models.Sale;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scrie bonuri în tabela sales și scade stocul produselor, pe o conexiune dată.
+ * Nu gestionează tranzacția: apelantul decide unde începe și unde se termină,
+ * astfel încât același cod servește atât checkout-ul direct cât și jurnalul de vânzări.
+ * Instrucțiunile pregătite se refolosesc pentru toate bonurile scrise cu aceeași instanță.
+ *
+ * În aceeași tranzacție se actualizează și agregatele zilnice (pe zi, produs și
+ * categorie) din care citește {@code ReportService}; ziua este cea locală a vânzării.
+ * Fiecare linie adaugă și o mișcare {@code SALE} în registrul de stoc ({@link StockLedger});
+ * după commit, apelantul aplică scăderile și în soldurile din memorie.
+ * Bonurile din istoric ({@link #writeHistorical(List)}) nu modifică stocul.
+ */
+public class SaleWriter implements AutoCloseable {
+    // Același format ca CURRENT_TIMESTAMP din SQLite (UTC)
+    public static final DateTimeFormatter SQLITE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET quantity = quantity - ?, version = version + 1, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id = ? AND quantity >= ?";
+    private static final String INSERT_SALE_SQL =
+            "INSERT INTO sales (product_id, product_name, quantity, unit_price_bani, total_price_bani, sale_date, notes) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Parametri comuni agregatelor pe linie: cantitate, încasare (bani), cantitate, ID produs.
+    // Costul liniei se calculează din prețul de cost curent al produsului.
+    private static final String LINE_VALUES =
+            "?, ?, CASE WHEN cost_price_bani IS NULL THEN 0 ELSE ? END, "
+            + "COALESCE(cost_price_bani, 0) * ? FROM products WHERE id = ?";
+    private static final String ADD_LINE_TOTALS =
+            "quantity = quantity + excluded.quantity, revenue_bani = revenue_bani + excluded.revenue_bani, "
+            + "costed_revenue_bani = costed_revenue_bani + excluded.costed_revenue_bani, "
+            + "cost_bani = cost_bani + excluded.cost_bani";
+
+    private static final String ADD_RECEIPT_SQL =
+            "INSERT INTO sales_daily (day, receipts) VALUES (?, ?) "
+            + "ON CONFLICT(day) DO UPDATE SET receipts = receipts + excluded.receipts";
+    private static final String ADD_DAILY_LINE_SQL =
+            "INSERT INTO sales_daily (day, lines, quantity, revenue_bani, costed_revenue_bani, cost_bani) "
+            + "SELECT ?, ?, " + LINE_VALUES + " "
+            + "ON CONFLICT(day) DO UPDATE SET lines = lines + excluded.lines, " + ADD_LINE_TOTALS;
+    private static final String ADD_PRODUCT_LINE_SQL =
+            "INSERT INTO sales_daily_product (day, product_name, category, product_id, quantity, revenue_bani, costed_revenue_bani, cost_bani) "
+            + "SELECT ?, ?, COALESCE(category, ''), id, " + LINE_VALUES + " "
+            + "ON CONFLICT(day, product_id) DO UPDATE SET product_name = excluded.product_name, "
+            + "category = excluded.category, " + ADD_LINE_TOTALS;
+    private static final String ADD_CATEGORY_LINE_SQL =
+            "INSERT INTO sales_daily_category (day, category, quantity, revenue_bani, costed_revenue_bani, cost_bani) "
+            + "SELECT ?, COALESCE(category, ''), " + LINE_VALUES + " "
+            + "ON CONFLICT(day, category) DO UPDATE SET " + ADD_LINE_TOTALS;
+
+    private final PreparedStatement stock;
+    private final PreparedStatement insert;
+    private final PreparedStatement receipt;
+    private final PreparedStatement dailyLine;
+    private final PreparedStatement productLine;
+    private final PreparedStatement categoryLine;
+    private final PreparedStatement movement;
+
+    public SaleWriter(Connection conn) throws SQLException {
+        PreparedStatement[] prepared = new PreparedStatement[7];
+        String[] sql = {
+            DECREMENT_STOCK_SQL, INSERT_SALE_SQL, ADD_RECEIPT_SQL,
+            ADD_DAILY_LINE_SQL, ADD_PRODUCT_LINE_SQL, ADD_CATEGORY_LINE_SQL, StockLedger.INSERT_MOVEMENT_SQL
+        };
+        try {
+            for (int i = 0; i < sql.length; i++) {
+                prepared[i] = conn.prepareStatement(sql[i]);
+            }
+        } catch (SQLException e) {
+            closeAll(prepared);
+            throw e;
+        }
+        this.stock = prepared[0];
+        this.insert = prepared[1];
+        this.receipt = prepared[2];
+        this.dailyLine = prepared[3];
+        this.productLine = prepared[4];
+        this.categoryLine = prepared[5];
+        this.movement = prepared[6];
+    }
+
+    /**
+     * Scrie toate liniile unui bon cu data dată (UTC).
+     *
+     * @return totalul bonului
+     * @throws InsufficientStockException dacă un produs nu are stoc suficient; apelantul
+     *         trebuie să anuleze tranzacția (sau savepoint-ul) în care a apelat metoda
+     */
+    public Money write(List<Sale> items, LocalDateTime saleDate) throws SQLException {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Bonul nu conține produse");
+        }
+        String saleDateText = SQLITE_TIMESTAMP.format(saleDate);
+        String day = localDay(saleDate);
+        long totalBani = 0;
+
+        try {
+            for (Sale item : items) {
+                if (item.getQuantity() <= 0) {
+                    throw new IllegalArgumentException("Cantitate invalidă pentru produsul: " + item.getProductName());
+                }
+                long lineBani = lineBani(item);
+                item.setTotalPrice(Money.ofBani(lineBani));
+                item.setSaleDate(saleDate);
+                totalBani = addBani(totalBani, lineBani, item);
+
+                stock.setInt(1, item.getQuantity());
+                stock.setInt(2, item.getProductId());
+                stock.setInt(3, item.getQuantity());
+                stock.addBatch();
+                StockLedger.bind(movement, item.getProductId(), StockMovement.Type.SALE, -item.getQuantity(),
+                        saleDate, null);
+                movement.addBatch();
+
+                addInsert(item, lineBani, saleDateText);
+                addLineTotals(day, item.getProductId(), item.getProductName(), 1, item.getQuantity(), lineBani);
+            }
+
+            int[] updated = stock.executeBatch();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    Sale item = items.get(i);
+                    throw new InsufficientStockException(item.getProductId(), item.getProductName());
+                }
+            }
+            movement.executeBatch();
+            insert.executeBatch();
+
+            receipt.setString(1, day);
+            receipt.setInt(2, 1);
+            receipt.executeUpdate();
+            dailyLine.executeBatch();
+            productLine.executeBatch();
+            categoryLine.executeBatch();
+        } finally {
+            clearBatches();
+        }
+        return Money.ofBani(totalBani);
+    }
+
+    /**
+     * Scrie bonuri din istoric (ex. importate), fiecare cu data (UTC) completată pe linii.
+     * Stocul nu se modifică, iar totalul liniei se păstrează dacă e completat (poate
+     * conține o reducere). Agregatele se adună întâi în memorie, pe zi și produs, deci
+     * se scriu o singură dată pentru toate liniile aceluiași produs din aceeași zi.
+     *
+     * @return numărul de linii scrise
+     */
+    public int writeHistorical(List<List<Sale>> receipts) throws SQLException {
+        Map<String, Integer> receiptsByDay = new HashMap<>();
+        Map<DayProduct, LineTotals> totals = new LinkedHashMap<>();
+        int lines = 0;
+
+        try {
+            for (List<Sale> items : receipts) {
+                if (items.isEmpty()) {
+                    throw new IllegalArgumentException("Bonul nu conține produse");
+                }
+                LocalDateTime saleDate = items.get(0).getSaleDate();
+                String saleDateText = SQLITE_TIMESTAMP.format(saleDate);
+                String day = localDay(saleDate);
+                receiptsByDay.merge(day, 1, Integer::sum);
+
+                for (Sale item : items) {
+                    if (item.getQuantity() <= 0) {
+                        throw new IllegalArgumentException("Cantitate invalidă pentru produsul: " + item.getProductName());
+                    }
+                    Money lineTotal = item.getTotalPrice() != null
+                            ? item.getTotalPrice()
+                            : Money.ofBani(lineBani(item));
+                    item.setTotalPrice(lineTotal);
+                    addInsert(item, lineTotal.bani(), saleDateText);
+                    totals.computeIfAbsent(new DayProduct(day, item.getProductId()), k -> new LineTotals(item.getProductName()))
+                            .add(item.getQuantity(), lineTotal.bani());
+                    lines++;
+                }
+            }
+            insert.executeBatch();
+
+            for (Map.Entry<String, Integer> day : receiptsByDay.entrySet()) {
+                receipt.setString(1, day.getKey());
+                receipt.setInt(2, day.getValue());
+                receipt.addBatch();
+            }
+            receipt.executeBatch();
+            for (Map.Entry<DayProduct, LineTotals> entry : totals.entrySet()) {
+                LineTotals t = entry.getValue();
+                addLineTotals(entry.getKey().day(), entry.getKey().productId(), t.productName, t.lines, t.quantity, t.revenueBani);
+            }
+            dailyLine.executeBatch();
+            productLine.executeBatch();
+            categoryLine.executeBatch();
+        } finally {
+            clearBatches();
+        }
+        return lines;
+    }
+
+    private void addInsert(Sale item, long lineBani, String saleDateText) throws SQLException {
+        insert.setInt(1, item.getProductId());
+        insert.setString(2, item.getProductName());
+        insert.setInt(3, item.getQuantity());
+        insert.setLong(4, item.getUnitPrice().bani());
+        insert.setLong(5, lineBani);
+        insert.setString(6, saleDateText);
+        insert.setString(7, item.getNotes());
+        insert.addBatch();
+    }
+
+    /**
+     * Adaugă în batch-urile agregatelor una sau mai multe linii ale unui produs dintr-o zi.
+     */
+    private void addLineTotals(String day, int productId, String productName,
+                               int lines, int quantity, long revenueBani) throws SQLException {
+        dailyLine.setString(1, day);
+        dailyLine.setInt(2, lines);
+        bindLine(dailyLine, 3, productId, quantity, revenueBani);
+        dailyLine.addBatch();
+
+        productLine.setString(1, day);
+        productLine.setString(2, productName);
+        bindLine(productLine, 3, productId, quantity, revenueBani);
+        productLine.addBatch();
+
+        categoryLine.setString(1, day);
+        bindLine(categoryLine, 2, productId, quantity, revenueBani);
+        categoryLine.addBatch();
+    }
+
+    private static void bindLine(PreparedStatement pstmt, int from, int productId,
+                                 int quantity, long revenueBani) throws SQLException {
+        pstmt.setInt(from, quantity);
+        pstmt.setLong(from + 1, revenueBani);
+        pstmt.setLong(from + 2, revenueBani);
+        pstmt.setInt(from + 3, quantity);
+        pstmt.setInt(from + 4, productId);
+    }
+
+    private void clearBatches() throws SQLException {
+        stock.clearBatch();
+        insert.clearBatch();
+        receipt.clearBatch();
+        dailyLine.clearBatch();
+        productLine.clearBatch();
+        categoryLine.clearBatch();
+        movement.clearBatch();
+    }
+
+    private record DayProduct(String day, int productId) {
+    }
+
+    private static final class LineTotals {
+        private final String productName;
+        private int lines;
+        private int quantity;
+        private long revenueBani;
+
+        LineTotals(String productName) {
+            this.productName = productName;
+        }
+
+        void add(int quantity, long revenueBani) {
+            this.lines++;
+            this.quantity += quantity;
+            this.revenueBani += revenueBani;
+        }
+    }
+
+    /**
+     * Valoarea liniei în bani. O depășire de {@code long} e o linie invalidă, nu o eroare a lotului.
+     */
+    private static long lineBani(Sale item) {
+        try {
+            return Math.multiplyExact(item.getUnitPrice().bani(), item.getQuantity());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Valoare prea mare pentru produsul: " + item.getProductName(), e);
+        }
+    }
+
+    private static long addBani(long totalBani, long lineBani, Sale item) {
+        try {
+            return Math.addExact(totalBani, lineBani);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Totalul bonului depășește limita la produsul: " + item.getProductName(), e);
+        }
+    }
+
+    /**
+     * Ziua locală (yyyy-MM-dd) a unei vânzări înregistrate în UTC.
+     */
+    static String localDay(LocalDateTime saleDateUtc) {
+        return saleDateUtc.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDate().toString();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        closeAll(new PreparedStatement[] { stock, insert, receipt, dailyLine, productLine, categoryLine, movement });
+    }
+
+    private static void closeAll(PreparedStatement[] statements) throws SQLException {
+        SQLException failure = null;
+        for (PreparedStatement pstmt : statements) {
+            if (pstmt == null) {
+                continue;
+            }
+            try {
+                pstmt.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
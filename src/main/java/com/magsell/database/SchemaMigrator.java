@@ -0,0 +1,325 @@
+package com.magsell.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Aplică migrările de schemă în ordine, pe baza {@code PRAGMA user_version}.
+ * La o bază de date deja la zi, pornirea costă o singură citire de PRAGMA.
+ * Migrările noi se adaugă la finalul listei, cu versiunea următoare; cele
+ * existente nu se modifică niciodată.
+ */
+public class SchemaMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Schema inițială",
+            """
+            CREATE TABLE IF NOT EXISTS products (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                name TEXT NOT NULL UNIQUE,
+                description TEXT,
+                price DECIMAL(10,2) NOT NULL,
+                quantity INTEGER NOT NULL,
+                category TEXT,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS sales (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                product_id INTEGER NOT NULL,
+                product_name TEXT NOT NULL,
+                quantity INTEGER NOT NULL,
+                unit_price DECIMAL(10,2) NOT NULL,
+                total_price DECIMAL(10,2) NOT NULL,
+                sale_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                notes TEXT,
+                FOREIGN KEY (product_id) REFERENCES products(id)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS customers (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                name TEXT NOT NULL,
+                email TEXT,
+                phone TEXT,
+                address TEXT,
+                first_purchase TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                last_purchase TIMESTAMP,
+                notes TEXT
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS users (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                username TEXT NOT NULL UNIQUE,
+                password_hash TEXT NOT NULL,
+                salt TEXT NOT NULL,
+                role TEXT NOT NULL DEFAULT 'user',
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """),
+        new Migration(2, "Indexuri pentru rapoarte și lista de produse",
+            "CREATE INDEX IF NOT EXISTS idx_sales_sale_date ON sales(sale_date)",
+            "CREATE INDEX IF NOT EXISTS idx_sales_product_date ON sales(product_id, sale_date)",
+            "CREATE INDEX IF NOT EXISTS idx_products_category_name ON products(category, name)"),
+        new Migration(3, "Starea jurnalului de vânzări",
+            """
+            CREATE TABLE IF NOT EXISTS sale_journal_state (
+                id INTEGER PRIMARY KEY CHECK (id = 1),
+                last_seq INTEGER NOT NULL
+            )
+            """,
+            "INSERT OR IGNORE INTO sale_journal_state (id, last_seq) VALUES (1, 0)"),
+        new Migration(4, "Agregate zilnice de vânzări pentru rapoarte",
+            "ALTER TABLE products ADD COLUMN cost_price DECIMAL(10,2)",
+            // Sumele sunt în bani (1/100 lei), ca adunările repetate să rămână exacte.
+            // costed_revenue_bani: încasările liniilor cu preț de cost cunoscut, baza marjei.
+            """
+            CREATE TABLE IF NOT EXISTS sales_daily (
+                day TEXT PRIMARY KEY,
+                receipts INTEGER NOT NULL DEFAULT 0,
+                lines INTEGER NOT NULL DEFAULT 0,
+                quantity INTEGER NOT NULL DEFAULT 0,
+                revenue_bani INTEGER NOT NULL DEFAULT 0,
+                costed_revenue_bani INTEGER NOT NULL DEFAULT 0,
+                cost_bani INTEGER NOT NULL DEFAULT 0
+            ) WITHOUT ROWID
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS sales_daily_product (
+                day TEXT NOT NULL,
+                product_id INTEGER NOT NULL,
+                product_name TEXT NOT NULL,
+                category TEXT NOT NULL DEFAULT '',
+                quantity INTEGER NOT NULL DEFAULT 0,
+                revenue_bani INTEGER NOT NULL DEFAULT 0,
+                costed_revenue_bani INTEGER NOT NULL DEFAULT 0,
+                cost_bani INTEGER NOT NULL DEFAULT 0,
+                PRIMARY KEY (day, product_id)
+            ) WITHOUT ROWID
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS sales_daily_category (
+                day TEXT NOT NULL,
+                category TEXT NOT NULL,
+                quantity INTEGER NOT NULL DEFAULT 0,
+                revenue_bani INTEGER NOT NULL DEFAULT 0,
+                costed_revenue_bani INTEGER NOT NULL DEFAULT 0,
+                cost_bani INTEGER NOT NULL DEFAULT 0,
+                PRIMARY KEY (day, category)
+            ) WITHOUT ROWID
+            """,
+            // Istoricul existent: bonurile nu au ID, deci se numără după momentul vânzării
+            """
+            INSERT INTO sales_daily (day, receipts, lines, quantity, revenue_bani)
+            SELECT date(sale_date, 'localtime'), COUNT(DISTINCT sale_date), COUNT(*), SUM(quantity),
+                   SUM(CAST(ROUND(total_price * 100) AS INTEGER))
+            FROM sales
+            GROUP BY 1
+            """,
+            """
+            INSERT INTO sales_daily_product (day, product_id, product_name, category, quantity, revenue_bani)
+            SELECT date(s.sale_date, 'localtime'), s.product_id, MAX(s.product_name), COALESCE(MAX(p.category), ''),
+                   SUM(s.quantity), SUM(CAST(ROUND(s.total_price * 100) AS INTEGER))
+            FROM sales s LEFT JOIN products p ON p.id = s.product_id
+            GROUP BY 1, 2
+            """,
+            """
+            INSERT INTO sales_daily_category (day, category, quantity, revenue_bani)
+            SELECT day, category, SUM(quantity), SUM(revenue_bani)
+            FROM sales_daily_product
+            GROUP BY day, category
+            """),
+        new Migration(5, "Versiunea rândului pentru actualizări concurente ale produselor",
+            "ALTER TABLE products ADD COLUMN version INTEGER NOT NULL DEFAULT 0"),
+        new Migration(6, "Registrul mișcărilor de stoc și instantanee de sold",
+            // Doar se adaugă rânduri; quantity e cu semn (intrări pozitive, ieșiri negative)
+            """
+            CREATE TABLE IF NOT EXISTS stock_movements (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                product_id INTEGER NOT NULL,
+                type TEXT NOT NULL,
+                quantity INTEGER NOT NULL,
+                occurred_at TIMESTAMP NOT NULL,
+                note TEXT
+            )
+            """,
+            // Indexul include implicit id-ul, deci servește și căutările „după instantaneu”
+            "CREATE INDEX IF NOT EXISTS idx_stock_movements_product ON stock_movements(product_id)",
+            // Soldul produsului după toate mișcările cu id <= movement_id
+            """
+            CREATE TABLE IF NOT EXISTS stock_snapshots (
+                product_id INTEGER NOT NULL,
+                movement_id INTEGER NOT NULL,
+                taken_at TIMESTAMP NOT NULL,
+                quantity INTEGER NOT NULL,
+                PRIMARY KEY (product_id, movement_id)
+            ) WITHOUT ROWID
+            """,
+            // Stocul inițial al produselor noi, indiferent de calea pe care sunt create (editor, import)
+            """
+            CREATE TRIGGER IF NOT EXISTS products_opening_stock AFTER INSERT ON products
+            WHEN NEW.quantity <> 0
+            BEGIN
+                INSERT INTO stock_movements (product_id, type, quantity, occurred_at)
+                VALUES (NEW.id, 'OPENING', NEW.quantity, CURRENT_TIMESTAMP);
+            END
+            """,
+            // Istoricul de dinainte nu e cunoscut: stocul existent devine sold inițial
+            """
+            INSERT INTO stock_movements (product_id, type, quantity, occurred_at)
+            SELECT id, 'OPENING', quantity, CURRENT_TIMESTAMP FROM products WHERE quantity <> 0
+            """),
+        new Migration(7, "Sume în bani (INTEGER) în loc de DECIMAL",
+            // DECIMAL în SQLite e de fapt REAL; sumele exacte se țin ca număr întreg de bani,
+            // ca în agregatele zilnice. Coloanele vechi se elimină, ca nimic să nu le mai citească.
+            "ALTER TABLE products ADD COLUMN price_bani INTEGER NOT NULL DEFAULT 0",
+            "ALTER TABLE products ADD COLUMN cost_price_bani INTEGER",
+            "UPDATE products SET price_bani = CAST(ROUND(price * 100) AS INTEGER), "
+                + "cost_price_bani = CAST(ROUND(cost_price * 100) AS INTEGER)",
+            "ALTER TABLE products DROP COLUMN price",
+            "ALTER TABLE products DROP COLUMN cost_price",
+            "ALTER TABLE sales ADD COLUMN unit_price_bani INTEGER NOT NULL DEFAULT 0",
+            "ALTER TABLE sales ADD COLUMN total_price_bani INTEGER NOT NULL DEFAULT 0",
+            "UPDATE sales SET unit_price_bani = CAST(ROUND(unit_price * 100) AS INTEGER), "
+                + "total_price_bani = CAST(ROUND(total_price * 100) AS INTEGER)",
+            "ALTER TABLE sales DROP COLUMN unit_price",
+            "ALTER TABLE sales DROP COLUMN total_price"),
+        new Migration(8, "Căutare full-text (FTS5) în produse și în notele vânzărilor",
+            // Indexuri cu conținut extern: textul rămâne doar în tabelele de bază, iar
+            // tokenizer-ul ignoră diacriticele („ciocolata” găsește „ciocolată”)
+            """
+            CREATE VIRTUAL TABLE IF NOT EXISTS products_fts USING fts5(
+                name, description, category,
+                content='products', content_rowid='id',
+                tokenize='unicode61 remove_diacritics 2', prefix='2 3'
+            )
+            """,
+            """
+            CREATE VIRTUAL TABLE IF NOT EXISTS sales_notes_fts USING fts5(
+                notes,
+                content='sales', content_rowid='id',
+                tokenize='unicode61 remove_diacritics 2'
+            )
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS products_fts_insert AFTER INSERT ON products
+            BEGIN
+                INSERT INTO products_fts (rowid, name, description, category)
+                VALUES (NEW.id, NEW.name, NEW.description, NEW.category);
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS products_fts_delete AFTER DELETE ON products
+            BEGIN
+                INSERT INTO products_fts (products_fts, rowid, name, description, category)
+                VALUES ('delete', OLD.id, OLD.name, OLD.description, OLD.category);
+            END
+            """,
+            // Doar coloanele indexate: vânzările și mișcările de stoc schimbă quantity și nu reindexează
+            """
+            CREATE TRIGGER IF NOT EXISTS products_fts_update AFTER UPDATE OF name, description, category ON products
+            BEGIN
+                INSERT INTO products_fts (products_fts, rowid, name, description, category)
+                VALUES ('delete', OLD.id, OLD.name, OLD.description, OLD.category);
+                INSERT INTO products_fts (rowid, name, description, category)
+                VALUES (NEW.id, NEW.name, NEW.description, NEW.category);
+            END
+            """,
+            // Majoritatea vânzărilor nu au note; în index intră doar cele cu text, iar
+            // condițiile de mai jos trebuie să rămână aceleași la inserare și la ștergere
+            """
+            CREATE TRIGGER IF NOT EXISTS sales_notes_fts_insert AFTER INSERT ON sales
+            WHEN NEW.notes IS NOT NULL AND NEW.notes <> ''
+            BEGIN
+                INSERT INTO sales_notes_fts (rowid, notes) VALUES (NEW.id, NEW.notes);
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS sales_notes_fts_delete AFTER DELETE ON sales
+            WHEN OLD.notes IS NOT NULL AND OLD.notes <> ''
+            BEGIN
+                INSERT INTO sales_notes_fts (sales_notes_fts, rowid, notes) VALUES ('delete', OLD.id, OLD.notes);
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS sales_notes_fts_update AFTER UPDATE OF notes ON sales
+            BEGIN
+                INSERT INTO sales_notes_fts (sales_notes_fts, rowid, notes)
+                SELECT 'delete', OLD.id, OLD.notes WHERE OLD.notes IS NOT NULL AND OLD.notes <> '';
+                INSERT INTO sales_notes_fts (rowid, notes)
+                SELECT NEW.id, NEW.notes WHERE NEW.notes IS NOT NULL AND NEW.notes <> '';
+            END
+            """,
+            // Indexarea datelor existente
+            "INSERT INTO products_fts (products_fts) VALUES ('rebuild')",
+            "INSERT INTO sales_notes_fts (rowid, notes) SELECT id, notes FROM sales WHERE notes IS NOT NULL AND notes <> ''"),
+        new Migration(9, "Index pe pragul instantaneelor de stoc",
+            // MAX(movement_id) din StockLedger se citește din index, fără parcurgerea tuturor instantaneelor
+            "CREATE INDEX IF NOT EXISTS idx_stock_snapshots_movement ON stock_snapshots(movement_id)")
+    );
+
+    /**
+     * Versiunea de schemă la care aduce baza de date această versiune a aplicației.
+     */
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    /**
+     * Aplică migrările care lipsesc. Fiecare migrare rulează în propria tranzacție,
+     * împreună cu actualizarea lui {@code user_version}.
+     */
+    public void migrate(Connection conn) throws SQLException {
+        int current = readUserVersion(conn);
+        if (current == latestVersion()) {
+            return;
+        }
+        if (current > latestVersion()) {
+            throw new SQLException("Baza de date are schema v" + current
+                    + ", mai nouă decât cea suportată (v" + latestVersion() + ")");
+        }
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() <= current) {
+                    continue;
+                }
+                try {
+                    for (String sql : migration.statements()) {
+                        stmt.execute(sql);
+                    }
+                    stmt.execute("PRAGMA user_version = " + migration.version());
+                    conn.commit();
+                    logger.info("Migrare aplicată: v{} - {}", migration.version(), migration.description());
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw new SQLException("Migrarea v" + migration.version() + " a eșuat", e);
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private int readUserVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private record Migration(int version, String description, String... statements) {
+    }
+}
@@ -0,0 +1,213 @@
+package com.magsell.database;
+
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU de instrucțiuni pregătite pentru o conexiune fizică din pool.
+ *
+ * {@code prepareStatement()} pe o conexiune împrumutată ajunge aici: dacă același
+ * SQL a mai fost pregătit pe conexiune, se refolosește instrucțiunea compilată, iar
+ * SQLite nu mai parsează și nu mai planifică interogarea. Instrucțiunea împrumutată
+ * e scoasă din cache cât timp e folosită, deci același SQL cerut de două ori
+ * simultan (ex. apeluri imbricate pe conexiunea de scriere) primește două
+ * instrucțiuni distincte. La close() se închide rezultatul deschis, se șterg
+ * parametrii și batch-ul, iar instrucțiunea revine în cache.
+ *
+ * Contoarele de hit/miss ale pool-ului se citesc prin
+ * {@link DatabaseService#getStatementCacheStats()}. Execuțiile fiecărei instrucțiuni
+ * se măsoară în histograma ei din {@link Metrics#statement(String)}.
+ */
+public final class StatementCache {
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    /**
+     * Contoare comune tuturor cache-urilor unui pool.
+     */
+    static final class Stats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        Snapshot snapshot() {
+            return new Snapshot(hits.sum(), misses.sum(), evictions.sum());
+        }
+    }
+
+    /**
+     * Valorile contoarelor la un moment dat.
+     */
+    public record Snapshot(long hits, long misses, long evictions) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    private final Connection physical;
+    private final int capacity;
+    private final Stats stats;
+    private final LinkedHashMap<Key, PreparedStatement> idle;
+    private boolean closed;
+
+    StatementCache(Connection physical, int capacity, Stats stats) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.stats = stats;
+        this.idle = new LinkedHashMap<>(capacity, 0.75f, true);
+    }
+
+    /**
+     * Împrumută o instrucțiune pregătită pentru {@code sql}.
+     *
+     * @param owner conexiunea împrumutată din pool, întoarsă de {@code getConnection()} pe instrucțiune
+     */
+    synchronized PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        PreparedStatement statement = closed ? null : idle.remove(key);
+        if (statement != null) {
+            stats.hits.increment();
+        } else {
+            stats.misses.increment();
+            statement = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                    ? physical.prepareStatement(sql)
+                    : physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new CachedStatementHandler(this, key, statement, owner, Metrics.getInstance().statement(sql)));
+    }
+
+    /**
+     * Pune instrucțiunea înapoi în cache, curățată, sau o închide dacă nu mai are loc.
+     */
+    private synchronized void release(Key key, PreparedStatement statement) {
+        try {
+            if (closed || physical.isClosed()) {
+                statement.close();
+                return;
+            }
+            ResultSet rs = statement.getResultSet();
+            if (rs != null) {
+                rs.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+        } catch (SQLException e) {
+            logger.debug("Instrucțiune scoasă din cache după o eroare la curățare", e);
+            closeQuietly(statement);
+            return;
+        }
+
+        if (idle.containsKey(key)) {
+            closeQuietly(statement);
+            return;
+        }
+        idle.put(key, statement);
+        if (idle.size() > capacity) {
+            Iterator<PreparedStatement> eldest = idle.values().iterator();
+            closeQuietly(eldest.next());
+            eldest.remove();
+            stats.evictions.increment();
+        }
+    }
+
+    /**
+     * Închide instrucțiunile din cache. Se apelează înainte de închiderea conexiunii fizice.
+     */
+    synchronized void close() {
+        closed = true;
+        for (PreparedStatement statement : idle.values()) {
+            closeQuietly(statement);
+        }
+        idle.clear();
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.warn("Eroare la închiderea instrucțiunii", e);
+        }
+    }
+
+    /**
+     * Interceptează close() pe instrucțiunea împrumutată și o întoarce în cache.
+     */
+    private static final class CachedStatementHandler implements InvocationHandler {
+        private final StatementCache cache;
+        private final Key key;
+        private final PreparedStatement statement;
+        private final Connection owner;
+        private final LatencyHistogram executions;
+        private boolean released;
+
+        CachedStatementHandler(StatementCache cache, Key key, PreparedStatement statement, Connection owner,
+                               LatencyHistogram executions) {
+            this.cache = cache;
+            this.key = key;
+            this.statement = statement;
+            this.owner = owner;
+            this.executions = executions;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        cache.release(key, statement);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + key.sql() + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Instrucțiunea a fost deja închisă");
+            }
+            // executeQuery măsoară doar pasul până la primul rând; parcurgerea rezultatului nu intră
+            boolean timed = method.getName().startsWith("execute");
+            long start = timed ? System.nanoTime() : 0;
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (timed) {
+                    executions.record(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.magsell.database;
+
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import com.magsell.models.Sale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registrul mișcărilor de stoc: fiecare schimbare a cantității unui produs (vânzare,
+ * recepție, pierdere, corecție) se adaugă în {@code stock_movements}, în aceeași tranzacție
+ * cu actualizarea lui {@code products.quantity}, care rămâne soldul curent.
+ *
+ * Periodic (și la pornire) se scrie câte un instantaneu de sold pentru produsele cu
+ * mișcări noi, deci soldul la un moment dat se calculează din ultimul instantaneu de
+ * dinainte plus mișcările de după el, fără parcurgerea întregului istoric.
+ *
+ * Soldurile curente se țin și în memorie, citite fără blocări. Ele se actualizează după
+ * commit, înainte ca scriitorul să elibereze conexiunea de scriere; cum toate scrierile
+ * trec prin acea conexiune, soldurile din memorie urmează ordinea commit-urilor.
+ */
+public class StockLedger implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StockLedger.class);
+    public static final String SNAPSHOT_PROPERTY = "magsell.stock.snapshotMinutes";
+    private static final LatencyHistogram SNAPSHOT = Metrics.getInstance().histogram("stock.snapshot");
+    private static final LatencyHistogram BALANCE_AT = Metrics.getInstance().histogram("stock.balanceAt");
+
+    static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO stock_movements (product_id, type, quantity, occurred_at, note) VALUES (?, ?, ?, ?, ?)";
+    // Toate instantaneele se scriu într-o singură trecere, care acoperă toate mișcările până la
+    // cea mai mare; deci cea mai mare movement_id e pragul de la care încep mișcările neacoperite
+    private static final String WATERMARK = "(SELECT COALESCE(MAX(movement_id), 0) FROM stock_snapshots)";
+    private static final String TAKE_SNAPSHOTS_SQL =
+            "INSERT INTO stock_snapshots (product_id, movement_id, taken_at, quantity) "
+            + "SELECT m.product_id, MAX(m.id), ?, SUM(m.quantity) + COALESCE((SELECT s.quantity FROM stock_snapshots s "
+            + "WHERE s.product_id = m.product_id ORDER BY s.movement_id DESC LIMIT 1), 0) "
+            + "FROM stock_movements m WHERE m.id > " + WATERMARK + " GROUP BY m.product_id";
+    // Pentru fiecare produs: ultimul instantaneu din cheia primară (product_id, movement_id) și
+    // mișcările de după prag din idx_stock_movements_product (product_id, id); costul crește
+    // cu numărul de produse, nu cu istoricul instantaneelor sau al mișcărilor
+    private static final String BALANCES_SQL =
+            "SELECT p.id, COALESCE((SELECT s.quantity FROM stock_snapshots s WHERE s.product_id = p.id "
+            + "ORDER BY s.movement_id DESC LIMIT 1), 0) + (SELECT COALESCE(SUM(m.quantity), 0) "
+            + "FROM stock_movements m WHERE m.product_id = p.id AND m.id > w.id) "
+            + "FROM (SELECT " + WATERMARK + " AS id) w, products p";
+    private static final String SNAPSHOT_BEFORE_SQL =
+            "SELECT movement_id, quantity FROM stock_snapshots WHERE product_id = ? AND taken_at <= ? "
+            + "ORDER BY movement_id DESC LIMIT 1";
+    private static final String SUM_AFTER_SQL =
+            "SELECT COALESCE(SUM(quantity), 0) FROM stock_movements WHERE product_id = ? AND id > ? AND occurred_at <= ?";
+
+    static final RowMapper<StockMovement> MOVEMENT_ROWS = new RowMapper<>(
+            "id", "product_id", "type", "quantity", "occurred_at", "note") {
+        @Override
+        protected StockMovement map(Row row) throws SQLException {
+            return new StockMovement(row.getLong(0), row.getInt(1), StockMovement.Type.valueOf(row.getString(2)),
+                    row.getInt(3), row.getTimestamp(4), row.getString(5));
+        }
+    };
+
+    private final DatabaseService dbService;
+    private final Map<Integer, AtomicLong> balances = new ConcurrentHashMap<>();
+    private ScheduledExecutorService snapshots;
+
+    StockLedger(DatabaseService dbService) {
+        this.dbService = dbService;
+    }
+
+    /**
+     * Adaugă o mișcare pe conexiunea dată, în tranzacția apelantului. Apelantul schimbă
+     * {@code products.quantity} în aceeași tranzacție și apelează {@link #apply} după commit.
+     */
+    public static void insert(Connection conn, int productId, StockMovement.Type type, int quantity,
+                              LocalDateTime occurredAtUtc, String note) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_MOVEMENT_SQL)) {
+            bind(ps, productId, type, quantity, occurredAtUtc, note);
+            ps.executeUpdate();
+        }
+    }
+
+    static void bind(PreparedStatement ps, int productId, StockMovement.Type type, int quantity,
+                     LocalDateTime occurredAtUtc, String note) throws SQLException {
+        ps.setInt(1, productId);
+        ps.setString(2, type.name());
+        ps.setInt(3, quantity);
+        ps.setString(4, SaleWriter.SQLITE_TIMESTAMP.format(occurredAtUtc));
+        ps.setString(5, note);
+    }
+
+    /**
+     * Scrie instantaneele lipsă și încarcă soldurile în memorie. Se apelează la pornire,
+     * cu conexiunea de scriere, după reaplicarea jurnalului de vânzări.
+     */
+    void load(Connection conn) throws SQLException {
+        int written = takeSnapshots(conn);
+        reload(conn);
+        logger.info("Registru de stoc: {} solduri, {} instantanee noi", balances.size(), written);
+    }
+
+    /**
+     * Recitește soldurile tuturor produselor (ex. după un import). Se apelează cu conexiunea
+     * de scriere încă ținută, după commit.
+     */
+    public void reload(Connection conn) throws SQLException {
+        Set<Integer> seen = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(BALANCES_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int productId = rs.getInt(1);
+                seen.add(productId);
+                balances.computeIfAbsent(productId, id -> new AtomicLong()).set(rs.getLong(2));
+            }
+        }
+        balances.keySet().retainAll(seen);
+    }
+
+    /**
+     * Aplică în memorie o mișcare deja salvată.
+     */
+    public void apply(int productId, long quantity) {
+        balances.computeIfAbsent(productId, id -> new AtomicLong()).addAndGet(quantity);
+    }
+
+    /**
+     * Aplică în memorie scăderile de stoc ale unui bon deja salvat.
+     */
+    public void applySale(List<Sale> items) {
+        for (Sale item : items) {
+            apply(item.getProductId(), -item.getQuantity());
+        }
+    }
+
+    /**
+     * Uită soldul unui produs șters; mișcările lui rămân în registru.
+     */
+    public void forget(int productId) {
+        balances.remove(productId);
+    }
+
+    /**
+     * Soldul curent din memorie, fără interogare.
+     */
+    public long getBalance(int productId) {
+        AtomicLong balance = balances.get(productId);
+        return balance != null ? balance.get() : 0;
+    }
+
+    /**
+     * Soldul produsului la momentul dat (UTC): ultimul instantaneu de până atunci plus
+     * mișcările de după el care au avut loc până la acel moment.
+     */
+    @SuppressWarnings("try")
+    public long getBalanceAt(int productId, LocalDateTime atUtc) throws SQLException {
+        String at = SaleWriter.SQLITE_TIMESTAMP.format(atUtc);
+        try (LatencyHistogram.Sample timing = BALANCE_AT.time();
+             Connection conn = dbService.getReadConnection()) {
+            long movementId = 0;
+            long balance = 0;
+            try (PreparedStatement ps = conn.prepareStatement(SNAPSHOT_BEFORE_SQL)) {
+                ps.setInt(1, productId);
+                ps.setString(2, at);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        movementId = rs.getLong(1);
+                        balance = rs.getLong(2);
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(SUM_AFTER_SQL)) {
+                ps.setInt(1, productId);
+                ps.setLong(2, movementId);
+                ps.setString(3, at);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return balance + rs.getLong(1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mișcările produsului din intervalul dat (UTC, inclusiv capetele), în ordinea înregistrării.
+     */
+    public List<StockMovement> getMovements(int productId, LocalDateTime fromUtc, LocalDateTime toUtc)
+            throws SQLException {
+        String sql = "SELECT " + MOVEMENT_ROWS.columns() + " FROM stock_movements "
+                + "WHERE product_id = ? AND occurred_at BETWEEN ? AND ? ORDER BY id";
+        try (Connection conn = dbService.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, productId);
+            ps.setString(2, SaleWriter.SQLITE_TIMESTAMP.format(fromUtc));
+            ps.setString(3, SaleWriter.SQLITE_TIMESTAMP.format(toUtc));
+            try (ResultSet rs = ps.executeQuery()) {
+                return MOVEMENT_ROWS.list(rs);
+            }
+        }
+    }
+
+    /**
+     * Scrie instantanee pentru produsele cu mișcări de la trecerea anterioară.
+     *
+     * @return numărul de instantanee scrise
+     */
+    public int takeSnapshots() throws SQLException {
+        try (Connection conn = dbService.getConnection()) {
+            return takeSnapshots(conn);
+        }
+    }
+
+    @SuppressWarnings("try")
+    private static int takeSnapshots(Connection conn) throws SQLException {
+        try (LatencyHistogram.Sample timing = SNAPSHOT.time();
+             PreparedStatement ps = conn.prepareStatement(TAKE_SNAPSHOTS_SQL)) {
+            ps.setString(1, SaleWriter.SQLITE_TIMESTAMP.format(LocalDateTime.now(ZoneOffset.UTC)));
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Scrie instantaneele periodic, pe un fir daemon; o perioadă de 0 le oprește.
+     */
+    synchronized void startSnapshots(long periodMinutes) {
+        close();
+        if (periodMinutes <= 0) {
+            return;
+        }
+        snapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "magsell-stock-snapshots");
+            t.setDaemon(true);
+            return t;
+        });
+        snapshots.scheduleWithFixedDelay(() -> {
+            try {
+                int written = takeSnapshots();
+                logger.debug("Instantanee de stoc scrise: {}", written);
+            } catch (SQLException e) {
+                logger.warn("Nu s-au putut scrie instantaneele de stoc", e);
+            }
+        }, periodMinutes, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Oprește scrierea periodică a instantaneelor.
+     */
+    @Override
+    public synchronized void close() {
+        if (snapshots != null) {
+            snapshots.shutdownNow();
+            snapshots = null;
+        }
+    }
+}
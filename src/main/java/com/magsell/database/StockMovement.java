@@ -0,0 +1,27 @@
+package com.magsell.database;
+
+import java.time.LocalDateTime;
+
+/**
+ * O mișcare din registrul de stoc. {@code quantity} are semn: intrările sunt pozitive,
+ * ieșirile negative. Data este în UTC.
+ */
+public record StockMovement(long id, int productId, Type type, int quantity,
+                            LocalDateTime occurredAt, String note) {
+
+    /**
+     * Tipul mișcării, salvat după nume în coloana {@code type}.
+     */
+    public enum Type {
+        /** Stocul cu care a fost creat produsul (sau cel existent la introducerea registrului). */
+        OPENING,
+        /** Marfă primită sau produsă. */
+        RECEIPT,
+        /** Vânzare; scrisă doar de {@link SaleWriter}. */
+        SALE,
+        /** Produse aruncate, expirate sau deteriorate. */
+        WASTE,
+        /** Diferență la inventar sau editare manuală a cantității. */
+        CORRECTION
+    }
+}
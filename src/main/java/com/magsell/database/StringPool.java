@@ -0,0 +1,35 @@
+package com.magsell.database;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Păstrează o singură instanță pentru valorile text care se repetă mult între
+ * rânduri (categorii, roluri). Spre deosebire de {@link String#intern()}, pool-ul
+ * e limitat: peste {@code maxSize} valori distincte, textele noi se întorc ca atare.
+ */
+public final class StringPool {
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public StringPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Întoarce instanța deja cunoscută egală cu {@code value}, sau o reține pe aceasta.
+     */
+    public String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String known = values.get(value);
+        if (known != null) {
+            return known;
+        }
+        if (values.size() >= maxSize) {
+            return value;
+        }
+        known = values.putIfAbsent(value, value);
+        return known != null ? known : value;
+    }
+}
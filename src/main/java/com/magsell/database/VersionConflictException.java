@@ -0,0 +1,32 @@
+package com.magsell.database;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Aruncată când un produs a fost modificat de altcineva între citire și scriere,
+ * iar modificările nu se pot combina automat (același câmp schimbat diferit, sau
+ * stocul ar deveni negativ). Nimic nu s-a scris.
+ */
+public class VersionConflictException extends SQLException {
+    private final int productId;
+    private final List<String> fields;
+
+    public VersionConflictException(int productId, List<String> fields) {
+        super("Produsul " + productId + " a fost modificat între timp"
+                + (fields.isEmpty() ? "" : ": " + String.join(", ", fields)));
+        this.productId = productId;
+        this.fields = List.copyOf(fields);
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Câmpurile în conflict; goală dacă reîncercările s-au epuizat fără conflict de câmp.
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+}
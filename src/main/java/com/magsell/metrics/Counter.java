@@ -0,0 +1,35 @@
+package com.magsell.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contor fără blocări, pentru evenimente numărate din mai multe fire.
+ */
+public final class Counter {
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long n) {
+        value.add(n);
+    }
+
+    public long sum() {
+        return value.sum();
+    }
+
+    void reset() {
+        value.reset();
+    }
+}
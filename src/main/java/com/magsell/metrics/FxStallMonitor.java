@@ -0,0 +1,122 @@
+package com.magsell.metrics;
+
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Detectează blocajele firului FX: un fir de supraveghere trimite periodic un
+ * puls prin {@link Platform#runLater(Runnable)} și măsoară cât așteaptă până rulează
+ * ({@code fx.latency}). Dacă pulsul întârzie peste prag, se reține stiva firului FX
+ * din timpul blocajului, ca să se vadă ce cod l-a ținut ocupat; la deblocare
+ * blocajul se numără ({@code fx.stalls}), se măsoară ({@code fx.stall}) și se
+ * jurnalizează.
+ */
+public final class FxStallMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(FxStallMonitor.class);
+    private static final long PULSE_MS = 50;
+    private static final long STALL_NANOS = 200_000_000L;
+    private static final int STACK_DEPTH = 25;
+    private static FxStallMonitor instance;
+
+    private final LatencyHistogram latency = Metrics.getInstance().histogram("fx.latency");
+    private final LatencyHistogram stallDuration = Metrics.getInstance().histogram("fx.stall");
+    private final Counter stalls = Metrics.getInstance().counter("fx.stalls");
+    private volatile Thread fxThread;
+    private volatile long pulseSentAt;
+    private volatile boolean pulsePending;
+    private volatile String pendingStack;
+    private volatile Stall lastStall;
+    private Thread watchdog;
+
+    /**
+     * Ultimul blocaj: când a început, cât a durat și stiva firului FX din timpul lui.
+     */
+    public record Stall(LocalDateTime at, long durationNanos, String stack) {
+    }
+
+    private FxStallMonitor() {
+    }
+
+    public static synchronized FxStallMonitor getInstance() {
+        if (instance == null) {
+            instance = new FxStallMonitor();
+        }
+        return instance;
+    }
+
+    /**
+     * Pornește supravegherea; apelurile repetate nu mai pornesc alt fir.
+     */
+    public synchronized void start() {
+        if (watchdog != null) {
+            return;
+        }
+        watchdog = Thread.ofPlatform().daemon().name("magsell-fx-watchdog").start(this::watch);
+    }
+
+    public synchronized void stop() {
+        if (watchdog != null) {
+            watchdog.interrupt();
+            watchdog = null;
+        }
+    }
+
+    public Stall getLastStall() {
+        return lastStall;
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!pulsePending) {
+                    pulsePending = true;
+                    pulseSentAt = System.nanoTime();
+                    Platform.runLater(this::pulse);
+                } else if (pendingStack == null && System.nanoTime() - pulseSentAt > STALL_NANOS) {
+                    Thread fx = fxThread;
+                    if (fx != null) {
+                        pendingStack = format(fx.getStackTrace());
+                    }
+                }
+                Thread.sleep(PULSE_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException e) {
+            // Toolkit-ul FX nu rulează (ex. închiderea aplicației)
+            logger.debug("Supravegherea firului FX s-a oprit", e);
+        }
+    }
+
+    /**
+     * Rulează pe firul FX.
+     */
+    private void pulse() {
+        long waited = System.nanoTime() - pulseSentAt;
+        fxThread = Thread.currentThread();
+        latency.record(waited);
+        if (waited > STALL_NANOS) {
+            stalls.increment();
+            stallDuration.record(waited);
+            String stack = pendingStack != null ? pendingStack : "(stiva nu a fost capturată)";
+            lastStall = new Stall(LocalDateTime.now().minusNanos(waited), waited, stack);
+            logger.warn("Firul FX blocat {} ms; stiva din timpul blocajului:\n{}", waited / 1_000_000, stack);
+        }
+        pendingStack = null;
+        pulsePending = false;
+    }
+
+    private static String format(StackTraceElement[] stack) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < stack.length && i < STACK_DEPTH; i++) {
+            out.append("    at ").append(stack[i]).append('\n');
+        }
+        if (stack.length > STACK_DEPTH) {
+            out.append("    ... ").append(stack.length - STACK_DEPTH).append(" cadre\n");
+        }
+        return out.toString();
+    }
+}
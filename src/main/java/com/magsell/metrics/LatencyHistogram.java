@@ -0,0 +1,137 @@
+package com.magsell.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramă de durate (nanosecunde) cu găleți log-liniare, în stilul HdrHistogram:
+ * fiecare putere a lui 2 e împărțită în {@value #SUB_BUCKETS} găleți egale, deci
+ * percentilele au o eroare relativă de cel mult ~3%, pe tot intervalul de la 1 ns
+ * la ~18 minute (valorile mai mari intră în ultima găleată).
+ *
+ * Înregistrarea nu blochează și nu alocă: un increment atomic pe găleată plus
+ * suma și maximul în acumulatoare fără contenție.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << (SUB_BITS - 1);
+    private static final int EXACT = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = EXACT + (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * O măsurătoare în curs, închisă cu try-with-resources.
+     */
+    public final class Sample implements AutoCloseable {
+        private final long start = System.nanoTime();
+
+        private Sample() {
+        }
+
+        @Override
+        public void close() {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Valorile histogramei la un moment dat.
+     */
+    public record Snapshot(long count, long totalNanos, long maxNanos, long[] counts) {
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * Valoarea sub care se află fracțiunea {@code p} (0..1) din măsurători;
+         * limita superioară a găleții, deci rotunjită în sus cu cel mult ~3%.
+         */
+        public long percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Pornește o măsurătoare: {@code try (var timing = histogram.time()) { ... }}.
+     */
+    public Sample time() {
+        return new Sample();
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(count, total.sum(), max.get(), copy);
+    }
+
+    /**
+     * Golește histograma. Măsurătorile înregistrate simultan se pot pierde parțial.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.reset();
+    }
+
+    static int index(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BITS + 1;
+        // Primii SUB_BITS biți ai valorii; cel mai semnificativ e mereu 1
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return EXACT + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int octave = (index - EXACT) / SUB_BUCKETS;
+        int sub = (index - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        int shift = octave + 1;
+        return ((long) (sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,196 @@
+package com.magsell.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Registrul de metrici al aplicației: contoare, histograme de durate și indicatori
+ * citiți la cerere (ex. dimensiunea cozii jurnalului de vânzări).
+ *
+ * Metricile se creează o singură dată după nume și se păstrează în câmpuri statice
+ * acolo unde se măsoară; înregistrarea nu mai trece prin registru. Numele sunt de
+ * forma {@code zona.operatie} (ex. {@code db.readWait}, {@code products.getPage}).
+ * Instrucțiunile SQL au câte o histogramă proprie, cu numele {@code sql: <text>}.
+ *
+ * Starea se vede în fereastra de diagnosticare și se scrie periodic într-un fișier
+ * text (vezi {@link #startDump(Path, long)}).
+ */
+public final class Metrics {
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+    public static final String DUMP_PROPERTY = "magsell.metrics.dumpSeconds";
+    private static final int SQL_NAME_LENGTH = 100;
+    private static Metrics instance;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> statements = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Valorile tuturor metricilor la un moment dat, ordonate după nume.
+     */
+    public record Snapshot(LocalDateTime takenAt, SortedMap<String, Long> counters,
+                           SortedMap<String, LatencyHistogram.Snapshot> histograms) {
+    }
+
+    private Metrics() {
+    }
+
+    public static synchronized Metrics getInstance() {
+        if (instance == null) {
+            instance = new Metrics();
+        }
+        return instance;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * Histograma execuțiilor unei instrucțiuni SQL. Textul SQL e constant în servicii,
+     * deci căutarea nu construiește alt șir decât la prima execuție.
+     */
+    public LatencyHistogram statement(String sql) {
+        LatencyHistogram histogram = statements.get(sql);
+        if (histogram == null) {
+            histogram = statements.computeIfAbsent(sql, s -> histogram(sqlName(s)));
+        }
+        return histogram;
+    }
+
+    /**
+     * Înregistrează un indicator citit la fiecare instantaneu; înlocuiește unul cu același nume.
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public Snapshot snapshot() {
+        SortedMap<String, Long> counterValues = new TreeMap<>();
+        for (Counter counter : counters.values()) {
+            counterValues.put(counter.name(), counter.sum());
+        }
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            try {
+                counterValues.put(gauge.getKey(), gauge.getValue().getAsLong());
+            } catch (RuntimeException e) {
+                logger.debug("Indicator indisponibil: {}", gauge.getKey(), e);
+            }
+        }
+        SortedMap<String, LatencyHistogram.Snapshot> histogramValues = new TreeMap<>();
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogramValues.put(histogram.name(), histogram.snapshot());
+        }
+        return new Snapshot(LocalDateTime.now(), counterValues, histogramValues);
+    }
+
+    /**
+     * Golește contoarele și histogramele; indicatorii nu au stare proprie.
+     */
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Formatează instantaneul ca tabel text, cu duratele în milisecunde.
+     */
+    public static String format(Snapshot snapshot) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("MagSell metrici ")
+                .append(snapshot.takenAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append('\n');
+        // Numele la final, pentru că instrucțiunile SQL au nume lungi
+        out.append(String.format(Locale.ROOT, "%n%12s  %s%n", "valoare", "contor"));
+        for (Map.Entry<String, Long> counter : snapshot.counters().entrySet()) {
+            out.append(String.format(Locale.ROOT, "%12d  %s%n", counter.getValue(), counter.getKey()));
+        }
+        out.append(String.format(Locale.ROOT, "%n%10s %9s %9s %9s %9s %9s  %s%n",
+                "nr", "medie", "p50", "p90", "p99", "max", "durata (ms)"));
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : snapshot.histograms().entrySet()) {
+            LatencyHistogram.Snapshot h = entry.getValue();
+            if (h.count() == 0) {
+                continue;
+            }
+            out.append(String.format(Locale.ROOT, "%10d %9.3f %9.3f %9.3f %9.3f %9.3f  %s%n",
+                    h.count(), h.meanNanos() / 1e6, millis(h.percentile(0.5)), millis(h.percentile(0.9)),
+                    millis(h.percentile(0.99)), millis(h.maxNanos()), entry.getKey()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Scrie periodic instantaneul în fișierul dat (înlocuit atomic), pe un fir daemon.
+     * Un apel nou oprește scrierea pornită anterior.
+     */
+    public synchronized void startDump(Path file, long periodSeconds) {
+        stopDump();
+        if (periodSeconds <= 0) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "magsell-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleWithFixedDelay(() -> dump(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        logger.info("Metricile se scriu în {} la fiecare {} s", file, periodSeconds);
+    }
+
+    /**
+     * Oprește scrierea periodică.
+     */
+    public synchronized void stopDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    /**
+     * Scrie instantaneul curent în fișier.
+     */
+    public void dump(Path file) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, format(snapshot()), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Nu s-au putut scrie metricile în {}", file, e);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String sqlName(String sql) {
+        String compact = sql.strip().replaceAll("\\s+", " ");
+        if (compact.length() > SQL_NAME_LENGTH) {
+            compact = compact.substring(0, SQL_NAME_LENGTH - 3) + "...";
+        }
+        return "sql: " + compact;
+    }
+}
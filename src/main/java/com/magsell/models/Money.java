@@ -0,0 +1,160 @@
+package com.magsell.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * O sumă în lei, ținută ca număr întreg de bani (1/100 lei), la fel ca în baza de date.
+ * Adunările și înmulțirile cu cantități sunt exacte și nu alocă decât rezultatul;
+ * depășirea unui {@code long} aruncă {@link ArithmeticException}. Rotunjirile (TVA,
+ * rotunjirea la numerar) se fac „jumătate în sus”, ca {@link RoundingMode#HALF_UP}.
+ */
+public record Money(long bani) implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofBani(long bani) {
+        return bani == 0 ? ZERO : new Money(bani);
+    }
+
+    /**
+     * Suma în lei, rotunjită la bani.
+     */
+    public static Money of(BigDecimal lei) {
+        return ofBani(lei.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Citește o sumă scrisă în lei, cu punct sau virgulă zecimală (ex. {@code 12}, {@code 12,5},
+     * {@code -3.07}); mai mult de două zecimale se rotunjesc la bani.
+     *
+     * @throws NumberFormatException dacă textul nu este un număr
+     */
+    public static Money parse(String text) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        long lei = 0;
+        int digits = 0;
+        // Calea obișnuită (cifre ASCII, cel mult două zecimale, fără exponent) nu trece prin
+        // BigDecimal; Character.isDigit ar accepta și alte cifre Unicode, pe care '0' nu le convertește
+        while (i < length && digits < 16 && isAsciiDigit(text.charAt(i))) {
+            lei = lei * 10 + (text.charAt(i++) - '0');
+            digits++;
+        }
+        long fraction = 0;
+        int decimals = 0;
+        if (i < length && (text.charAt(i) == '.' || text.charAt(i) == ',')) {
+            i++;
+            while (i < length && decimals < 2 && isAsciiDigit(text.charAt(i))) {
+                fraction = fraction * 10 + (text.charAt(i++) - '0');
+                decimals++;
+            }
+        }
+        if (i == length && (digits > 0 || decimals > 0)) {
+            long bani = lei * 100 + (decimals == 1 ? fraction * 10 : fraction);
+            return ofBani(negative ? -bani : bani);
+        }
+        return of(new BigDecimal(text.replace(',', '.')));
+    }
+
+    public Money plus(Money other) {
+        return ofBani(Math.addExact(bani, other.bani));
+    }
+
+    public Money minus(Money other) {
+        return ofBani(Math.subtractExact(bani, other.bani));
+    }
+
+    public Money times(int quantity) {
+        return ofBani(Math.multiplyExact(bani, quantity));
+    }
+
+    public Money negate() {
+        return ofBani(Math.negateExact(bani));
+    }
+
+    /**
+     * Procentul dat din sumă (ex. {@code percent(19)}), rotunjit la bani.
+     */
+    public Money percent(int percent) {
+        return ofBani(divideHalfUp(Math.multiplyExact(bani, percent), 100));
+    }
+
+    /**
+     * TVA-ul conținut într-un preț cu TVA: {@code suma × cotă / (100 + cotă)}, rotunjit la bani.
+     */
+    public Money vatOfGross(int ratePercent) {
+        return ofBani(divideHalfUp(Math.multiplyExact(bani, ratePercent), 100 + ratePercent));
+    }
+
+    /**
+     * Prețul fără TVA dintr-un preț cu TVA; împreună cu {@link #vatOfGross} dă exact suma.
+     */
+    public Money netOfGross(int ratePercent) {
+        return minus(vatOfGross(ratePercent));
+    }
+
+    /**
+     * Prețul cu TVA dintr-un preț fără TVA.
+     */
+    public Money grossOfNet(int ratePercent) {
+        return plus(percent(ratePercent));
+    }
+
+    /**
+     * Rotunjește la cel mai apropiat multiplu de {@code stepBani} (ex. 10 bani la plata în numerar).
+     */
+    public Money roundTo(long stepBani) {
+        if (stepBani <= 0) {
+            throw new IllegalArgumentException("Pasul de rotunjire trebuie să fie pozitiv: " + stepBani);
+        }
+        return ofBani(Math.multiplyExact(divideHalfUp(bani, stepBani), stepBani));
+    }
+
+    public int signum() {
+        return Long.signum(bani);
+    }
+
+    public boolean isZero() {
+        return bani == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(bani, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(bani, other.bani);
+    }
+
+    /**
+     * Suma în lei cu exact două zecimale și punct zecimal (ex. {@code -3.07}).
+     */
+    @Override
+    public String toString() {
+        long abs = Math.abs(bani);
+        long fraction = abs % 100;
+        return (bani < 0 ? "-" : "") + abs / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Împărțire cu rotunjire jumătate în sus (departe de zero); {@code divisor} e pozitiv.
+     */
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= divisor - remainder) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,92 @@
+package com.magsell.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * O linie de vânzare: un produs, cantitatea vândută și prețul la momentul vânzării.
+ * Un bon cu mai multe produse se salvează ca mai multe linii cu aceeași dată.
+ */
+public class Sale {
+    private int id;
+    private int productId;
+    private String productName;
+    private int quantity;
+    private Money unitPrice;
+    private Money totalPrice;
+    private LocalDateTime saleDate;
+    private String notes;
+
+    public Sale() {
+    }
+
+    public Sale(Product product, int quantity) {
+        this.productId = product.getId();
+        this.productName = product.getName();
+        this.quantity = quantity;
+        this.unitPrice = Money.of(product.getPrice());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public Money getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(Money unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
+    public Money getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(Money totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public LocalDateTime getSaleDate() {
+        return saleDate;
+    }
+
+    public void setSaleDate(LocalDateTime saleDate) {
+        this.saleDate = saleDate;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+}
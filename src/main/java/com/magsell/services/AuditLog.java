@@ -0,0 +1,369 @@
+package com.magsell.services;
+
+import com.magsell.metrics.Counter;
+import com.magsell.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Jurnal de audit: cine a făcut ce operație (produs creat, vânzare, autentificare, import...).
+ *
+ * Fiecare eveniment e o linie JSON într-un fișier pe zi ({@code audit-AAAA-LL-ZZ.jsonl}, data UTC),
+ * la care doar se adaugă. Apelantul doar pune evenimentul într-o coadă lock-free limitată și nu
+ * așteaptă niciodată discul; un fir propriu scrie coada cel mult o dată la
+ * {@value #FLUSH_MS} ms. Dacă coada e plină, evenimentul se pierde și se numără în
+ * {@code audit.dropped}, ca o vânzare să nu fie încetinită de jurnal. Tot acolo se numără
+ * evenimentele pierdute când fișierul nu poate fi scris (ex. disc plin); fișierul zilei se
+ * redeschide la următoarea scriere, iar evenimentele rămase în coadă se scriu atunci.
+ *
+ * Utilizatorul evenimentelor este ultimul autentificat ({@link #setActor(String)}).
+ */
+public final class AuditLog implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+    private static final long FLUSH_MS = 500;
+    private static final int CAPACITY = 8192;
+    private static AuditLog instance;
+
+    private final ConcurrentLinkedQueue<Event> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter written = Metrics.getInstance().counter("audit.written");
+    private final Counter dropped = Metrics.getInstance().counter("audit.dropped");
+    private volatile String actor;
+    private volatile Path directory;
+    private volatile boolean closed;
+    private Thread writerThread;
+
+    /**
+     * Un eveniment de audit. {@code target} identifică obiectul (ex. {@code product:12}),
+     * {@code detail} e un text scurt liber; ambele pot lipsi.
+     */
+    public record Event(Instant at, String user, String action, String target, String detail) {
+    }
+
+    private AuditLog() {
+    }
+
+    public static synchronized AuditLog getInstance() {
+        if (instance == null) {
+            instance = new AuditLog();
+        }
+        return instance;
+    }
+
+    /**
+     * Pornește scrierea în directorul dat. Evenimentele înregistrate înainte rămân în coadă
+     * (până la capacitate) și se scriu imediat după pornire.
+     */
+    public synchronized void open(Path directory) throws IOException {
+        if (writerThread != null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.closed = false;
+        writerThread = Thread.ofPlatform().daemon().name("magsell-audit").start(this::runWriter);
+    }
+
+    public void setActor(String username) {
+        this.actor = username;
+    }
+
+    public String getActor() {
+        return actor;
+    }
+
+    public void record(String action, String target, String detail) {
+        if (closed) {
+            return;
+        }
+        if (queued.incrementAndGet() > CAPACITY) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(new Event(Instant.now(), actor, action, target, detail));
+    }
+
+    public void record(String action, String target) {
+        record(action, target, null);
+    }
+
+    /**
+     * Citește evenimentele din zilele date (inclusiv capetele) care trec de filtru, în ordinea
+     * scrierii. Evenimentele încă din coadă (ultima jumătate de secundă) nu apar.
+     */
+    public List<Event> read(LocalDate from, LocalDate to, Predicate<Event> filter) throws IOException {
+        Path dir = directory;
+        List<Event> events = new ArrayList<>();
+        if (dir == null) {
+            return events;
+        }
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Path file = fileFor(dir, day);
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    Event event = parse(line);
+                    // O linie trunchiată (oprire bruscă) se ignoră
+                    if (event != null && filter.test(event)) {
+                        events.add(event);
+                    }
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Oprește firul de scriere după ce scrie tot ce se află în coadă.
+     */
+    @Override
+    public void close() {
+        Thread writer;
+        synchronized (this) {
+            closed = true;
+            writer = writerThread;
+            writerThread = null;
+        }
+        if (writer == null) {
+            return;
+        }
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        Writer out = null;
+        LocalDate day = null;
+        // Evenimentele scrise în buffer de la ultimul flush; se pierd dacă flush-ul eșuează
+        long unflushed = 0;
+        boolean failing = false;
+        while (true) {
+            boolean stopping = closed;
+            try {
+                Event event;
+                while ((event = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    unflushed++;
+                    LocalDate eventDay = event.at().atOffset(ZoneOffset.UTC).toLocalDate();
+                    if (out == null || !eventDay.equals(day)) {
+                        if (out != null) {
+                            out.close();
+                            out = null;
+                            written.add(unflushed - 1);
+                            unflushed = 1;
+                        }
+                        day = eventDay;
+                        out = Files.newBufferedWriter(fileFor(directory, day), StandardCharsets.UTF_8,
+                                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                    }
+                    out.write(format(event));
+                }
+                if (out != null) {
+                    out.flush();
+                }
+                written.add(unflushed);
+                unflushed = 0;
+                if (failing) {
+                    logger.info("Jurnalul de audit se scrie din nou în {}", directory);
+                    failing = false;
+                }
+            } catch (IOException e) {
+                if (!failing) {
+                    logger.error("Jurnalul de audit nu poate fi scris în {}; se reîncearcă la următoarea scriere",
+                            directory, e);
+                    failing = true;
+                }
+                dropped.add(unflushed);
+                unflushed = 0;
+                closeQuietly(out);
+                out = null;
+            }
+            if (stopping) {
+                break;
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(FLUSH_MS));
+        }
+        if (failing) {
+            // La oprire nu se mai reîncearcă: ce a rămas în coadă se pierde
+            while (queue.poll() != null) {
+                queued.decrementAndGet();
+                dropped.increment();
+            }
+        }
+        closeQuietly(out);
+    }
+
+    private static void closeQuietly(Writer out) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.warn("Eroare la închiderea jurnalului de audit", e);
+        }
+    }
+
+    private static Path fileFor(Path dir, LocalDate day) {
+        return dir.resolve("audit-" + day + ".jsonl");
+    }
+
+    static String format(Event event) {
+        StringBuilder out = new StringBuilder(128);
+        out.append("{\"ts\":\"").append(event.at()).append('"');
+        appendField(out, "user", event.user());
+        appendField(out, "action", event.action());
+        appendField(out, "target", event.target());
+        appendField(out, "detail", event.detail());
+        return out.append("}\n").toString();
+    }
+
+    private static void appendField(StringBuilder out, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        out.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Citește o linie scrisă de {@link #format(Event)}: un obiect JSON plat, doar cu șiruri.
+     *
+     * @return evenimentul, sau null dacă linia nu e validă
+     */
+    static Event parse(String line) {
+        Map<String, String> fields = new HashMap<>();
+        int i = skipSpaces(line, 0);
+        if (i >= line.length() || line.charAt(i) != '{') {
+            return null;
+        }
+        i = skipSpaces(line, i + 1);
+        StringBuilder text = new StringBuilder();
+        while (i < line.length() && line.charAt(i) != '}') {
+            i = readString(line, i, text);
+            if (i < 0) {
+                return null;
+            }
+            String name = text.toString();
+            i = skipSpaces(line, i);
+            if (i >= line.length() || line.charAt(i) != ':') {
+                return null;
+            }
+            i = readString(line, skipSpaces(line, i + 1), text);
+            if (i < 0) {
+                return null;
+            }
+            fields.put(name, text.toString());
+            i = skipSpaces(line, i);
+            if (i < line.length() && line.charAt(i) == ',') {
+                i = skipSpaces(line, i + 1);
+            }
+        }
+        if (i >= line.length() || !fields.containsKey("ts") || !fields.containsKey("action")) {
+            return null;
+        }
+        try {
+            return new Event(Instant.parse(fields.get("ts")), fields.get("user"), fields.get("action"),
+                    fields.get("target"), fields.get("detail"));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Citește un șir JSON care începe la {@code i} în {@code out}.
+     *
+     * @return poziția de după ghilimeaua de închidere, sau -1 dacă șirul nu e valid
+     */
+    private static int readString(String line, int i, StringBuilder out) {
+        out.setLength(0);
+        if (i >= line.length() || line.charAt(i) != '"') {
+            return -1;
+        }
+        for (i++; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                return i + 1;
+            }
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            if (++i >= line.length()) {
+                return -1;
+            }
+            switch (line.charAt(i)) {
+                case 'n' -> out.append('\n');
+                case 'r' -> out.append('\r');
+                case 't' -> out.append('\t');
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'u' -> {
+                    if (i + 4 >= line.length()) {
+                        return -1;
+                    }
+                    try {
+                        out.append((char) Integer.parseInt(line, i + 1, i + 5, 16));
+                    } catch (NumberFormatException e) {
+                        return -1;
+                    }
+                    i += 4;
+                }
+                default -> out.append(line.charAt(i));
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(String line, int i) {
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,181 @@
+package com.magsell.services;
+
+import com.magsell.metrics.Counter;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import com.magsell.models.User;
+import com.magsell.services.BackgroundTasks.Priority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Autentificarea utilizatorilor.
+ *
+ * Verificarea completă derivă cheia cu {@link PasswordHasher} și durează intenționat mult;
+ * hash-urile vechi sau cu alt număr de iterații se recalculează după o autentificare reușită.
+ * Pentru reautentificările dese de la casă (blocare/deblocare), o autentificare reușită se
+ * păstrează în memorie {@value #SESSION_PROPERTY} minute (implicit 10): se reține doar un
+ * HMAC al parolei cu o cheie aleatoare a procesului, nu parola. O parolă greșită șterge
+ * sesiunea utilizatorului.
+ *
+ * Autentificările complete (reușite sau nu) se trec în {@link AuditLog}, iar utilizatorul
+ * autentificat devine autorul evenimentelor de audit următoare.
+ */
+public final class AuthService {
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+    public static final String SESSION_PROPERTY = "magsell.auth.sessionMinutes";
+    private static final int MAX_SESSIONS = 64;
+    private static final LatencyHistogram VERIFY = Metrics.getInstance().histogram("auth.verify");
+    private static final Counter SESSION_HITS = Metrics.getInstance().counter("auth.sessionHits");
+    private static AuthService instance;
+
+    private final UserService users;
+    private final PasswordHasher hasher;
+    private final long sessionNanos;
+    private final byte[] sessionKey = new byte[32];
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private volatile PasswordHasher.Hash dummy;
+
+    private record Session(byte[] proof, User user, long expires) {
+    }
+
+    public AuthService(UserService users, PasswordHasher hasher, long sessionMinutes) {
+        this.users = users;
+        this.hasher = hasher;
+        this.sessionNanos = TimeUnit.MINUTES.toNanos(Math.max(0, sessionMinutes));
+        new SecureRandom().nextBytes(sessionKey);
+    }
+
+    public static synchronized AuthService getInstance() {
+        if (instance == null) {
+            instance = new AuthService(new UserService(), PasswordHasher.getInstance(),
+                    Long.getLong(SESSION_PROPERTY, 10));
+        }
+        return instance;
+    }
+
+    /**
+     * Verifică utilizatorul și parola. Blochează cât durează derivarea cheii dacă nu există
+     * o sesiune validă, deci nu se apelează pe firul FX; vezi {@link #authenticateAsync}.
+     *
+     * @return utilizatorul autentificat, sau null dacă numele sau parola sunt greșite
+     */
+    @SuppressWarnings("try")
+    public User authenticate(String username, String password) throws SQLException {
+        if (username == null || password == null || password.isEmpty()) {
+            return null;
+        }
+        byte[] proof = proof(username, password);
+        Session session = sessions.get(username);
+        if (session != null) {
+            if (System.nanoTime() - session.expires() < 0 && MessageDigest.isEqual(session.proof(), proof)) {
+                SESSION_HITS.increment();
+                AuditLog.getInstance().setActor(username);
+                return copy(session.user());
+            }
+            sessions.remove(username, session);
+        }
+
+        User user;
+        try (LatencyHistogram.Sample timing = VERIFY.time()) {
+            user = verify(username, password, proof);
+        }
+        AuditLog audit = AuditLog.getInstance();
+        if (user != null) {
+            audit.setActor(username);
+            audit.record("auth.login", "user:" + username);
+        } else {
+            audit.record("auth.failed", "user:" + username);
+        }
+        return user;
+    }
+
+    private User verify(String username, String password, byte[] proof) throws SQLException {
+        User user = users.getUserByUsername(username);
+        if (user == null) {
+            // Același cost ca pentru un utilizator existent, ca durata să nu dezvăluie numele valide
+            PasswordHasher.Hash hash = dummyHash();
+            hasher.verify(password, hash.encoded(), hash.salt());
+            return null;
+        }
+        if (!hasher.verify(password, user.getPasswordHash(), user.getSalt())) {
+            return null;
+        }
+        if (hasher.needsRehash(user.getPasswordHash())) {
+            PasswordHasher.Hash hash = hasher.hash(password);
+            users.updatePasswordHash(user.getId(), hash);
+            user.setPasswordHash(hash.encoded());
+            user.setSalt(hash.salt());
+            logger.info("Rehashed password for user: {} iterations={}", username, hasher.iterations());
+        }
+        remember(username, proof, user);
+        return copy(user);
+    }
+
+    /**
+     * Autentifică în fundal, cu prioritatea casei; rezultatul (null dacă datele sunt greșite)
+     * sau eroarea ajung pe firul FX.
+     */
+    public BackgroundTasks.Handle authenticateAsync(String username, String password,
+                                                    Consumer<User> onResult, Consumer<Exception> onError) {
+        return BackgroundTasks.getInstance().submit(Priority.TILL,
+                () -> authenticate(username, password), onResult, onError);
+    }
+
+    /**
+     * Uită sesiunea utilizatorului (ex. la deconectare sau după schimbarea parolei).
+     */
+    public void invalidate(String username) {
+        sessions.remove(username);
+    }
+
+    public void invalidateAll() {
+        sessions.clear();
+    }
+
+    private void remember(String username, byte[] proof, User user) {
+        if (sessionNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (sessions.size() >= MAX_SESSIONS) {
+            sessions.values().removeIf(s -> now - s.expires() >= 0);
+            if (sessions.size() >= MAX_SESSIONS) {
+                sessions.clear();
+            }
+        }
+        sessions.put(username, new Session(proof, copy(user), now + sessionNanos));
+    }
+
+    private byte[] proof(String username, String password) {
+        return PasswordHasher.hmac(sessionKey, (username + '\0' + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PasswordHasher.Hash dummyHash() {
+        PasswordHasher.Hash hash = dummy;
+        if (hash == null) {
+            hash = hasher.hash(Long.toHexString(System.nanoTime()));
+            dummy = hash;
+        }
+        return hash;
+    }
+
+    private static User copy(User user) {
+        User u = new User();
+        u.setId(user.getId());
+        u.setUsername(user.getUsername());
+        u.setPasswordHash(user.getPasswordHash());
+        u.setSalt(user.getSalt());
+        u.setRole(user.getRole());
+        return u;
+    }
+}
@@ -0,0 +1,317 @@
+package com.magsell.services;
+
+import com.magsell.database.DatabaseService;
+import com.magsell.metrics.Counter;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+/**
+ * Planificator comun pentru lucrul în fundal (în special accesul la baza de date).
+ *
+ * Fiecare sarcină rulează pe un fir virtual, dar pornește doar când obține un
+ * permis de la semaforul din fața pool-ului de conexiuni, deci SQLite nu vede mai
+ * multe cereri simultane decât are conexiuni. Sarcinile care așteaptă pornesc în
+ * ordinea priorității: operațiile de casă înaintea celor interactive, iar
+ * rapoartele ultimele; rapoartele nu pot ocupa niciodată toate permisele.
+ *
+ * Rezultatul și eroarea se livrează pe firul FX, doar dacă sarcina nu a fost
+ * anulată între timp. Controlerele își grupează sarcinile într-un {@link Group}
+ * pe care îl anulează la închiderea ferestrei.
+ *
+ * Pentru fiecare prioritate se măsoară așteptarea în coadă ({@code task.<prioritate>.wait})
+ * și durata lucrului ({@code task.<prioritate>.run}); erorile și anulările se numără.
+ */
+public final class BackgroundTasks {
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundTasks.class);
+    private static BackgroundTasks instance;
+
+    /**
+     * Prioritatea unei sarcini; cele declarate primele pornesc primele.
+     */
+    public enum Priority {
+        TILL,
+        INTERACTIVE,
+        REPORT;
+
+        private final LatencyHistogram waitTime = Metrics.getInstance().histogram("task." + key() + ".wait");
+        private final LatencyHistogram runTime = Metrics.getInstance().histogram("task." + key() + ".run");
+
+        private String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final Counter FAILED = Metrics.getInstance().counter("task.failed");
+    private static final Counter CANCELLED = Metrics.getInstance().counter("task.cancelled");
+
+    /**
+     * Sarcină trimisă, care poate fi anulată.
+     */
+    public interface Handle {
+        /**
+         * Anulează sarcina: nu mai pornește dacă aștepta, firul ei e întrerupt dacă
+         * rula, iar rezultatul nu se mai livrează.
+         */
+        void cancel();
+
+        boolean isCancelled();
+
+        boolean isDone();
+    }
+
+    private final ThreadFactory threads = Thread.ofVirtual().name("magsell-task-", 0).factory();
+    private final Executor delivery;
+    private final Semaphore permits;
+    private final int maxReports;
+    private final PriorityQueue<Job<?>> waiting = new PriorityQueue<>();
+    private int runningReports;
+    private long sequence;
+
+    /**
+     * @param maxConcurrent câte sarcini pot rula simultan
+     * @param delivery      executorul pe care se livrează rezultatele (firul FX în aplicație)
+     */
+    public BackgroundTasks(int maxConcurrent, Executor delivery) {
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxReports = Math.max(1, maxConcurrent - 1);
+        this.delivery = delivery;
+    }
+
+    public static synchronized BackgroundTasks getInstance() {
+        if (instance == null) {
+            // Conexiunile de citire plus conexiunea de scriere
+            instance = new BackgroundTasks(DatabaseService.READ_POOL_SIZE + 1, Platform::runLater);
+        }
+        return instance;
+    }
+
+    /**
+     * Creează un grup de sarcini, de anulat împreună (ex. la închiderea unei ferestre).
+     */
+    public Group newGroup() {
+        return new Group();
+    }
+
+    /**
+     * Trimite o sarcină care nu aparține niciunei ferestre (ex. o scriere care
+     * trebuie dusă la capăt chiar dacă fereastra se închide).
+     *
+     * @param onSuccess primește rezultatul pe firul FX; poate fi null
+     * @param onError   primește eroarea pe firul FX; dacă e null, eroarea doar se jurnalizează
+     */
+    public <T> Handle submit(Priority priority, Callable<T> work,
+                             Consumer<? super T> onSuccess, Consumer<? super Exception> onError) {
+        return enqueue(new Job<>(priority, null, work, onSuccess, onError));
+    }
+
+    private <T> Job<T> enqueue(Job<T> job) {
+        synchronized (this) {
+            job.sequence = sequence++;
+            waiting.add(job);
+        }
+        dispatch();
+        return job;
+    }
+
+    /**
+     * Pornește sarcinile care așteaptă, cât timp sunt permise libere.
+     */
+    private synchronized void dispatch() {
+        while (!waiting.isEmpty()) {
+            Job<?> next = waiting.peek();
+            if (next.cancelled) {
+                waiting.poll();
+                next.finish();
+                next.countCancelled();
+                continue;
+            }
+            if (next.priority == Priority.REPORT && runningReports >= maxReports) {
+                return;
+            }
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            waiting.poll();
+            if (next.priority == Priority.REPORT) {
+                runningReports++;
+            }
+            threads.newThread(next).start();
+        }
+    }
+
+    private void completed(Job<?> job) {
+        synchronized (this) {
+            if (job.priority == Priority.REPORT) {
+                runningReports--;
+            }
+        }
+        permits.release();
+        dispatch();
+    }
+
+    private synchronized void discard(Job<?> job) {
+        waiting.remove(job);
+    }
+
+    /**
+     * Grup de sarcini care aparțin aceleiași ferestre.
+     */
+    public final class Group {
+        private final Set<Job<?>> jobs = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        private Group() {
+        }
+
+        /**
+         * Trimite o sarcină în grup. După {@link #cancelAll()} sarcinile noi sunt anulate imediat.
+         *
+         * @see BackgroundTasks#submit(Priority, Callable, Consumer, Consumer)
+         */
+        public <T> Handle submit(Priority priority, Callable<T> work,
+                                 Consumer<? super T> onSuccess, Consumer<? super Exception> onError) {
+            Job<T> job = new Job<>(priority, this, work, onSuccess, onError);
+            if (closed) {
+                job.cancelled = true;
+                job.done = true;
+                return job;
+            }
+            jobs.add(job);
+            return enqueue(job);
+        }
+
+        /**
+         * Anulează toate sarcinile grupului, în așteptare sau în curs.
+         */
+        public void cancelAll() {
+            closed = true;
+            for (Job<?> job : jobs) {
+                job.cancel();
+            }
+        }
+    }
+
+    private final class Job<T> implements Runnable, Handle, Comparable<Job<?>> {
+        private final Priority priority;
+        private final Group group;
+        private final Callable<T> work;
+        private final Consumer<? super T> onSuccess;
+        private final Consumer<? super Exception> onError;
+        private long sequence;
+        private final long submittedAt = System.nanoTime();
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile Thread thread;
+        private boolean cancelCounted;
+
+        Job(Priority priority, Group group, Callable<T> work,
+            Consumer<? super T> onSuccess, Consumer<? super Exception> onError) {
+            this.priority = priority;
+            this.group = group;
+            this.work = work;
+            this.onSuccess = onSuccess;
+            this.onError = onError;
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            long start = System.nanoTime();
+            priority.waitTime.record(start - submittedAt);
+            try {
+                if (cancelled) {
+                    return;
+                }
+                T result = work.call();
+                if (!cancelled && onSuccess != null) {
+                    delivery.execute(() -> {
+                        if (!cancelled) {
+                            onSuccess.accept(result);
+                        }
+                    });
+                }
+            } catch (Exception e) {
+                if (cancelled) {
+                    return;
+                }
+                FAILED.increment();
+                if (onError == null) {
+                    logger.error("Eroare în sarcina de fundal", e);
+                } else {
+                    delivery.execute(() -> {
+                        if (!cancelled) {
+                            onError.accept(e);
+                        }
+                    });
+                }
+            } finally {
+                priority.runTime.record(System.nanoTime() - start);
+                if (cancelled) {
+                    countCancelled();
+                }
+                thread = null;
+                finish();
+                completed(this);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            if (group != null) {
+                group.jobs.remove(this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled || done) {
+                return;
+            }
+            cancelled = true;
+            Thread t = thread;
+            if (t != null) {
+                t.interrupt();
+            } else {
+                discard(this);
+                finish();
+                countCancelled();
+            }
+        }
+
+        private synchronized void countCancelled() {
+            if (!cancelCounted) {
+                cancelCounted = true;
+                CANCELLED.increment();
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public int compareTo(Job<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.magsell.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cititor CSV (RFC 4180) care parcurge fișierul o singură dată, printr-un buffer fix.
+ * Acceptă câmpuri între ghilimele cu virgule, ghilimele dublate și rânduri noi în interior.
+ *
+ * Separatorul se deduce din primul rând: punct și virgulă dacă apare și virgula nu
+ * (Excel în setările românești), altfel virgulă. BOM-ul UTF-8 de la început se ignoră,
+ * la fel ca rândurile goale. Nu e sigur pentru mai multe fire.
+ */
+final class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private char delimiter;
+    private long line = 1;
+    private long recordLine;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Citește următoarea înregistrare.
+     *
+     * @return câmpurile, sau null la sfârșitul fișierului
+     */
+    String[] next() throws IOException {
+        if (delimiter == 0) {
+            start();
+        }
+        while (true) {
+            fields.clear();
+            field.setLength(0);
+            recordLine = line;
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == delimiter) {
+                    endField();
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r' && peek() == '\n') {
+                        read();
+                    }
+                    line++;
+                    break;
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            endField();
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                continue;
+            }
+            return fields.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Rândul din fișier (numărat de la 1) la care începe ultima înregistrare citită.
+     */
+    long line() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void endField() {
+        fields.add(field.toString());
+        field.setLength(0);
+    }
+
+    /**
+     * Sare peste BOM și alege separatorul după primul rând din buffer.
+     */
+    private void start() throws IOException {
+        fill();
+        if (position < limit && buffer[position] == '\uFEFF') {
+            position++;
+        }
+        int commas = 0;
+        int semicolons = 0;
+        boolean quoted = false;
+        for (int i = position; i < limit && (quoted || (buffer[i] != '\n' && buffer[i] != '\r')); i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && c == ',') {
+                commas++;
+            } else if (!quoted && c == ';') {
+                semicolons++;
+            }
+        }
+        delimiter = semicolons > 0 && commas == 0 ? ';' : ',';
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        position = 0;
+        limit = Math.max(n, 0);
+        return n > 0;
+    }
+}
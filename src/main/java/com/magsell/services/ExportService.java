@@ -0,0 +1,385 @@
+package com.magsell.services;
+
+import com.magsell.database.DatabaseService;
+import com.magsell.database.RowMapper;
+import com.magsell.metrics.Counter;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import com.magsell.models.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export al tabelelor de vânzări și produse în fișiere CSV sau JSON, opțional comprimate gzip.
+ *
+ * Rândurile se citesc dintr-un ResultSet parcurs o singură dată, înainte, și se scriu
+ * direct într-un {@link FileChannel} prin buffere fixe, deci memoria folosită nu depinde
+ * de mărimea tabelului. Exportul se scrie într-un fișier temporar lângă destinație, mutat
+ * peste destinație doar la final; un export anulat sau eșuat nu lasă un fișier pe jumătate.
+ *
+ * Exportul se anulează întrerupând firul (ex. {@link BackgroundTasks.Handle#cancel()}).
+ * Datele și orele se exportă în ora locală, sumele cu două zecimale.
+ */
+public class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+    private static final int PROGRESS_INTERVAL = 1000;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_LINE_END = "\r\n";
+    // Fără BOM, Excel deschide CSV-ul UTF-8 cu diacriticele stricate
+    private static final char UTF8_BOM = '\uFEFF';
+    private static final LatencyHistogram EXPORT = Metrics.getInstance().histogram("export.run");
+    private static final Counter EXPORTED_ROWS = Metrics.getInstance().counter("export.rows");
+
+    private final DatabaseService dbService = DatabaseService.getInstance();
+
+    public enum Format {
+        CSV,
+        JSON
+    }
+
+    /**
+     * Cum se scrie valoarea unei coloane.
+     */
+    private enum Kind {
+        INTEGER,
+        // Coloană în bani, scrisă în lei cu două zecimale
+        AMOUNT,
+        TIMESTAMP,
+        TEXT
+    }
+
+    private record Column(String name, Kind kind) {
+    }
+
+    /**
+     * Tabelele care se pot exporta. Rândurile vin în ordinea cheii primare, ca
+     * SQLite să le citească direct din tabel, fără sortare.
+     */
+    public enum Dataset {
+        SALES("sales", """
+                SELECT id, sale_date, product_id, product_name,
+                       quantity, unit_price_bani, total_price_bani, notes
+                FROM sales ORDER BY id""",
+                new Column("id", Kind.INTEGER),
+                new Column("sale_date", Kind.TIMESTAMP),
+                new Column("product_id", Kind.INTEGER),
+                new Column("product_name", Kind.TEXT),
+                new Column("quantity", Kind.INTEGER),
+                new Column("unit_price", Kind.AMOUNT),
+                new Column("total_price", Kind.AMOUNT),
+                new Column("notes", Kind.TEXT)),
+        PRODUCTS("products", """
+                SELECT id, name, description, category, price_bani, cost_price_bani, quantity,
+                       created_at, updated_at
+                FROM products ORDER BY id""",
+                new Column("id", Kind.INTEGER),
+                new Column("name", Kind.TEXT),
+                new Column("description", Kind.TEXT),
+                new Column("category", Kind.TEXT),
+                new Column("price", Kind.AMOUNT),
+                new Column("cost_price", Kind.AMOUNT),
+                new Column("quantity", Kind.INTEGER),
+                new Column("created_at", Kind.TIMESTAMP),
+                new Column("updated_at", Kind.TIMESTAMP));
+
+        private final String table;
+        private final String query;
+        private final Column[] columns;
+
+        Dataset(String table, String query, Column... columns) {
+            this.table = table;
+            this.query = query;
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * Primește progresul exportului, pe firul care exportă.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        /**
+         * @param rows  rânduri scrise până acum
+         * @param total rânduri estimate la început (tabelul se poate modifica între timp)
+         */
+        void update(long rows, long total);
+    }
+
+    /**
+     * Exportă un tabel întreg în fișierul dat.
+     *
+     * @param gzip     dacă fișierul se comprimă gzip
+     * @param progress primește progresul la fiecare {@value #PROGRESS_INTERVAL} de rânduri; poate fi null
+     * @return numărul de rânduri exportate
+     * @throws InterruptedIOException dacă firul a fost întrerupt (exportul a fost anulat)
+     */
+    @SuppressWarnings("try")
+    public long export(Dataset dataset, Path target, Format format, boolean gzip, Progress progress)
+            throws SQLException, IOException {
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        long rows;
+        try (LatencyHistogram.Sample timing = EXPORT.time();
+             Connection conn = dbService.getReadConnection()) {
+            long total = count(conn, dataset);
+            try (PreparedStatement ps = conn.prepareStatement(dataset.query);
+                 ResultSet rs = ps.executeQuery();
+                 ChannelWriter out = new ChannelWriter(open(partial, gzip))) {
+                Values values = new Values(rs, dataset.columns);
+                rows = format == Format.CSV
+                        ? writeCsv(values, dataset.columns, out, total, progress)
+                        : writeJson(values, dataset.columns, out, total, progress);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        EXPORTED_ROWS.add(rows);
+        logger.info("Export {} ({}{}): {} rânduri în {}", dataset.table, format, gzip ? ", gzip" : "", rows, target);
+        AuditLog.getInstance().record("export", dataset.table, rows + " rânduri în " + target);
+        return rows;
+    }
+
+    private static long count(Connection conn, Dataset dataset) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM " + dataset.table);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static WritableByteChannel open(Path file, boolean gzip) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (!gzip) {
+            return channel;
+        }
+        try {
+            return Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), GZIP_BUFFER_SIZE));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static long writeCsv(Values values, Column[] columns, ChannelWriter out,
+                                 long total, Progress progress) throws SQLException, IOException {
+        out.write(UTF8_BOM);
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(columns[i].name());
+        }
+        out.write(CSV_LINE_END);
+
+        long rows = 0;
+        while (values.next()) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                String value = values.get(i);
+                if (value != null) {
+                    writeCsvField(out, value);
+                }
+            }
+            out.write(CSV_LINE_END);
+            rows = advance(rows, total, progress);
+        }
+        report(rows, total, progress);
+        return rows;
+    }
+
+    private static long writeJson(Values values, Column[] columns, ChannelWriter out,
+                                  long total, Progress progress) throws SQLException, IOException {
+        // Un obiect pe linie, ca fișierul să se poată citi și linie cu linie
+        out.write('[');
+        long rows = 0;
+        while (values.next()) {
+            out.write(rows == 0 ? "\n{" : ",\n{");
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write('"').write(columns[i].name()).write("\":");
+                String value = values.get(i);
+                if (value == null) {
+                    out.write("null");
+                } else if (columns[i].kind() == Kind.TEXT || columns[i].kind() == Kind.TIMESTAMP) {
+                    writeJsonString(out, value);
+                } else {
+                    out.write(value);
+                }
+            }
+            out.write('}');
+            rows = advance(rows, total, progress);
+        }
+        out.write("\n]\n");
+        report(rows, total, progress);
+        return rows;
+    }
+
+    /**
+     * Numără rândul scris, raportează progresul și verifică dacă exportul a fost anulat.
+     */
+    private static long advance(long rows, long total, Progress progress) throws InterruptedIOException {
+        rows++;
+        if (rows % PROGRESS_INTERVAL == 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Export anulat după " + rows + " rânduri");
+            }
+            report(rows, total, progress);
+        }
+        return rows;
+    }
+
+    private static void report(long rows, long total, Progress progress) {
+        if (progress != null) {
+            progress.update(rows, Math.max(rows, total));
+        }
+    }
+
+    static void writeCsvField(ChannelWriter out, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static void writeJsonString(ChannelWriter out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Valorile rândului curent, ca text. Numerele se citesc cu getter-ul tipizat, care
+     * nu trece prin text în driver; marcajele UTC se convertesc la ora locală.
+     */
+    private static final class Values {
+        private final ResultSet rs;
+        private final Kind[] kinds;
+        private final LocalTimestamps timestamps = new LocalTimestamps();
+
+        Values(ResultSet rs, Column[] columns) {
+            this.rs = rs;
+            this.kinds = new Kind[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                kinds[i] = columns[i].kind();
+            }
+        }
+
+        boolean next() throws SQLException {
+            return rs.next();
+        }
+
+        String get(int column) throws SQLException {
+            int index = column + 1;
+            return switch (kinds[column]) {
+                case INTEGER -> {
+                    long value = rs.getLong(index);
+                    yield rs.wasNull() ? null : Long.toString(value);
+                }
+                case AMOUNT -> {
+                    long bani = rs.getLong(index);
+                    yield rs.wasNull() ? null : Money.ofBani(bani).toString();
+                }
+                case TIMESTAMP -> {
+                    String value = rs.getString(index);
+                    yield value == null ? null : timestamps.toLocal(value);
+                }
+                case TEXT -> rs.getString(index);
+            };
+        }
+    }
+
+    /**
+     * Convertește marcajele UTC din baza de date ({@code yyyy-MM-dd HH:mm:ss}) în ora locală.
+     * Rândurile vin în ordine cronologică, deci multe consecutive cad în aceeași oră UTC:
+     * decalajul se calculează o dată pe oră, iar minutele și secundele se copiază.
+     */
+    private static final class LocalTimestamps {
+        private static final DateTimeFormatter LOCAL_HOUR = DateTimeFormatter.ofPattern("yyyy-MM-dd HH");
+        private static final DateTimeFormatter LOCAL_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        private final ZoneId zone = ZoneId.systemDefault();
+        private String utcHour;
+        // Null dacă fusul orar nu e decalat cu ore întregi și minutele trebuie convertite
+        private String localHour;
+
+        String toLocal(String utc) {
+            if (utc.length() < 19) {
+                return utc;
+            }
+            if (utcHour != null && utc.regionMatches(0, utcHour, 0, 13)) {
+                return localHour != null ? localHour + utc.substring(13, 19) : convert(utc);
+            }
+            LocalDateTime time = RowMapper.parseTimestamp(utc);
+            if (time == null) {
+                return utc;
+            }
+            ZoneOffset offset = zone.getRules().getOffset(time.toInstant(ZoneOffset.UTC));
+            LocalDateTime local = time.plusSeconds(offset.getTotalSeconds());
+            utcHour = utc.substring(0, 13);
+            localHour = offset.getTotalSeconds() % 3600 == 0 ? LOCAL_HOUR.format(local) : null;
+            return LOCAL_TIME.format(local);
+        }
+
+        private String convert(String utc) {
+            LocalDateTime time = RowMapper.parseTimestamp(utc);
+            if (time == null) {
+                return utc;
+            }
+            return LOCAL_TIME.format(time.atOffset(ZoneOffset.UTC).atZoneSameInstant(zone));
+        }
+    }
+}
@@ -0,0 +1,655 @@
+package com.magsell.services;
+
+import com.magsell.database.DatabaseService;
+import com.magsell.database.RowMapper;
+import com.magsell.database.SaleWriter;
+import com.magsell.metrics.Counter;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import com.magsell.models.Money;
+import com.magsell.models.Sale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Import în masă de produse și de vânzări din istoric, din fișiere CSV (opțional .gz).
+ *
+ * Fișierul se citește în flux, în bucăți de {@value #CHUNK_SIZE} rânduri. Rândurile unei
+ * bucăți se validează în paralel, în timp ce bucata anterioară se scrie în baza de date,
+ * iar fiecare bucată se salvează într-o singură tranzacție. Rândurile invalide nu opresc
+ * importul: se sar și apar în raportul de erori, cu numărul rândului din fișier.
+ *
+ * Coloanele se recunosc după antet (aceleași nume ca la export), deci un fișier exportat
+ * se poate importa înapoi; coloanele necunoscute se ignoră. Zecimalele pot folosi punct
+ * sau virgulă, iar datele vânzărilor sunt în ora locală.
+ *
+ * Bucățile deja salvate rămân în baza de date dacă importul e anulat sau eșuează.
+ */
+public class ImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+    private static final int CHUNK_SIZE = 5000;
+    private static final int MAX_REPORTED_ERRORS = 10_000;
+    private static final LatencyHistogram CHUNK_WRITE = Metrics.getInstance().histogram("import.chunkWrite");
+    private static final Counter IMPORTED_ROWS = Metrics.getInstance().counter("import.rows");
+
+    private final DatabaseService dbService = DatabaseService.getInstance();
+    private final ProductCatalog catalog = ProductCatalog.getInstance();
+
+    /**
+     * Un rând respins, cu numărul lui din fișier (antetul e rândul 1).
+     */
+    public record RowError(long line, String message) {
+    }
+
+    /**
+     * Rezultatul unui import. Lista de erori se oprește la {@value #MAX_REPORTED_ERRORS}
+     * de intrări; {@code rejected} le numără pe toate.
+     */
+    public record Result(long rows, long imported, long rejected, List<RowError> errors) {
+    }
+
+    /**
+     * Primește progresul importului, pe firul care importă.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        /**
+         * @param rows       rânduri citite până acum
+         * @param bytesRead  octeți citiți din fișier
+         * @param totalBytes mărimea fișierului
+         */
+        void update(long rows, long bytesRead, long totalBytes);
+    }
+
+    /**
+     * Importă produse. Coloane: name și price obligatorii; description, category,
+     * cost_price, quantity (implicit 0 la produsele noi) opționale. Un produs cu nume existent
+     * se actualizează doar în coloanele prezente în fișier; celulele goale nu schimbă valoarea existentă.
+     */
+    public Result importProducts(Path file, Progress progress) throws IOException, SQLException {
+        try {
+            return run(file, progress, ProductImporter::new);
+        } finally {
+            // Și după un import întrerupt: bucățile deja salvate trebuie să apară în catalog
+            catalog.invalidate();
+        }
+    }
+
+    /**
+     * Importă vânzări din istoric, fără să modifice stocul. Coloane: product_id sau
+     * product_name, quantity, unit_price și sale_date obligatorii; total_price (implicit
+     * preț × cantitate) și notes opționale. Liniile consecutive cu aceeași dată formează un bon.
+     */
+    public Result importSales(Path file, Progress progress) throws IOException, SQLException {
+        Map<Integer, String> namesById = new HashMap<>();
+        Map<String, Integer> idsByName = new HashMap<>();
+        try (Connection conn = dbService.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT id, name FROM products");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                namesById.put(rs.getInt(1), rs.getString(2));
+                idsByName.put(rs.getString(2), rs.getInt(1));
+            }
+        }
+        return run(file, progress, header -> new SaleImporter(header, namesById, idsByName));
+    }
+
+    /**
+     * Scrie raportul de erori ca CSV (rând, eroare).
+     */
+    public static void writeErrorReport(Path target, Result result) throws IOException {
+        try (ChannelWriter out = new ChannelWriter(FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            out.write("rand,eroare\r\n");
+            for (RowError error : result.errors()) {
+                out.write(Long.toString(error.line())).write(',');
+                ExportService.writeCsvField(out, error.message());
+                out.write("\r\n");
+            }
+            if (result.rejected() > result.errors().size()) {
+                out.write(",\"... încă " + (result.rejected() - result.errors().size()) + " rânduri respinse\"\r\n");
+            }
+        }
+    }
+
+    private <T> Result run(Path file, Progress progress, ImporterFactory<T> importers)
+            throws IOException, SQLException {
+        long totalBytes = Files.size(file);
+        long rows = 0;
+        long imported = 0;
+        long rejected = 0;
+        List<RowError> errors = new ArrayList<>();
+
+        try (CountingInputStream counting = new CountingInputStream(Files.newInputStream(file));
+             CsvReader csv = new CsvReader(new InputStreamReader(decompress(file, counting), StandardCharsets.UTF_8))) {
+            String[] header = csv.next();
+            if (header == null) {
+                throw new IOException("Fișierul este gol");
+            }
+            Importer<T> importer = importers.create(new Header(header));
+
+            // Bucata următoare se citește și se validează cât timp se scrie bucata curentă
+            CompletableFuture<List<Checked<T>>> pending = validate(readChunk(csv), importer);
+            while (pending != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Import anulat după " + imported + " rânduri importate");
+                }
+                List<Raw> nextChunk = readChunk(csv);
+                List<Checked<T>> checked = join(pending);
+                pending = nextChunk.isEmpty() ? null : validate(nextChunk, importer);
+
+                List<T> valid = new ArrayList<>(checked.size());
+                for (Checked<T> row : checked) {
+                    if (row.error() == null) {
+                        valid.add(row.value());
+                    } else {
+                        rejected++;
+                        if (errors.size() < MAX_REPORTED_ERRORS) {
+                            errors.add(new RowError(row.line(), row.error()));
+                        }
+                    }
+                }
+                rows += checked.size();
+                try {
+                    imported += writeChunk(importer, valid, pending == null);
+                } catch (SQLException e) {
+                    throw new SQLException("Importul s-a oprit după " + imported + " rânduri importate: "
+                            + e.getMessage(), e);
+                }
+                if (progress != null) {
+                    progress.update(rows, counting.count, totalBytes);
+                }
+            }
+        }
+        logger.info("Import din {}: {} rânduri, {} importate, {} respinse", file.getFileName(), rows, imported, rejected);
+        AuditLog.getInstance().record("import", file.getFileName().toString(),
+                imported + " importate, " + rejected + " respinse");
+        return new Result(rows, imported, rejected, errors);
+    }
+
+    @SuppressWarnings("try")
+    private <T> long writeChunk(Importer<T> importer, List<T> rows, boolean last) throws SQLException {
+        try (LatencyHistogram.Sample timing = CHUNK_WRITE.time();
+             Connection conn = dbService.getConnection()) {
+            conn.setAutoCommit(false);
+            long written;
+            try {
+                written = importer.write(conn, rows, last);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            if (importer.changesStock()) {
+                dbService.getStockLedger().reload(conn);
+            }
+            IMPORTED_ROWS.add(written);
+            return written;
+        }
+    }
+
+    private static InputStream decompress(Path file, InputStream in) throws IOException {
+        InputStream buffered = new BufferedInputStream(in, 64 * 1024);
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")
+                ? new GZIPInputStream(buffered, 64 * 1024)
+                : buffered;
+    }
+
+    private static List<Raw> readChunk(CsvReader csv) throws IOException {
+        List<Raw> chunk = new ArrayList<>(CHUNK_SIZE);
+        String[] fields;
+        while (chunk.size() < CHUNK_SIZE && (fields = csv.next()) != null) {
+            chunk.add(new Raw(csv.line(), fields));
+        }
+        return chunk;
+    }
+
+    private static <T> CompletableFuture<List<Checked<T>>> validate(List<Raw> chunk, Importer<T> importer) {
+        return CompletableFuture.supplyAsync(() -> chunk.parallelStream().map(raw -> {
+            try {
+                return new Checked<>(raw.line(), importer.parse(raw.fields()), null);
+            } catch (IllegalArgumentException e) {
+                return new Checked<T>(raw.line(), null, e.getMessage());
+            }
+        }).toList());
+    }
+
+    private static <T> List<Checked<T>> join(CompletableFuture<List<Checked<T>>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : e;
+        }
+    }
+
+    private record Raw(long line, String[] fields) {
+    }
+
+    private record Checked<T>(long line, T value, String error) {
+    }
+
+    @FunctionalInterface
+    private interface ImporterFactory<T> {
+        /**
+         * @throws IOException dacă antetul nu are coloanele obligatorii
+         */
+        Importer<T> create(Header header) throws IOException;
+    }
+
+    /**
+     * Importul unui fișier, configurat după antetul lui.
+     */
+    private interface Importer<T> {
+        /**
+         * Validează un rând; se apelează din mai multe fire deodată.
+         *
+         * @throws IllegalArgumentException cu mesajul pentru raportul de erori
+         */
+        T parse(String[] fields);
+
+        /**
+         * Scrie rândurile valide ale unei bucăți, în tranzacția deschisă pe conexiune.
+         *
+         * @param last dacă e ultima bucată din fișier
+         * @return câte rânduri s-au scris
+         */
+        long write(Connection conn, List<T> rows, boolean last) throws SQLException;
+
+        /**
+         * Dacă scrierea schimbă stocul, caz în care soldurile din registrul de stoc se
+         * recitesc după fiecare bucată.
+         */
+        default boolean changesStock() {
+            return false;
+        }
+    }
+
+    /**
+     * Pozițiile coloanelor din antet, după nume (fără diferență între litere mari și mici).
+     */
+    private static final class Header {
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        Header(String[] names) {
+            for (int i = 0; i < names.length; i++) {
+                columns.putIfAbsent(names[i].trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        boolean has(String name) {
+            return columns.containsKey(name);
+        }
+
+        int optional(String name) {
+            return columns.getOrDefault(name, -1);
+        }
+
+        int required(String name) throws IOException {
+            Integer index = columns.get(name);
+            if (index == null) {
+                throw new IOException("Lipsește coloana obligatorie: " + name);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Un rând din fișierul de produse; câmpurile opționale goale sunt null.
+     */
+    private record ProductRow(String name, String description, String category,
+                              Money price, Money costPrice, Integer quantity) {
+    }
+
+    private static final class ProductImporter implements Importer<ProductRow> {
+        private final int name;
+        private final int description;
+        private final int category;
+        private final int price;
+        private final int costPrice;
+        private final int quantity;
+        private final String upsertSql;
+        private final String correctionSql;
+
+        ProductImporter(Header header) throws IOException {
+            name = header.required("name");
+            price = header.required("price");
+            description = header.optional("description");
+            category = header.optional("category");
+            costPrice = header.optional("cost_price");
+            quantity = header.optional("quantity");
+
+            // Un produs existent (același nume) se actualizează doar în coloanele din fișier,
+            // iar o celulă goală nu șterge valoarea existentă
+            StringBuilder update = new StringBuilder(
+                    "price_bani = excluded.price_bani, version = products.version + 1, updated_at = CURRENT_TIMESTAMP");
+            if (description >= 0) {
+                update.append(", description = COALESCE(excluded.description, products.description)");
+            }
+            if (category >= 0) {
+                update.append(", category = COALESCE(excluded.category, products.category)");
+            }
+            if (costPrice >= 0) {
+                update.append(", cost_price_bani = COALESCE(excluded.cost_price_bani, products.cost_price_bani)");
+            }
+            if (quantity >= 0) {
+                // La inserare cantitatea goală devine 0 (coloana e NOT NULL), deci excluded.quantity
+                // nu mai arată că celula era goală; valoarea din fișier se leagă încă o dată
+                update.append(", quantity = COALESCE(?, products.quantity)");
+            }
+            upsertSql = "INSERT INTO products (name, description, category, price_bani, cost_price_bani, quantity) "
+                    + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT(name) DO UPDATE SET " + update;
+            // Produsele noi primesc mișcarea OPENING din trigger; la cele existente diferența de
+            // cantitate se trece ca CORRECTION, înainte ca upsert-ul să o suprascrie
+            correctionSql = quantity < 0 ? null
+                    : "INSERT INTO stock_movements (product_id, type, quantity, occurred_at, note) "
+                    + "SELECT id, 'CORRECTION', ? - quantity, ?, 'import' FROM products WHERE name = ? AND quantity <> ?";
+        }
+
+        @Override
+        public boolean changesStock() {
+            return correctionSql != null;
+        }
+
+        @Override
+        public ProductRow parse(String[] fields) {
+            String productName = text(fields, name);
+            if (productName == null) {
+                throw new IllegalArgumentException("Numele produsului lipsește");
+            }
+            Integer stock = integer(fields, quantity, "quantity");
+            if (stock != null && stock < 0) {
+                throw new IllegalArgumentException("Cantitate negativă: " + stock);
+            }
+            return new ProductRow(productName, text(fields, description), text(fields, category),
+                    requireAmount(fields, price, "price"), amount(fields, costPrice, "cost_price"), stock);
+        }
+
+        @Override
+        public long write(Connection conn, List<ProductRow> rows, boolean last) throws SQLException {
+            if (correctionSql != null) {
+                return writeWithCorrections(conn, rows);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(upsertSql)) {
+                for (ProductRow row : rows) {
+                    bindUpsert(ps, row, false);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return rows.size();
+        }
+
+        /**
+         * Corecția unui rând trebuie să vadă cantitatea lăsată de rândul anterior cu același
+         * nume, deci cele două instrucțiuni alternează rând cu rând, fără batch.
+         */
+        private long writeWithCorrections(Connection conn, List<ProductRow> rows) throws SQLException {
+            String now = SaleWriter.SQLITE_TIMESTAMP.format(LocalDateTime.now(ZoneOffset.UTC));
+            try (PreparedStatement correction = conn.prepareStatement(correctionSql);
+                 PreparedStatement ps = conn.prepareStatement(upsertSql)) {
+                for (ProductRow row : rows) {
+                    // Cantitatea goală lasă stocul neschimbat, deci nu e nimic de corectat
+                    if (row.quantity() != null) {
+                        correction.setInt(1, row.quantity());
+                        correction.setString(2, now);
+                        correction.setString(3, row.name());
+                        correction.setInt(4, row.quantity());
+                        correction.executeUpdate();
+                    }
+                    bindUpsert(ps, row, true);
+                    ps.executeUpdate();
+                }
+            }
+            return rows.size();
+        }
+
+        /**
+         * @param hasQuantity dacă fișierul are coloana {@code quantity} (upsert-ul are atunci un parametru în plus)
+         */
+        private static void bindUpsert(PreparedStatement ps, ProductRow row, boolean hasQuantity) throws SQLException {
+            ps.setString(1, row.name());
+            ps.setString(2, row.description());
+            ps.setString(3, row.category());
+            ps.setLong(4, row.price().bani());
+            if (row.costPrice() != null) {
+                ps.setLong(5, row.costPrice().bani());
+            } else {
+                ps.setNull(5, Types.INTEGER);
+            }
+            ps.setInt(6, row.quantity() != null ? row.quantity() : 0);
+            if (hasQuantity) {
+                if (row.quantity() != null) {
+                    ps.setInt(7, row.quantity());
+                } else {
+                    ps.setNull(7, Types.INTEGER);
+                }
+            }
+        }
+    }
+
+    /**
+     * Vânzări din istoric. Liniile consecutive cu aceeași dată formează un bon; ultimul
+     * bon al unei bucăți se amână la bucata următoare, pentru cazul în care continuă acolo.
+     * Doar firul importului apelează {@link #write}, deci bonul deschis nu are nevoie de sincronizare.
+     */
+    private static final class SaleImporter implements Importer<Sale> {
+        private final Map<Integer, String> namesById;
+        private final Map<String, Integer> idsByName;
+        private final ZoneId zone = ZoneId.systemDefault();
+        private final int productId;
+        private final int productName;
+        private final int quantity;
+        private final int unitPrice;
+        private final int totalPrice;
+        private final int saleDate;
+        private final int notes;
+        private List<Sale> openReceipt = new ArrayList<>();
+
+        SaleImporter(Header header, Map<Integer, String> namesById, Map<String, Integer> idsByName) throws IOException {
+            this.namesById = namesById;
+            this.idsByName = idsByName;
+            productId = header.optional("product_id");
+            productName = header.optional("product_name");
+            if (productId < 0 && productName < 0) {
+                throw new IOException("Lipsește coloana obligatorie: product_id sau product_name");
+            }
+            quantity = header.required("quantity");
+            unitPrice = header.required("unit_price");
+            saleDate = header.required("sale_date");
+            totalPrice = header.optional("total_price");
+            notes = header.optional("notes");
+        }
+
+        @Override
+        public Sale parse(String[] fields) {
+            Sale sale = new Sale();
+            Integer id = integer(fields, productId, "product_id");
+            String name = text(fields, productName);
+            if (id != null) {
+                name = namesById.get(id);
+                if (name == null) {
+                    throw new IllegalArgumentException("Produs necunoscut cu ID-ul " + id);
+                }
+            } else if (name != null) {
+                id = idsByName.get(name);
+                if (id == null) {
+                    throw new IllegalArgumentException("Produs necunoscut: " + name);
+                }
+            } else {
+                throw new IllegalArgumentException("Produsul lipsește");
+            }
+            sale.setProductId(id);
+            sale.setProductName(name);
+
+            Integer count = integer(fields, quantity, "quantity");
+            if (count == null || count <= 0) {
+                throw new IllegalArgumentException("Cantitatea trebuie să fie pozitivă");
+            }
+            sale.setQuantity(count);
+            sale.setUnitPrice(requireAmount(fields, unitPrice, "unit_price"));
+            sale.setTotalPrice(amount(fields, totalPrice, "total_price"));
+            sale.setSaleDate(utc(text(fields, saleDate)));
+            sale.setNotes(text(fields, notes));
+            return sale;
+        }
+
+        @Override
+        public long write(Connection conn, List<Sale> rows, boolean last) throws SQLException {
+            List<List<Sale>> receipts = new ArrayList<>();
+            for (Sale sale : rows) {
+                if (!openReceipt.isEmpty() && !openReceipt.get(0).getSaleDate().equals(sale.getSaleDate())) {
+                    receipts.add(openReceipt);
+                    openReceipt = new ArrayList<>();
+                }
+                openReceipt.add(sale);
+            }
+            if (last && !openReceipt.isEmpty()) {
+                receipts.add(openReceipt);
+                openReceipt = new ArrayList<>();
+            }
+            try (SaleWriter writer = new SaleWriter(conn)) {
+                return writer.writeHistorical(receipts);
+            }
+        }
+
+        /**
+         * Data locală din fișier ({@code yyyy-MM-dd}, opțional cu ora), convertită în UTC.
+         */
+        private LocalDateTime utc(String text) {
+            if (text == null) {
+                throw new IllegalArgumentException("Data vânzării lipsește");
+            }
+            String full = switch (text.length()) {
+                case 10 -> text + " 00:00:00";
+                case 16 -> text + ":00";
+                default -> text;
+            };
+            LocalDateTime local = RowMapper.parseTimestamp(full);
+            if (local == null) {
+                throw new IllegalArgumentException("Dată invalidă: " + text);
+            }
+            return local.atZone(zone).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        }
+    }
+
+    private static String text(String[] fields, int index) {
+        if (index < 0 || index >= fields.length) {
+            return null;
+        }
+        String value = fields[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer integer(String[] fields, int index, String column) {
+        String value = text(fields, index);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Număr întreg invalid în coloana " + column + ": " + value);
+        }
+    }
+
+    private static Money requireAmount(String[] fields, int index, String column) {
+        Money value = amount(fields, index, column);
+        if (value == null) {
+            throw new IllegalArgumentException("Lipsește valoarea din coloana " + column);
+        }
+        return value;
+    }
+
+    /**
+     * Sumă nenegativă cu cel mult două zecimale; acceptă și virgula zecimală.
+     */
+    private static Money amount(String[] fields, int index, String column) {
+        String value = text(fields, index);
+        if (value == null) {
+            return null;
+        }
+        // Money.parse rotunjește la bani; la import zecimalele în plus sunt o eroare
+        int separator = Math.max(value.lastIndexOf('.'), value.lastIndexOf(','));
+        for (int i = separator + 3; separator >= 0 && i < value.length(); i++) {
+            if (value.charAt(i) != '0') {
+                throw new IllegalArgumentException("Mai mult de două zecimale în coloana " + column + ": " + value);
+            }
+        }
+        Money amount;
+        try {
+            amount = Money.parse(value);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Sumă invalidă în coloana " + column + ": " + value);
+        }
+        if (amount.signum() < 0) {
+            throw new IllegalArgumentException("Sumă negativă în coloana " + column + ": " + value);
+        }
+        return amount;
+    }
+
+    /**
+     * Numără octeții citiți din fișier, pentru progres.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.magsell.services;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hash-uri de parole cu PBKDF2-HMAC-SHA256, cu număr de iterații configurabil
+ * (proprietatea de sistem {@value #ITERATIONS_PROPERTY}).
+ *
+ * Hash-ul se salvează ca {@code pbkdf2-sha256$<iterații>$<hash Base64>}, iar sarea rămâne
+ * în coloana {@code salt}. Hash-urile vechi (un singur SHA-256 peste sare și parolă) nu au
+ * prefix; se verifică în continuare, iar {@link #needsRehash(String)} le semnalează ca să
+ * fie înlocuite la următoarea autentificare reușită.
+ *
+ * Instanțele de {@link Mac} și {@link MessageDigest} se împrumută dintr-un pool mic, comun
+ * tuturor firelor, deci verificările nu mai caută furnizorul criptografic la fiecare apel.
+ * (Autentificările rulează pe fire virtuale noi, unde o instanță per fir nu s-ar refolosi.)
+ * Calculul durează intenționat zeci sau sute de milisecunde: nu se apelează pe firul FX.
+ */
+public final class PasswordHasher {
+    public static final String ITERATIONS_PROPERTY = "magsell.auth.iterations";
+    static final int DEFAULT_ITERATIONS = 600_000;
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final int SALT_BYTES = 16;
+    // Cât rulează simultan în practică: autentificări și verificări de sesiune
+    private static final int POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final InstancePool<Mac> HMAC = new InstancePool<>(() -> Mac.getInstance("HmacSHA256"));
+    private static final InstancePool<MessageDigest> SHA256 =
+            new InstancePool<>(() -> MessageDigest.getInstance("SHA-256"));
+    private static PasswordHasher instance;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Hash-ul codificat și sarea (Base64), cum se salvează în tabela users.
+     */
+    public record Hash(String encoded, String salt) {
+    }
+
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Numărul de iterații trebuie să fie pozitiv");
+        }
+        this.iterations = iterations;
+    }
+
+    public static synchronized PasswordHasher getInstance() {
+        if (instance == null) {
+            instance = new PasswordHasher(Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS));
+        }
+        return instance;
+    }
+
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * Calculează hash-ul unei parole noi, cu sare nouă.
+     */
+    public Hash hash(String password) {
+        if (password == null || password.isEmpty()) {
+            throw new IllegalArgumentException("Parola nu poate fi goală");
+        }
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] derived = pbkdf2(password, salt, iterations);
+        Base64.Encoder b64 = Base64.getEncoder();
+        return new Hash(PREFIX + iterations + "$" + b64.encodeToString(derived), b64.encodeToString(salt));
+    }
+
+    /**
+     * Verifică parola față de hash-ul salvat (nou sau vechi), în timp constant față de conținut.
+     */
+    public boolean verify(String password, String encoded, String salt) {
+        if (password == null || password.isEmpty() || encoded == null || salt == null) {
+            return false;
+        }
+        try {
+            byte[] saltBytes = Base64.getDecoder().decode(salt);
+            if (!encoded.startsWith(PREFIX)) {
+                return MessageDigest.isEqual(legacy(password, saltBytes), Base64.getDecoder().decode(encoded));
+            }
+            int separator = encoded.indexOf('$', PREFIX.length());
+            if (separator < 0) {
+                return false;
+            }
+            int rounds = Integer.parseInt(encoded, PREFIX.length(), separator, 10);
+            byte[] expected = Base64.getDecoder().decode(encoded.substring(separator + 1));
+            return rounds > 0 && MessageDigest.isEqual(pbkdf2(password, saltBytes, rounds), expected);
+        } catch (IllegalArgumentException e) {
+            // Hash sau sare corupte în baza de date: parola nu poate fi verificată
+            return false;
+        }
+    }
+
+    /**
+     * Dacă hash-ul salvat e în formatul vechi sau are alt număr de iterații decât cel configurat.
+     */
+    public boolean needsRehash(String encoded) {
+        return encoded == null || !encoded.startsWith(PREFIX + iterations + "$");
+    }
+
+    /**
+     * HMAC-SHA256 cu o instanță {@link Mac} din pool.
+     */
+    static byte[] hmac(byte[] key, byte[] data) {
+        Mac mac = init(key);
+        try {
+            return mac.doFinal(data);
+        } finally {
+            HMAC.release(mac);
+        }
+    }
+
+    /**
+     * PBKDF2 (RFC 8018) cu un singur bloc de ieșire, cât lungimea HMAC-SHA256 (32 de octeți).
+     */
+    static byte[] pbkdf2(String password, byte[] salt, int rounds) {
+        byte[] key = password.getBytes(StandardCharsets.UTF_8);
+        Mac mac = init(key);
+        try {
+            mac.update(salt);
+            // Indicele blocului, big-endian: blocul 1
+            mac.update(new byte[] { 0, 0, 0, 1 });
+            byte[] u = mac.doFinal();
+            byte[] result = u.clone();
+            for (int i = 1; i < rounds; i++) {
+                mac.update(u);
+                mac.doFinal(u, 0);
+                for (int j = 0; j < result.length; j++) {
+                    result[j] ^= u[j];
+                }
+            }
+            return result;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+            HMAC.release(mac);
+        }
+    }
+
+    /**
+     * Împrumută un {@link Mac} din pool și îl inițializează cu cheia dată; apelantul îl eliberează.
+     */
+    private static Mac init(byte[] key) {
+        Mac mac = HMAC.acquire();
+        try {
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            HMAC.release(mac);
+            throw new IllegalStateException(e);
+        }
+        return mac;
+    }
+
+    private static byte[] legacy(String password, byte[] salt) {
+        MessageDigest md = SHA256.acquire();
+        try {
+            md.reset();
+            md.update(salt);
+            return md.digest(password.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            SHA256.release(md);
+        }
+    }
+
+    /**
+     * Pool lock-free și limitat de instanțe criptografice. Dacă pool-ul e gol se creează
+     * o instanță nouă; la eliberare, instanțele peste {@link #POOL_SIZE} se aruncă.
+     */
+    private static final class InstancePool<T> {
+        private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+        private final Factory<T> factory;
+
+        InstancePool(Factory<T> factory) {
+            this.factory = factory;
+        }
+
+        T acquire() {
+            T instance = idle.poll();
+            if (instance != null) {
+                idleCount.decrementAndGet();
+                return instance;
+            }
+            try {
+                return factory.create();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void release(T instance) {
+            if (idleCount.incrementAndGet() <= POOL_SIZE) {
+                idle.offer(instance);
+            } else {
+                idleCount.decrementAndGet();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Factory<T> {
+        T create() throws GeneralSecurityException;
+    }
+}
@@ -0,0 +1,341 @@
+package com.magsell.services;
+
+import com.magsell.models.Product;
+import com.magsell.models.Sale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Cache în memorie al catalogului de produse, încărcat o singură dată din baza de date.
+ * Produsele sunt indexate după ID și după nume; scrierile trec prin {@link ProductService},
+ * după care rândul scris se recitește și se pune în cache, iar abonații primesc evenimente
+ * de adăugare, actualizare și ștergere pentru fiecare produs în parte.
+ *
+ * Evenimentele se trimit și când cache-ul nu e încărcat (ex. lista paginată), ca
+ * abonații să afle de modificare.
+ *
+ * Cache-ul ține copii proprii ale produselor: obiectele primite sau întoarse pot fi
+ * modificate liber de apelant fără să afecteze cache-ul până la următorul update().
+ *
+ * Recitirea și evenimentele au loc sub monitorul catalogului, deci abonații primesc
+ * evenimentele în ordinea în care s-a modificat cache-ul, iar un rând mai vechi nu poate
+ * suprascrie unul mai nou. Abonații sunt apelați pe firul care a făcut scrierea și
+ * trebuie doar să predea evenimentul mai departe (ex. {@code Platform.runLater}).
+ */
+public class ProductCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalog.class);
+    private static final Comparator<Product> BY_NAME = Comparator.comparing(Product::getName);
+    private static ProductCatalog instance;
+
+    private final ProductService productService = new ProductService();
+    private final Map<Integer, Product> byId = new HashMap<>();
+    private final Map<String, Product> byName = new HashMap<>();
+    private final TreeMap<String, Integer> categoryCounts = new TreeMap<>();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private boolean loaded;
+
+    /**
+     * Abonat la modificările catalogului.
+     */
+    public interface Listener {
+        void onProductAdded(Product product);
+
+        void onProductUpdated(Product product);
+
+        void onProductRemoved(Product product);
+
+        /**
+         * Catalogul s-a schimbat în bloc (ex. după un import) și s-a golit;
+         * abonatul își recitește toate produsele.
+         */
+        void onCatalogReloaded();
+    }
+
+    private ProductCatalog() {
+    }
+
+    public static synchronized ProductCatalog getInstance() {
+        if (instance == null) {
+            instance = new ProductCatalog();
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Abonează ascultătorul și întoarce produsele, ordonate după nume, într-un singur pas:
+     * orice eveniment primit după aceea e mai nou decât lista întoarsă.
+     */
+    public synchronized List<Product> subscribe(Listener listener) throws SQLException {
+        List<Product> products = getProducts();
+        addListener(listener);
+        return products;
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Încarcă produsele din baza de date, doar la primul apel.
+     */
+    public synchronized void load() throws SQLException {
+        if (loaded) {
+            return;
+        }
+        for (Product p : productService.getAllProducts()) {
+            index(p);
+        }
+        loaded = true;
+        logger.info("Catalog încărcat: {} produse", byId.size());
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Obține toate produsele, ordonate după nume.
+     */
+    public synchronized List<Product> getProducts() throws SQLException {
+        load();
+        List<Product> products = new ArrayList<>(byId.size());
+        for (Product p : byId.values()) {
+            products.add(copyOf(p));
+        }
+        products.sort(BY_NAME);
+        return products;
+    }
+
+    public synchronized Product getById(int id) throws SQLException {
+        load();
+        Product p = byId.get(id);
+        return p != null ? copyOf(p) : null;
+    }
+
+    public synchronized Product getByName(String name) throws SQLException {
+        load();
+        Product p = byName.get(name);
+        return p != null ? copyOf(p) : null;
+    }
+
+    /**
+     * Obține categoriile distincte, ordonate, fără interogare în baza de date.
+     */
+    public synchronized List<String> getCategories() throws SQLException {
+        load();
+        return new ArrayList<>(categoryCounts.keySet());
+    }
+
+    /**
+     * Caută produse după nume și descriere (fără diacritice, prefix sau subșir),
+     * ordonate după relevanță.
+     */
+    public synchronized List<Product> search(String query, int limit) throws SQLException {
+        load();
+        List<Product> found = searchIndex.search(query, limit);
+        List<Product> products = new ArrayList<>(found.size());
+        for (Product p : found) {
+            products.add(copyOf(p));
+        }
+        return products;
+    }
+
+    /**
+     * Marchează în {@code out} ID-urile produselor care se potrivesc interogării.
+     */
+    public synchronized void matchingIds(String query, BitSet out) throws SQLException {
+        load();
+        searchIndex.matchingIds(query, out);
+    }
+
+    /**
+     * Calculează ID-urile produselor care se potrivesc textului și categoriei.
+     * Dacă {@code narrowFrom} nu e null (interogarea doar s-a lungit), verifică
+     * doar acei candidați în loc să interogheze indexul complet.
+     */
+    public synchronized BitSet filter(String query, String category, BitSet narrowFrom) throws SQLException {
+        load();
+        BitSet result;
+        if (narrowFrom != null) {
+            result = (BitSet) narrowFrom.clone();
+            searchIndex.retainMatching(query, result);
+        } else {
+            result = new BitSet();
+            searchIndex.matchingIds(query, result);
+        }
+        if (category != null && !category.isEmpty()) {
+            searchIndex.retainCategory(category, result);
+        }
+        return result;
+    }
+
+    /**
+     * Creează produsul în baza de date și îl adaugă în catalog.
+     */
+    public void create(Product product) throws SQLException {
+        productService.createProduct(product);
+        reread(List.of(product.getId()), true);
+    }
+
+    /**
+     * Actualizează produsul în baza de date și în catalog.
+     */
+    public void update(Product product) throws SQLException {
+        productService.updateProduct(product);
+        reread(List.of(product.getId()), false);
+    }
+
+    /**
+     * Salvează editarea unui produs combinată cu modificările concurente
+     * (vezi {@link ProductService#mergeProduct(Product, Product)}) și actualizează catalogul.
+     *
+     * @return produsul așa cum a fost salvat
+     */
+    public Product update(Product base, Product edited) throws SQLException {
+        Product saved = productService.mergeProduct(base, edited).product();
+        reread(List.of(saved.getId()), false);
+        return saved;
+    }
+
+    /**
+     * Șterge produsul din baza de date și din catalog.
+     */
+    public void delete(int id) throws SQLException {
+        productService.deleteProduct(id);
+        synchronized (this) {
+            Product removed = unindex(id);
+            if (removed == null) {
+                // Catalogul nu era încărcat; abonații au nevoie doar de ID
+                removed = new Product();
+                removed.setId(id);
+            }
+            fireRemoved(removed);
+        }
+    }
+
+    /**
+     * Recitește produsele după o modificare de stoc deja salvată în baza de date (ex. o vânzare).
+     * Rândul se citește întreg, nu se aplică o diferență, deci o reîncărcare a catalogului
+     * între commit și acest apel nu scade stocul de două ori.
+     * Dacă citirea eșuează, cache-ul se golește și se reîncarcă la următorul acces.
+     */
+    public void refreshStock(Collection<Integer> productIds) {
+        try {
+            reread(productIds, false);
+        } catch (SQLException e) {
+            logger.error("Stocul produselor {} nu a putut fi recitit; catalogul se reîncarcă", productIds, e);
+            invalidate();
+        }
+    }
+
+    private synchronized void reread(Collection<Integer> ids, boolean created) throws SQLException {
+        for (Product fresh : productService.getProducts(ids)) {
+            if (loaded) {
+                unindex(fresh.getId());
+                index(fresh);
+            }
+            if (created) {
+                fireAdded(copyOf(fresh));
+            } else {
+                fireUpdated(copyOf(fresh));
+            }
+        }
+    }
+
+    /**
+     * Golește cache-ul; următorul acces reîncarcă produsele din baza de date.
+     * Abonații sunt anunțați să își recitească produsele.
+     */
+    public synchronized void invalidate() {
+        byId.clear();
+        byName.clear();
+        categoryCounts.clear();
+        searchIndex.clear();
+        loaded = false;
+        for (Listener l : listeners) {
+            l.onCatalogReloaded();
+        }
+    }
+
+    private void index(Product p) {
+        byId.put(p.getId(), p);
+        byName.put(p.getName(), p);
+        if (p.getCategory() != null) {
+            categoryCounts.merge(p.getCategory(), 1, Integer::sum);
+        }
+        searchIndex.put(p);
+    }
+
+    private Product unindex(int id) {
+        Product old = byId.remove(id);
+        if (old == null) {
+            return null;
+        }
+        byName.remove(old.getName());
+        searchIndex.remove(id);
+        if (old.getCategory() != null) {
+            categoryCounts.computeIfPresent(old.getCategory(), (k, n) -> n > 1 ? n - 1 : null);
+        }
+        return old;
+    }
+
+    private void fireAdded(Product p) {
+        for (Listener l : listeners) {
+            l.onProductAdded(p);
+        }
+    }
+
+    private void fireUpdated(Product p) {
+        for (Listener l : listeners) {
+            l.onProductUpdated(p);
+        }
+    }
+
+    private void fireRemoved(Product p) {
+        for (Listener l : listeners) {
+            l.onProductRemoved(p);
+        }
+    }
+
+    static Product copyOf(Product p) {
+        Product c = new Product();
+        c.setId(p.getId());
+        c.setName(p.getName());
+        c.setDescription(p.getDescription());
+        c.setPrice(p.getPrice());
+        c.setQuantity(p.getQuantity());
+        c.setCategory(p.getCategory());
+        c.setCreatedAt(p.getCreatedAt());
+        c.setUpdatedAt(p.getUpdatedAt());
+        return c;
+    }
+
+    /**
+     * ID-urile distincte ale produselor de pe liniile unui bon.
+     */
+    static Set<Integer> productIds(Collection<Sale> items) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Sale item : items) {
+            ids.add(item.getProductId());
+        }
+        return ids;
+    }
+}
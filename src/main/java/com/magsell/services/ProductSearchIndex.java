@@ -0,0 +1,495 @@
+package com.magsell.services;
+
+import com.magsell.models.Product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index de căutare în memorie pentru produse, folosit la filtrarea rapidă la casă.
+ *
+ * Numele și descrierile sunt normalizate o singură dată, la indexare: litere mici,
+ * fără diacritice ("Plăcintă" devine "placinta"). Căutarea potrivește începutul
+ * cuvintelor (prefix) și, pentru termeni de cel puțin 3 caractere, orice subșir
+ * prin trigrame. Toți termenii din interogare trebuie să se potrivească.
+ * Scor: prefix al primului cuvânt din nume &gt; prefix în nume &gt; prefix în descriere &gt; subșir.
+ *
+ * Structurile de lucru ale căutării sunt refolosite între apeluri, așa că o tastă
+ * apăsată nu alocă nimic proporțional cu mărimea catalogului. Clasa nu e thread-safe;
+ * {@link ProductCatalog} o folosește doar sub propriul monitor.
+ */
+public class ProductSearchIndex {
+    private static final char[] FOLD = buildFoldTable();
+    private static final int SCORE_NAME_START = 8;
+    private static final int SCORE_NAME_PREFIX = 4;
+    private static final int SCORE_DESCRIPTION_PREFIX = 2;
+    private static final int SCORE_SUBSTRING = 1;
+
+    private Product[] docs = new Product[64];
+    private String[] names = new String[64];
+    private String[] descriptions = new String[64];
+    private String[] categories = new String[64];
+    // slotById[id] = slot + 1; 0 = produs absent. ID-urile SQLite sunt dense, deci tabloul rămâne mic.
+    private int[] slotById = new int[64];
+    private int size;
+    private final IntList freeSlots = new IntList();
+    private int slotCount;
+
+    private final TreeMap<String, IntList> nameTokens = new TreeMap<>();
+    private final TreeMap<String, IntList> descriptionTokens = new TreeMap<>();
+    private final Map<Long, IntList> trigrams = new HashMap<>();
+
+    // Stare de lucru refolosită între căutări
+    private int generation;
+    private int[] seenGeneration = new int[64];
+    private int[] lastTerm = new int[64];
+    private int[] hits = new int[64];
+    private int[] scores = new int[64];
+    private final IntList touched = new IntList();
+    private final StringBuilder foldBuffer = new StringBuilder();
+
+    /**
+     * Adaugă sau înlocuiește un produs în index.
+     */
+    public void put(Product product) {
+        remove(product.getId());
+        int slot = freeSlots.size() > 0 ? freeSlots.removeLast() : slotCount++;
+        ensureCapacity(slotCount);
+
+        String name = fold(product.getName());
+        String description = product.getDescription() != null ? fold(product.getDescription()) : "";
+        docs[slot] = product;
+        names[slot] = name;
+        descriptions[slot] = description;
+        categories[slot] = product.getCategory();
+        if (product.getId() >= slotById.length) {
+            slotById = Arrays.copyOf(slotById, Math.max(product.getId() + 1, slotById.length * 2));
+        }
+        slotById[product.getId()] = slot + 1;
+        size++;
+
+        forEachToken(name, token -> postings(nameTokens, token).addUnique(slot));
+        forEachToken(description, token -> postings(descriptionTokens, token).addUnique(slot));
+        forEachTrigram(name, key -> trigrams.computeIfAbsent(key, k -> new IntList()).addUnique(slot));
+        forEachTrigram(description, key -> trigrams.computeIfAbsent(key, k -> new IntList()).addUnique(slot));
+    }
+
+    /**
+     * Scoate un produs din index.
+     */
+    public void remove(int productId) {
+        int s = slotOf(productId);
+        if (s < 0) {
+            return;
+        }
+        slotById[productId] = 0;
+        size--;
+        forEachToken(names[s], token -> removePosting(nameTokens, token, s));
+        forEachToken(descriptions[s], token -> removePosting(descriptionTokens, token, s));
+        forEachTrigram(names[s], key -> removeTrigram(key, s));
+        forEachTrigram(descriptions[s], key -> removeTrigram(key, s));
+        docs[s] = null;
+        names[s] = null;
+        descriptions[s] = null;
+        categories[s] = null;
+        freeSlots.add(s);
+    }
+
+    public void clear() {
+        Arrays.fill(docs, null);
+        Arrays.fill(names, null);
+        Arrays.fill(descriptions, null);
+        Arrays.fill(categories, null);
+        Arrays.fill(slotById, 0);
+        size = 0;
+        freeSlots.clear();
+        slotCount = 0;
+        nameTokens.clear();
+        descriptionTokens.clear();
+        trigrams.clear();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Marchează în {@code out} ID-urile produselor care se potrivesc interogării.
+     * O interogare goală potrivește toate produsele.
+     */
+    public void matchingIds(String query, BitSet out) {
+        out.clear();
+        int terms = evaluate(query);
+        for (int i = 0; i < touched.size(); i++) {
+            int slot = touched.get(i);
+            if (terms == 0 || hits[slot] == terms) {
+                out.set(docs[slot].getId());
+            }
+        }
+    }
+
+    /**
+     * Păstrează în {@code ids} doar produsele care se potrivesc interogării.
+     * Verifică direct textul normalizat al fiecărui candidat, fără să treacă prin
+     * index; util când interogarea doar s-a lungit și candidații sunt deja puțini.
+     * Potrivirea este aceeași ca la {@link #matchingIds}.
+     */
+    public void retainMatching(String query, BitSet ids) {
+        foldBuffer.setLength(0);
+        if (query != null) {
+            foldInto(query, foldBuffer);
+        }
+        List<String> terms = new ArrayList<>(4);
+        forEachToken(foldBuffer, terms::add);
+        if (terms.isEmpty()) {
+            return;
+        }
+        String[] wordStarts = new String[terms.size()];
+        for (int t = 0; t < wordStarts.length; t++) {
+            wordStarts[t] = " " + terms.get(t);
+        }
+
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            int slot = slotOf(id);
+            if (slot < 0 || !matchesAll(slot, terms, wordStarts)) {
+                ids.clear(id);
+            }
+        }
+    }
+
+    /**
+     * Păstrează în {@code ids} doar produsele din categoria dată.
+     */
+    public void retainCategory(String category, BitSet ids) {
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            int slot = slotOf(id);
+            if (slot < 0 || !category.equals(categories[slot])) {
+                ids.clear(id);
+            }
+        }
+    }
+
+    /**
+     * Caută produsele care se potrivesc interogării, ordonate după relevanță.
+     */
+    public List<Product> search(String query, int limit) {
+        int terms = evaluate(query);
+        int[] top = new int[Math.max(0, limit)];
+        int found = 0;
+        for (int i = 0; i < touched.size(); i++) {
+            int slot = touched.get(i);
+            if (terms != 0 && hits[slot] != terms) {
+                continue;
+            }
+            // Inserție într-un top-K mic, fără sortarea tuturor candidaților
+            int pos = found < top.length ? found++ : top.length;
+            while (pos > 0 && ranksBefore(slot, top[pos - 1])) {
+                if (pos < top.length) {
+                    top[pos] = top[pos - 1];
+                }
+                pos--;
+            }
+            if (pos < top.length) {
+                top[pos] = slot;
+            }
+        }
+        List<Product> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(docs[top[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Verifică dacă rezultatele lui {@code next} sunt sigur o submulțime a celor pentru
+     * {@code previous}, deci pot fi obținute cu {@link #retainMatching} din rezultatul anterior.
+     * Nu e cazul când ultimul termen trece de la 2 la 3 caractere: de acolo potrivește și subșiruri.
+     */
+    public static boolean isNarrowing(String previous, String next) {
+        if (!next.startsWith(previous)) {
+            return false;
+        }
+        String before = fold(previous);
+        int lastStart = before.lastIndexOf(' ') + 1;
+        int lastLength = before.length() - lastStart;
+        if (lastLength == 0 || lastLength >= 3) {
+            return true;
+        }
+        String after = fold(next);
+        int end = after.indexOf(' ', lastStart);
+        int grownLength = (end < 0 ? after.length() : end) - lastStart;
+        return grownLength < 3;
+    }
+
+    /**
+     * Normalizează textul pentru căutare: litere mici, fără diacritice,
+     * orice alt caracter decât litere și cifre devine spațiu.
+     */
+    public static String fold(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        foldInto(text, sb);
+        return sb.toString();
+    }
+
+    private static void foldInto(CharSequence text, StringBuilder out) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char f = c < FOLD.length ? FOLD[c] : (Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ');
+            out.append(f);
+        }
+    }
+
+    /**
+     * Rulează interogarea și lasă în {@code touched}, {@code hits} și {@code scores}
+     * produsele atinse. Întoarce numărul de termeni (0 = interogare goală, toate produsele).
+     */
+    private int evaluate(String query) {
+        generation++;
+        touched.clear();
+
+        foldBuffer.setLength(0);
+        if (query != null) {
+            foldInto(query, foldBuffer);
+        }
+        List<String> terms = new ArrayList<>(4);
+        forEachToken(foldBuffer, terms::add);
+
+        if (terms.isEmpty()) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (docs[slot] != null) {
+                    touch(slot, -1, 0);
+                }
+            }
+            return 0;
+        }
+
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            String upper = term + Character.MAX_VALUE;
+            for (IntList postings : nameTokens.subMap(term, true, upper, false).values()) {
+                for (int i = 0; i < postings.size(); i++) {
+                    int slot = postings.get(i);
+                    touch(slot, t, names[slot].startsWith(term) ? SCORE_NAME_START : SCORE_NAME_PREFIX);
+                }
+            }
+            for (IntList postings : descriptionTokens.subMap(term, true, upper, false).values()) {
+                for (int i = 0; i < postings.size(); i++) {
+                    touch(postings.get(i), t, SCORE_DESCRIPTION_PREFIX);
+                }
+            }
+            if (term.length() >= 3) {
+                IntList candidates = rarestTrigramPostings(term);
+                if (candidates != null) {
+                    for (int i = 0; i < candidates.size(); i++) {
+                        int slot = candidates.get(i);
+                        if (names[slot].contains(term) || descriptions[slot].contains(term)) {
+                            touch(slot, t, SCORE_SUBSTRING);
+                        }
+                    }
+                }
+            }
+        }
+        return terms.size();
+    }
+
+    private boolean matchesAll(int slot, List<String> terms, String[] wordStarts) {
+        String name = names[slot];
+        String description = descriptions[slot];
+        for (int t = 0; t < wordStarts.length; t++) {
+            String term = terms.get(t);
+            boolean match = name.startsWith(term) || name.contains(wordStarts[t])
+                    || description.startsWith(term) || description.contains(wordStarts[t])
+                    || (term.length() >= 3 && (name.contains(term) || description.contains(term)));
+            if (!match) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int slotOf(int productId) {
+        return productId >= 0 && productId < slotById.length ? slotById[productId] - 1 : -1;
+    }
+
+    /**
+     * Înregistrează o potrivire a termenului {@code term} pentru produs;
+     * pentru fiecare termen se păstrează doar cel mai bun scor.
+     */
+    private void touch(int slot, int term, int score) {
+        if (seenGeneration[slot] != generation) {
+            seenGeneration[slot] = generation;
+            lastTerm[slot] = -1;
+            hits[slot] = 0;
+            scores[slot] = 0;
+            touched.add(slot);
+        }
+        if (term < 0) {
+            return;
+        }
+        if (lastTerm[slot] != term) {
+            lastTerm[slot] = term;
+            hits[slot]++;
+            scores[slot] += score;
+        }
+    }
+
+    private boolean ranksBefore(int a, int b) {
+        if (scores[a] != scores[b]) {
+            return scores[a] > scores[b];
+        }
+        return docs[a].getName().compareTo(docs[b].getName()) < 0;
+    }
+
+    private IntList rarestTrigramPostings(String term) {
+        IntList best = null;
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            IntList postings = trigrams.get(trigramKey(term, i));
+            if (postings == null) {
+                return null;
+            }
+            if (best == null || postings.size() < best.size()) {
+                best = postings;
+            }
+        }
+        return best;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= docs.length) {
+            return;
+        }
+        int capacity = Math.max(size, docs.length * 2);
+        docs = Arrays.copyOf(docs, capacity);
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        seenGeneration = Arrays.copyOf(seenGeneration, capacity);
+        lastTerm = Arrays.copyOf(lastTerm, capacity);
+        hits = Arrays.copyOf(hits, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+    }
+
+    private static IntList postings(TreeMap<String, IntList> index, String token) {
+        return index.computeIfAbsent(token, k -> new IntList());
+    }
+
+    private static void removePosting(TreeMap<String, IntList> index, String token, int slot) {
+        IntList postings = index.get(token);
+        if (postings != null && postings.removeValue(slot) && postings.size() == 0) {
+            index.remove(token);
+        }
+    }
+
+    private void removeTrigram(long key, int slot) {
+        IntList postings = trigrams.get(key);
+        if (postings != null && postings.removeValue(slot) && postings.size() == 0) {
+            trigrams.remove(key);
+        }
+    }
+
+    private interface TokenConsumer {
+        void accept(String token);
+    }
+
+    private interface TrigramConsumer {
+        void accept(long key);
+    }
+
+    private static void forEachToken(CharSequence folded, TokenConsumer consumer) {
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean separator = i == folded.length() || folded.charAt(i) == ' ';
+            if (separator) {
+                if (start >= 0) {
+                    consumer.accept(folded.subSequence(start, i).toString());
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+    }
+
+    private static void forEachTrigram(String folded, TrigramConsumer consumer) {
+        for (int i = 0; i + 3 <= folded.length(); i++) {
+            if (folded.charAt(i) != ' ' && folded.charAt(i + 1) != ' ' && folded.charAt(i + 2) != ' ') {
+                consumer.accept(trigramKey(folded, i));
+            }
+        }
+    }
+
+    private static long trigramKey(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static char[] buildFoldTable() {
+        char[] table = new char[0x0250];
+        for (char c = 0; c < table.length; c++) {
+            if (!Character.isLetterOrDigit(c)) {
+                table[c] = ' ';
+                continue;
+            }
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            table[c] = Character.toLowerCase(decomposed.charAt(0));
+        }
+        // Variantele cu sedilă, încă frecvente în texte românești vechi
+        table['ş'] = 's';
+        table['Ş'] = 's';
+        table['ţ'] = 't';
+        table['Ţ'] = 't';
+        return table;
+    }
+
+    /**
+     * Listă de int-uri fără boxing, folosită pentru listele de postări.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addUnique(int value) {
+            if (size == 0 || values[size - 1] != value) {
+                add(value);
+            }
+        }
+
+        int removeLast() {
+            return values[--size];
+        }
+
+        boolean removeValue(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -1,151 +1,692 @@
 package com.magsell.services;
 
 import com.magsell.database.DatabaseService;
+import com.magsell.database.RowMapper;
+import com.magsell.database.SaleWriter;
+import com.magsell.database.StockLedger;
+import com.magsell.database.StockMovement;
+import com.magsell.database.VersionConflictException;
+import com.magsell.metrics.Counter;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import com.magsell.models.Money;
 import com.magsell.models.Product;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.BiPredicate;
 
 /**
  * Serviciu pentru operații cu produse.
  * Conține logica de business pentru CRUD (Create, Read, Update, Delete) produse.
+ * SQL-ul e constant (sau dintr-un set mic de variante), ca instrucțiunile pregătite
+ * să fie refolosite din cache-ul conexiunii.
+ *
+ * Fiecare scriere pe un produs (inclusiv vânzările și importurile) crește coloana
+ * {@code version}. Editările din ferestre trec prin {@link #mergeProduct(Product, Product)}:
+ * se salvează doar dacă versiunea nu s-a schimbat de la citire, iar altfel modificările
+ * utilizatorului se recombină cu starea curentă și se reîncearcă, fără blocări.
+ * Schimbările de cantitate din editări se trec în registrul de stoc ca mișcări
+ * {@code CORRECTION}, în aceeași tranzacție. Creările, modificările și ștergerile
+ * se trec în {@link AuditLog}.
+ *
+ * Căutarea full-text ({@link #search(String, int)}) rulează în baza de date, pe indexurile
+ * FTS5 {@code products_fts} și {@code sales_notes_fts}, ținute la zi de triggere.
  */
 public class ProductService {
     private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+    private static final LatencyHistogram CREATE = Metrics.getInstance().histogram("products.create");
+    private static final LatencyHistogram GET_ALL = Metrics.getInstance().histogram("products.getAll");
+    private static final LatencyHistogram COUNT = Metrics.getInstance().histogram("products.count");
+    private static final LatencyHistogram GET_PAGE = Metrics.getInstance().histogram("products.getPage");
+    private static final LatencyHistogram GET_BY_ID = Metrics.getInstance().histogram("products.getById");
+    private static final LatencyHistogram GET_BY_IDS = Metrics.getInstance().histogram("products.getByIds");
+    private static final LatencyHistogram GET_VERSIONED = Metrics.getInstance().histogram("products.getVersioned");
+    private static final LatencyHistogram COMPARE_AND_SET = Metrics.getInstance().histogram("products.compareAndSet");
+    private static final LatencyHistogram UPDATE = Metrics.getInstance().histogram("products.update");
+    private static final LatencyHistogram DELETE = Metrics.getInstance().histogram("products.delete");
+    private static final LatencyHistogram GET_CATEGORIES = Metrics.getInstance().histogram("products.getCategories");
+    private static final LatencyHistogram MERGE = Metrics.getInstance().histogram("products.merge");
+    private static final Counter MERGE_RETRIES = Metrics.getInstance().counter("products.mergeRetries");
+    private static final LatencyHistogram SEARCH = Metrics.getInstance().histogram("products.search");
     private final DatabaseService dbService = DatabaseService.getInstance();
+    private final AuditLog audit = AuditLog.getInstance();
 
     /**
-     * Creează un produs nou.
+     * Mapează o linie din rezultatul query-ului la un obiect Product.
+     */
+    static final RowMapper<Product> PRODUCT_ROWS = new RowMapper<>(
+            "id", "name", "description", "price_bani", "quantity", "category", "created_at", "updated_at") {
+        @Override
+        protected Product map(Row row) throws SQLException {
+            Product p = new Product();
+            p.setId(row.getInt(0));
+            p.setName(row.getString(1));
+            p.setDescription(row.getString(2));
+            // Modelul păstrează prețul ca BigDecimal; coloana e în bani
+            p.setPrice(row.getMoney(3).toBigDecimal());
+            p.setQuantity(row.getInt(4));
+            p.setCategory(row.getPooledString(5));
+            p.setCreatedAt(row.getTimestamp(6));
+            p.setUpdatedAt(row.getTimestamp(7));
+            return p;
+        }
+    };
+    private static final String SELECT_PRODUCTS = "SELECT " + PRODUCT_ROWS.columns() + " FROM products";
+
+    /**
+     * Produsul împreună cu versiunea rândului din momentul citirii.
+     */
+    public record VersionedProduct(Product product, long version) {
+    }
+
+    private static final RowMapper<VersionedProduct> VERSIONED_ROWS = new RowMapper<>(
+            "id", "name", "description", "price_bani", "quantity", "category", "created_at", "updated_at", "version") {
+        @Override
+        protected VersionedProduct map(Row row) throws SQLException {
+            // Primele coloane sunt cele din PRODUCT_ROWS, în aceeași ordine
+            return new VersionedProduct(PRODUCT_ROWS.mapCurrent(row), row.getLong(8));
+        }
+    };
+    private static final String COMPARE_AND_SET_SQL =
+            "UPDATE products SET name = ?, description = ?, price_bani = ?, quantity = ?, category = ?, "
+            + "version = version + 1, updated_at = ? WHERE id = ? AND version = ?";
+    // De câte ori se recombină o editare cu scrieri concurente înainte de a renunța
+    private static final int MERGE_ATTEMPTS = 5;
+    private static final BiPredicate<Object, Object> EQUAL = Objects::equals;
+    private static final BiPredicate<BigDecimal, BigDecimal> SAME_AMOUNT =
+            (a, b) -> a == null ? b == null : b != null && a.compareTo(b) == 0;
+
+    /**
+     * Leagă prețul din model (lei, BigDecimal) de coloana {@code price_bani}.
      */
+    private static void bindPrice(PreparedStatement pstmt, int index, BigDecimal price) throws SQLException {
+        if (price == null) {
+            pstmt.setNull(index, Types.INTEGER);
+        } else {
+            pstmt.setLong(index, Money.of(price).bani());
+        }
+    }
+
+    /**
+     * Creează un produs nou și îi setează ID-ul generat.
+     */
+    @SuppressWarnings("try")
     public void createProduct(Product product) throws SQLException {
-        String sql = "INSERT INTO products (name, description, price, quantity, category) VALUES (?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO products (name, description, price_bani, quantity, category) VALUES (?, ?, ?, ?, ?)";
 
-        try (Connection conn = dbService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (LatencyHistogram.Sample timing = CREATE.time();
+             Connection conn = dbService.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, product.getName());
             pstmt.setString(2, product.getDescription());
-            pstmt.setBigDecimal(3, product.getPrice());
+            bindPrice(pstmt, 3, product.getPrice());
             pstmt.setInt(4, product.getQuantity());
             pstmt.setString(5, product.getCategory());
 
             pstmt.executeUpdate();
-            logger.info("Produs creat: " + product.getName());
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    product.setId(keys.getInt(1));
+                }
+            }
+            // Mișcarea OPENING o scrie trigger-ul products_opening_stock
+            dbService.getStockLedger().apply(product.getId(), product.getQuantity());
         }
+        logger.debug("Produs creat: {}", product.getName());
+        audit.record("product.create", "product:" + product.getId(), product.getName());
     }
 
     /**
      * Obține toate produsele.
      */
+    @SuppressWarnings("try")
     public List<Product> getAllProducts() throws SQLException {
-        List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products ORDER BY name";
+        String sql = SELECT_PRODUCTS + " ORDER BY name";
 
-        try (Connection conn = dbService.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (LatencyHistogram.Sample timing = GET_ALL.time();
+             Connection conn = dbService.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            return PRODUCT_ROWS.list(rs);
+        }
+    }
 
-            while (rs.next()) {
-                Product p = mapRowToProduct(rs);
-                products.add(p);
+    /**
+     * Filtru pentru paginarea produselor: categorie exactă și/sau început de nume.
+     * Câmpurile null nu filtrează.
+     */
+    public record PageFilter(String category, String namePrefix) {
+        public static final PageFilter NONE = new PageFilter(null, null);
+    }
+
+    /**
+     * Numără produsele care trec de filtru.
+     */
+    @SuppressWarnings("try")
+    public int countProducts(PageFilter filter) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM products" + whereClause(filter, params, false);
+
+        try (LatencyHistogram.Sample timing = COUNT.time();
+             Connection conn = dbService.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bind(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
             }
         }
-        return products;
+    }
+
+    /**
+     * Obține pagina de produse care urmează după cheia (afterName, afterId), în ordinea numelui.
+     * Paginare keyset: costul nu crește cu numărul paginii, spre deosebire de OFFSET.
+     * Pentru prima pagină, afterName este null.
+     */
+    public List<Product> getProductsPage(String afterName, int afterId, int limit, PageFilter filter) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(SELECT_PRODUCTS);
+        sql.append(whereClause(filter, params, afterName != null));
+        if (afterName != null) {
+            params.add(afterName);
+            params.add(afterName);
+            params.add(afterId);
+        }
+        sql.append(" ORDER BY name, id LIMIT ?");
+        params.add(limit);
+        return queryProducts(sql.toString(), params);
+    }
+
+    /**
+     * Obține o pagină de produse de la poziția dată. Se folosește doar când cheia
+     * paginii anterioare nu e cunoscută (ex. salt direct în mijlocul listei).
+     */
+    public List<Product> getProductsPageAt(int offset, int limit, PageFilter filter) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = SELECT_PRODUCTS + whereClause(filter, params, false) + " ORDER BY name, id LIMIT ? OFFSET ?";
+        params.add(limit);
+        params.add(offset);
+        return queryProducts(sql, params);
+    }
+
+    private String whereClause(PageFilter filter, List<Object> params, boolean afterKey) {
+        List<String> conditions = new ArrayList<>();
+        if (filter != null && filter.category() != null && !filter.category().isEmpty()) {
+            conditions.add("category = ?");
+            params.add(filter.category());
+        }
+        if (filter != null && filter.namePrefix() != null && !filter.namePrefix().isEmpty()) {
+            conditions.add("name >= ? AND name < ?");
+            params.add(filter.namePrefix());
+            params.add(filter.namePrefix() + Character.MAX_VALUE);
+        }
+        if (afterKey) {
+            conditions.add("(name > ? OR (name = ? AND id > ?))");
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    @SuppressWarnings("try")
+    private List<Product> queryProducts(String sql, List<Object> params) throws SQLException {
+        try (LatencyHistogram.Sample timing = GET_PAGE.time();
+             Connection conn = dbService.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bind(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return PRODUCT_ROWS.list(rs);
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            pstmt.setObject(i + 1, params.get(i));
+        }
     }
 
     /**
      * Obține un produs după ID.
      */
+    @SuppressWarnings("try")
     public Product getProductById(int id) throws SQLException {
-        String sql = "SELECT * FROM products WHERE id = ?";
+        String sql = SELECT_PRODUCTS + " WHERE id = ?";
 
-        try (Connection conn = dbService.getConnection();
+        try (LatencyHistogram.Sample timing = GET_BY_ID.time();
+             Connection conn = dbService.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
 
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapRowToProduct(rs);
+                return PRODUCT_ROWS.first(rs);
+            }
+        }
+    }
+
+    /**
+     * Obține produsele cu ID-urile date, citite pe aceeași conexiune.
+     * Produsele care nu mai există lipsesc din rezultat.
+     */
+    @SuppressWarnings("try")
+    public List<Product> getProducts(Collection<Integer> ids) throws SQLException {
+        String sql = SELECT_PRODUCTS + " WHERE id = ?";
+
+        List<Product> products = new ArrayList<>(ids.size());
+        try (LatencyHistogram.Sample timing = GET_BY_IDS.time();
+             Connection conn = dbService.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int id : ids) {
+                pstmt.setInt(1, id);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    Product product = PRODUCT_ROWS.first(rs);
+                    if (product != null) {
+                        products.add(product);
+                    }
                 }
             }
         }
-        return null;
+        return products;
     }
 
     /**
-     * Actualizează un produs.
+     * Obține un produs după ID, cu versiunea rândului.
      */
-    public void updateProduct(Product product) throws SQLException {
-        String sql = "UPDATE products SET name = ?, description = ?, price = ?, quantity = ?, category = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+    @SuppressWarnings("try")
+    public VersionedProduct getVersionedProduct(int id) throws SQLException {
+        String sql = "SELECT " + VERSIONED_ROWS.columns() + " FROM products WHERE id = ?";
 
-        try (Connection conn = dbService.getConnection();
+        try (LatencyHistogram.Sample timing = GET_VERSIONED.time();
+             Connection conn = dbService.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, product.getName());
-            pstmt.setString(2, product.getDescription());
-            pstmt.setBigDecimal(3, product.getPrice());
-            pstmt.setInt(4, product.getQuantity());
-            pstmt.setString(5, product.getCategory());
-            pstmt.setInt(6, product.getId());
+            pstmt.setInt(1, id);
 
-            pstmt.executeUpdate();
-            logger.info("Produs actualizat: " + product.getName());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return VERSIONED_ROWS.first(rs);
+            }
         }
     }
 
+    /**
+     * Actualizează produsul doar dacă rândul are încă versiunea dată.
+     *
+     * @return versiunea nouă a rândului
+     * @throws VersionConflictException dacă produsul a fost modificat sau șters între timp
+     */
+    public long updateProduct(Product product, long expectedVersion) throws SQLException {
+        if (!compareAndSet(product, expectedVersion)) {
+            throw new VersionConflictException(product.getId(), List.of());
+        }
+        logger.debug("Produs actualizat: {} v{}", product.getName(), expectedVersion + 1);
+        audit.record("product.update", "product:" + product.getId(), "v" + (expectedVersion + 1));
+        return expectedVersion + 1;
+    }
+
+    /**
+     * Salvează editarea unui produs: {@code base} e produsul așa cum l-a văzut utilizatorul
+     * la deschiderea editorului, {@code edited} e ce a salvat. Câmpurile neschimbate de
+     * utilizator își păstrează valoarea curentă din baza de date, iar cantitatea se aplică
+     * ca diferență față de {@code base}, deci vânzările făcute între timp nu se pierd.
+     * Dacă rândul se schimbă între citire și scriere, combinarea se reia.
+     *
+     * @return produsul salvat, cu versiunea nouă
+     * @throws VersionConflictException dacă același câmp a fost schimbat diferit între timp,
+     *         dacă stocul ar deveni negativ sau dacă reîncercările s-au epuizat
+     */
+    @SuppressWarnings("try")
+    public VersionedProduct mergeProduct(Product base, Product edited) throws SQLException {
+        try (LatencyHistogram.Sample timing = MERGE.time()) {
+            return mergeWithRetries(base, edited);
+        }
+    }
+
+    private VersionedProduct mergeWithRetries(Product base, Product edited) throws SQLException {
+        for (int attempt = 0; attempt < MERGE_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                MERGE_RETRIES.increment();
+            }
+            VersionedProduct current = getVersionedProduct(base.getId());
+            if (current == null) {
+                throw new SQLException("Produsul nu mai există: " + base.getName());
+            }
+            List<String> conflicts = new ArrayList<>();
+            Product merged = merge(base, edited, current.product(), conflicts);
+            if (!conflicts.isEmpty()) {
+                throw new VersionConflictException(base.getId(), conflicts);
+            }
+            if (compareAndSet(merged, current.version())) {
+                logger.debug("Produs actualizat: {} v{} după {} reîncercări",
+                        merged.getName(), current.version() + 1, attempt);
+                audit.record("product.update", "product:" + merged.getId(), "v" + (current.version() + 1));
+                return new VersionedProduct(merged, current.version() + 1);
+            }
+        }
+        throw new VersionConflictException(base.getId(), List.of());
+    }
+
+    @SuppressWarnings("try")
+    private boolean compareAndSet(Product product, long expectedVersion) throws SQLException {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).withNano(0);
+
+        try (LatencyHistogram.Sample timing = COMPARE_AND_SET.time();
+             Connection conn = dbService.getConnection()) {
+            conn.setAutoCommit(false);
+            int delta;
+            try {
+                Integer quantity = currentQuantity(conn, product.getId(), expectedVersion);
+                if (quantity == null) {
+                    conn.rollback();
+                    return false;
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(COMPARE_AND_SET_SQL)) {
+                    pstmt.setString(1, product.getName());
+                    pstmt.setString(2, product.getDescription());
+                    bindPrice(pstmt, 3, product.getPrice());
+                    pstmt.setInt(4, product.getQuantity());
+                    pstmt.setString(5, product.getCategory());
+                    pstmt.setString(6, SaleWriter.SQLITE_TIMESTAMP.format(now));
+                    pstmt.setInt(7, product.getId());
+                    pstmt.setLong(8, expectedVersion);
+                    pstmt.executeUpdate();
+                }
+                delta = recordCorrection(conn, product, quantity, now);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            dbService.getStockLedger().apply(product.getId(), delta);
+        }
+        product.setUpdatedAt(now);
+        return true;
+    }
+
+    /**
+     * Cantitatea curentă a produsului, citită în tranzacția de scriere; null dacă produsul
+     * nu există sau (când {@code expectedVersion} nu e null) are altă versiune.
+     */
+    private static Integer currentQuantity(Connection conn, int id, Long expectedVersion) throws SQLException {
+        String sql = expectedVersion != null
+                ? "SELECT quantity FROM products WHERE id = ? AND version = ?"
+                : "SELECT quantity FROM products WHERE id = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, id);
+            if (expectedVersion != null) {
+                pstmt.setLong(2, expectedVersion);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Trece în registrul de stoc diferența dintre cantitatea salvată și cea de dinainte.
+     *
+     * @return diferența, de aplicat în soldurile din memorie după commit
+     */
+    private static int recordCorrection(Connection conn, Product product, int previousQuantity,
+                                        LocalDateTime now) throws SQLException {
+        int delta = product.getQuantity() - previousQuantity;
+        if (delta != 0) {
+            StockLedger.insert(conn, product.getId(), StockMovement.Type.CORRECTION, delta, now, null);
+        }
+        return delta;
+    }
+
+    /**
+     * Combinare în trei căi: pornește de la starea curentă și aplică doar câmpurile
+     * schimbate de utilizator față de {@code base}. Câmpurile schimbate și de utilizator,
+     * și de altcineva (cu valori diferite) se adaugă în {@code conflicts}.
+     */
+    private static Product merge(Product base, Product edited, Product current, List<String> conflicts) {
+        Product merged = ProductCatalog.copyOf(current);
+        merged.setName(pick("name", base.getName(), edited.getName(), current.getName(), EQUAL, conflicts));
+        merged.setDescription(pick("description", base.getDescription(), edited.getDescription(),
+                current.getDescription(), EQUAL, conflicts));
+        merged.setPrice(pick("price", base.getPrice(), edited.getPrice(), current.getPrice(), SAME_AMOUNT, conflicts));
+        merged.setCategory(pick("category", base.getCategory(), edited.getCategory(), current.getCategory(),
+                EQUAL, conflicts));
+
+        int quantity = current.getQuantity() + (edited.getQuantity() - base.getQuantity());
+        if (quantity < 0 && edited.getQuantity() != base.getQuantity()) {
+            conflicts.add("quantity");
+        } else {
+            merged.setQuantity(quantity);
+        }
+        return merged;
+    }
+
+    private static <T> T pick(String field, T base, T edited, T current,
+                              BiPredicate<? super T, ? super T> same, List<String> conflicts) {
+        if (same.test(edited, base) || same.test(edited, current)) {
+            return current;
+        }
+        if (same.test(current, base)) {
+            return edited;
+        }
+        conflicts.add(field);
+        return current;
+    }
+
+    /**
+     * Actualizează un produs, indiferent de versiune (ultima scriere câștigă).
+     * Editările din interfață folosesc {@link #mergeProduct(Product, Product)}.
+     */
+    @SuppressWarnings("try")
+    public void updateProduct(Product product) throws SQLException {
+        String sql = "UPDATE products SET name = ?, description = ?, price_bani = ?, quantity = ?, category = ?, "
+                + "version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+        try (LatencyHistogram.Sample timing = UPDATE.time();
+             Connection conn = dbService.getConnection()) {
+            conn.setAutoCommit(false);
+            int delta;
+            try {
+                Integer quantity = currentQuantity(conn, product.getId(), null);
+                if (quantity == null) {
+                    conn.rollback();
+                    return;
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, product.getName());
+                    pstmt.setString(2, product.getDescription());
+                    bindPrice(pstmt, 3, product.getPrice());
+                    pstmt.setInt(4, product.getQuantity());
+                    pstmt.setString(5, product.getCategory());
+                    pstmt.setInt(6, product.getId());
+                    pstmt.executeUpdate();
+                }
+                delta = recordCorrection(conn, product, quantity, LocalDateTime.now(ZoneOffset.UTC));
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            dbService.getStockLedger().apply(product.getId(), delta);
+        }
+        logger.debug("Produs actualizat: {}", product.getName());
+        audit.record("product.update", "product:" + product.getId());
+    }
+
     /**
      * Șterge un produs.
      */
+    @SuppressWarnings("try")
     public void deleteProduct(int id) throws SQLException {
         String sql = "DELETE FROM products WHERE id = ?";
 
-        try (Connection conn = dbService.getConnection();
+        try (LatencyHistogram.Sample timing = DELETE.time();
+             Connection conn = dbService.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
-            logger.info("Produs șters cu ID: " + id);
+            dbService.getStockLedger().forget(id);
         }
+        logger.debug("Produs șters cu ID: {}", id);
+        audit.record("product.delete", "product:" + id);
     }
 
     /**
      * Obține lista de categorii disponibile.
      */
+    @SuppressWarnings("try")
     public List<String> getCategories() throws SQLException {
         List<String> categories = new ArrayList<>();
         String sql = "SELECT DISTINCT category FROM products WHERE category IS NOT NULL ORDER BY category";
 
-        try (Connection conn = dbService.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (LatencyHistogram.Sample timing = GET_CATEGORIES.time();
+             Connection conn = dbService.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
-                categories.add(rs.getString("category"));
+                categories.add(rs.getString(1));
             }
         }
         return categories;
     }
 
     /**
-     * Mapează o linie din rezultatul query-ului la un obiect Product.
+     * Marcajele cu care {@link #search(String, int)} evidențiază termenii găsiți în fragmente.
+     */
+    public static final String HIGHLIGHT_START = "[";
+    public static final String HIGHLIGHT_END = "]";
+    private static final int SNIPPET_TOKENS = 12;
+
+    /**
+     * Un produs găsit, cu fragmentul din nume, descriere sau categorie care se potrivește.
+     */
+    public record ProductHit(Product product, String snippet) {
+    }
+
+    /**
+     * O linie de vânzare a cărei notă se potrivește, cu fragmentul din notă.
+     */
+    public record SaleNoteHit(long saleId, int productId, String productName, LocalDateTime saleDate,
+                              String snippet) {
+    }
+
+    /**
+     * Rezultatele unei căutări, fiecare listă în ordinea relevanței (BM25).
+     */
+    public record SearchResults(List<ProductHit> products, List<SaleNoteHit> saleNotes) {
+        public static final SearchResults EMPTY = new SearchResults(List.of(), List.of());
+    }
+
+    private static final RowMapper<ProductHit> PRODUCT_HITS = new RowMapper<>(
+            "id", "name", "description", "price_bani", "quantity", "category", "created_at", "updated_at", "snippet") {
+        @Override
+        protected ProductHit map(Row row) throws SQLException {
+            // Primele coloane sunt cele din PRODUCT_ROWS, în aceeași ordine
+            return new ProductHit(PRODUCT_ROWS.mapCurrent(row), row.getString(8));
+        }
+    };
+
+    private static final RowMapper<SaleNoteHit> SALE_NOTE_HITS = new RowMapper<>(
+            "id", "product_id", "product_name", "sale_date", "snippet") {
+        @Override
+        protected SaleNoteHit map(Row row) throws SQLException {
+            return new SaleNoteHit(row.getLong(0), row.getInt(1), row.getString(2), row.getTimestamp(3),
+                    row.getString(4));
+        }
+    };
+
+    // ORDER BY pe coloana ascunsă rank lasă FTS5 să sorteze singur, iar snippet() se calculează
+    // doar pentru rândurile întoarse, nu pentru toate potrivirile. La produse numele cântărește
+    // cel mai mult, apoi categoria, apoi descrierea.
+    private static final String SEARCH_PRODUCTS_SQL = "SELECT " + PRODUCT_HITS.columns() + " FROM products JOIN ("
+            + "SELECT rowid AS hit_id, rank AS hit_rank, "
+            + "snippet(products_fts, -1, '" + HIGHLIGHT_START + "', '" + HIGHLIGHT_END + "', '…', "
+            + SNIPPET_TOKENS + ") AS snippet "
+            + "FROM products_fts WHERE products_fts MATCH ? AND rank MATCH 'bm25(10.0, 1.0, 3.0)' "
+            + "ORDER BY rank LIMIT ?"
+            + ") ON id = hit_id ORDER BY hit_rank";
+    private static final String SEARCH_SALE_NOTES_SQL = "SELECT " + SALE_NOTE_HITS.columns() + " FROM sales JOIN ("
+            + "SELECT rowid AS hit_id, rank AS hit_rank, "
+            + "snippet(sales_notes_fts, 0, '" + HIGHLIGHT_START + "', '" + HIGHLIGHT_END + "', '…', "
+            + SNIPPET_TOKENS + ") AS snippet "
+            + "FROM sales_notes_fts WHERE sales_notes_fts MATCH ? ORDER BY rank LIMIT ?"
+            + ") ON id = hit_id ORDER BY hit_rank";
+
+    /**
+     * Caută în produse (nume, descriere, categorie) și în notele vânzărilor. Se potrivesc
+     * rândurile care conțin toate cuvintele, fără a ține cont de majuscule sau diacritice;
+     * ultimul cuvânt poate fi doar începutul unui cuvânt, pentru căutarea în timpul tastării.
+     * Se întorc cel mult {@code limit} rezultate din fiecare sursă.
      */
-    private Product mapRowToProduct(ResultSet rs) throws SQLException {
-        Product p = new Product();
-        p.setId(rs.getInt("id"));
-        p.setName(rs.getString("name"));
-        p.setDescription(rs.getString("description"));
-        p.setPrice(rs.getBigDecimal("price"));
-        p.setQuantity(rs.getInt("quantity"));
-        p.setCategory(rs.getString("category"));
-        try {
-            p.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-            p.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
-        } catch (Exception ignored) {
-        }
-        return p;
+    @SuppressWarnings("try")
+    public SearchResults search(String query, int limit) throws SQLException {
+        String match = toMatchExpression(query);
+        if (match == null || limit <= 0) {
+            return SearchResults.EMPTY;
+        }
+
+        try (LatencyHistogram.Sample timing = SEARCH.time();
+             Connection conn = dbService.getReadConnection()) {
+            return new SearchResults(
+                    searchIndex(conn, SEARCH_PRODUCTS_SQL, PRODUCT_HITS, match, limit),
+                    searchIndex(conn, SEARCH_SALE_NOTES_SQL, SALE_NOTE_HITS, match, limit));
+        }
+    }
+
+    private static <T> List<T> searchIndex(Connection conn, String sql, RowMapper<T> mapper, String match, int limit)
+            throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, match);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return mapper.list(rs);
+            }
+        }
+    }
+
+    /**
+     * Transformă textul introdus într-o expresie FTS5: fiecare cuvânt devine un termen între
+     * ghilimele, așa că operatorii și semnele de punctuație din text nu au efect. Întoarce null
+     * dacă textul nu conține niciun cuvânt.
+     */
+    static String toMatchExpression(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        int i = 0;
+        int length = query.length();
+        while (i < length) {
+            if (!isWordChar(query.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && isWordChar(query.charAt(i))) {
+                i++;
+            }
+            if (!match.isEmpty()) {
+                match.append(' ');
+            }
+            match.append('"').append(query, start, i).append('"');
+        }
+        return match.isEmpty() ? null : match.append('*').toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        // Diacriticele scrise ca semne combinate (ex. „a” + breve) rămân în cuvânt
+        return Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK;
     }
 }
@@ -0,0 +1,160 @@
+package com.magsell.services;
+
+import com.magsell.database.DatabaseService;
+import com.magsell.database.RowMapper;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import com.magsell.models.Money;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Rapoarte de vânzări: încasări pe perioade, cele mai vândute produse, vânzări pe categorii.
+ *
+ * Rapoartele citesc doar agregatele zilnice ({@code sales_daily*}), actualizate de
+ * {@link com.magsell.database.SaleWriter} în tranzacția fiecărei vânzări. Costul unui
+ * raport depinde de numărul de zile din interval, nu de numărul de vânzări din istoric.
+ *
+ * Marja se calculează doar pentru liniile vândute cu preț de cost cunoscut; dacă
+ * niciuna nu are cost, marja este null.
+ */
+public class ReportService {
+    private static final LatencyHistogram QUERY = Metrics.getInstance().histogram("reports.query");
+    private final DatabaseService dbService = DatabaseService.getInstance();
+
+    /**
+     * Granularitatea raportului pe perioade; expresia SQL dă prima zi a perioadei.
+     */
+    public enum Granularity {
+        DAY("day"),
+        // Săptămâna începe lunea
+        WEEK("date(day, '-' || ((CAST(strftime('%w', day) AS INTEGER) + 6) % 7) || ' days')"),
+        MONTH("substr(day, 1, 7) || '-01'"),
+        YEAR("substr(day, 1, 4) || '-01-01'");
+
+        private final String periodStart;
+
+        Granularity(String periodStart) {
+            this.periodStart = periodStart;
+        }
+    }
+
+    /**
+     * Totalurile unei perioade care începe la {@code periodStart}.
+     */
+    public record PeriodSales(LocalDate periodStart, int receipts, int quantity, Money revenue, Money margin) {
+    }
+
+    public record ProductSales(int productId, String productName, String category, int quantity,
+                               Money revenue, Money margin) {
+    }
+
+    public record CategorySales(String category, int quantity, Money revenue, Money margin) {
+    }
+
+    private static final RowMapper<PeriodSales> PERIOD_ROWS = new RowMapper<>(
+            "period", "receipts", "quantity", "revenue_bani", "costed_revenue_bani", "cost_bani") {
+        @Override
+        protected PeriodSales map(Row row) throws SQLException {
+            return new PeriodSales(LocalDate.parse(row.getString(0)), row.getInt(1), row.getInt(2),
+                    Money.ofBani(row.getLong(3)), margin(row.getLong(4), row.getLong(5)));
+        }
+    };
+
+    private static final RowMapper<ProductSales> PRODUCT_ROWS = new RowMapper<>(
+            "product_id", "product_name", "category", "quantity", "revenue_bani", "costed_revenue_bani", "cost_bani") {
+        @Override
+        protected ProductSales map(Row row) throws SQLException {
+            return new ProductSales(row.getInt(0), row.getString(1), row.getPooledString(2), row.getInt(3),
+                    Money.ofBani(row.getLong(4)), margin(row.getLong(5), row.getLong(6)));
+        }
+    };
+
+    private static final RowMapper<CategorySales> CATEGORY_ROWS = new RowMapper<>(
+            "category", "quantity", "revenue_bani", "costed_revenue_bani", "cost_bani") {
+        @Override
+        protected CategorySales map(Row row) throws SQLException {
+            return new CategorySales(row.getPooledString(0), row.getInt(1),
+                    Money.ofBani(row.getLong(2)), margin(row.getLong(3), row.getLong(4)));
+        }
+    };
+
+    private static final String SUM_LINE_TOTALS =
+            "SUM(quantity) AS quantity, SUM(revenue_bani) AS revenue_bani, "
+            + "SUM(costed_revenue_bani) AS costed_revenue_bani, SUM(cost_bani) AS cost_bani";
+
+    /**
+     * Încasările pe zile, săptămâni, luni sau ani, între {@code from} și {@code to} inclusiv.
+     * Perioadele fără vânzări lipsesc din rezultat.
+     */
+    public List<PeriodSales> getSalesByPeriod(LocalDate from, LocalDate to, Granularity granularity) throws SQLException {
+        String sql = "SELECT " + granularity.periodStart + " AS period, SUM(receipts) AS receipts, " + SUM_LINE_TOTALS
+                + " FROM sales_daily WHERE day BETWEEN ? AND ? GROUP BY period ORDER BY period";
+        return query(sql, PERIOD_ROWS, from, to);
+    }
+
+    /**
+     * Totalul pe tot intervalul, sau null dacă nu există vânzări.
+     */
+    @SuppressWarnings("try")
+    public PeriodSales getTotals(LocalDate from, LocalDate to) throws SQLException {
+        String sql = "SELECT ? AS period, SUM(receipts) AS receipts, " + SUM_LINE_TOTALS
+                + " FROM sales_daily WHERE day BETWEEN ? AND ? HAVING COUNT(*) > 0";
+        try (LatencyHistogram.Sample timing = QUERY.time();
+             Connection conn = dbService.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, from.toString());
+            pstmt.setString(2, from.toString());
+            pstmt.setString(3, to.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return PERIOD_ROWS.first(rs);
+            }
+        }
+    }
+
+    /**
+     * Cele mai vândute produse din interval, după încasări.
+     */
+    public List<ProductSales> getTopProducts(LocalDate from, LocalDate to, int limit) throws SQLException {
+        String sql = "SELECT product_id, MAX(product_name) AS product_name, MAX(category) AS category, " + SUM_LINE_TOTALS
+                + " FROM sales_daily_product WHERE day BETWEEN ? AND ?"
+                + " GROUP BY product_id ORDER BY revenue_bani DESC LIMIT ?";
+        return query(sql, PRODUCT_ROWS, from, to, limit);
+    }
+
+    /**
+     * Vânzările pe categorii din interval, după încasări.
+     */
+    public List<CategorySales> getSalesByCategory(LocalDate from, LocalDate to) throws SQLException {
+        String sql = "SELECT category, " + SUM_LINE_TOTALS
+                + " FROM sales_daily_category WHERE day BETWEEN ? AND ?"
+                + " GROUP BY category ORDER BY revenue_bani DESC";
+        return query(sql, CATEGORY_ROWS, from, to);
+    }
+
+    @SuppressWarnings("try")
+    private <T> List<T> query(String sql, RowMapper<T> mapper, LocalDate from, LocalDate to, Object... extra)
+            throws SQLException {
+        try (LatencyHistogram.Sample timing = QUERY.time();
+             Connection conn = dbService.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, from.toString());
+            pstmt.setString(2, to.toString());
+            for (int i = 0; i < extra.length; i++) {
+                pstmt.setObject(i + 3, extra[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return mapper.list(rs);
+            }
+        }
+    }
+
+    private static Money margin(long costedRevenueBani, long costBani) {
+        return costedRevenueBani == 0 ? null : Money.ofBani(costedRevenueBani - costBani);
+    }
+}
@@ -0,0 +1,437 @@
+package com.magsell.services;
+
+import com.magsell.database.DatabaseService;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import com.magsell.models.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Depozit de analiză în memorie pentru tabloul de bord: toate liniile din {@code sales},
+ * pe coloane de tipuri primitive, agregate pe oră, zi, lună, produs sau categorie.
+ *
+ * Fiecare linie ocupă {@value #BYTES_PER_ROW} octeți: minutul local (minute de la 1970, în
+ * ora locală, ca zilele din rapoarte), codul produsului, cantitatea și totalul în bani. Numele
+ * produselor și ale categoriilor se țin o singură dată, în dicționare; codul produsului
+ * indică și categoria lui curentă. Coloanele cresc cu 50% când se umplu, deci memoria e de
+ * cel mult 1,5 × {@value #BYTES_PER_ROW} octeți pe linie ({@code analytics.bytes}).
+ *
+ * {@link #refresh()} citește doar liniile cu ID mai mare decât ultimul văzut. Liniile deja
+ * încărcate nu se mai schimbă (vânzările nu se modifică și nu se șterg), deci o agregare
+ * lucrează pe instantaneul publicat la ultima reîmprospătare, fără blocări, și se împarte
+ * în bucăți de {@value #SPLIT} linii agregate în paralel în pool-ul fork-join comun.
+ */
+public final class SalesAnalytics {
+    private static final Logger logger = LoggerFactory.getLogger(SalesAnalytics.class);
+    private static final int BYTES_PER_ROW = 4 + 4 + 4 + 8;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int SPLIT = 1 << 16;
+    private static final LatencyHistogram REFRESH = Metrics.getInstance().histogram("analytics.refresh");
+    private static final LatencyHistogram AGGREGATE = Metrics.getInstance().histogram("analytics.aggregate");
+    // Linii noi, în ordinea ID-ului; minutul se calculează direct în SQLite
+    private static final String NEW_SALES_SQL =
+            "SELECT id, product_id, quantity, total_price_bani, "
+            + "CAST(strftime('%s', sale_date) AS INTEGER) FROM sales WHERE id > ? ORDER BY id";
+    private static final String SALE_PRODUCT_NAME_SQL = "SELECT product_name FROM sales WHERE id = ?";
+    private static SalesAnalytics instance;
+
+    private final DatabaseService dbService = DatabaseService.getInstance();
+    private final ZoneRules zone = ZoneId.systemDefault().getRules();
+
+    // Scrise doar în refresh(), sub lock-ul obiectului
+    private long lastSaleId;
+    private int[] minute = new int[0];
+    private int[] product = new int[0];
+    private int[] quantity = new int[0];
+    private long[] revenueBani = new long[0];
+    private int size;
+    private final Map<Integer, Integer> productCodes = new HashMap<>();
+    private final List<Integer> productIds = new ArrayList<>();
+    private final List<String> productNames = new ArrayList<>();
+    private final List<Integer> productCategories = new ArrayList<>();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final List<String> categoryNames = new ArrayList<>();
+    // Decalajul fusului orar, valabil între două tranziții (ora de vară)
+    private long offsetFrom = Long.MAX_VALUE;
+    private long offsetTo = Long.MIN_VALUE;
+    private int offsetSeconds;
+
+    private volatile Columns columns = new Columns(0, minute, product, quantity, revenueBani,
+            new int[0], new String[0], new int[0], new String[0]);
+
+    /**
+     * Dimensiunea după care se grupează liniile.
+     */
+    public enum Dimension {
+        /** Ora din zi (0-23), pe tot intervalul. */
+        HOUR,
+        /** Ziua calendaristică. */
+        DAY,
+        /** Luna calendaristică. */
+        MONTH,
+        /** Produsul, după ID. */
+        PRODUCT,
+        /** Categoria curentă a produsului. */
+        CATEGORY
+    }
+
+    /**
+     * Totalurile unui grup. {@code label} e ora ({@code 07}), data, luna ({@code 2024-03}),
+     * numele produsului sau categoria ({@code ""} pentru produsele fără categorie).
+     */
+    public record Bucket(String label, long lines, long quantity, long revenueBani) {
+        public Money revenue() {
+            return Money.ofBani(revenueBani);
+        }
+    }
+
+    /**
+     * Instantaneu publicat: coloanele sunt citite doar până la {@code size}, iar dicționarele
+     * sunt copii, deci refresh() poate adăuga după el fără să-l afecteze.
+     */
+    private record Columns(int size, int[] minute, int[] product, int[] quantity, long[] revenueBani,
+                           int[] productIds, String[] productNames, int[] productCategories,
+                           String[] categoryNames) {
+    }
+
+    private SalesAnalytics() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.gauge("analytics.rows", () -> columns.size());
+        metrics.gauge("analytics.bytes", this::footprintBytes);
+    }
+
+    public static synchronized SalesAnalytics getInstance() {
+        if (instance == null) {
+            instance = new SalesAnalytics();
+        }
+        return instance;
+    }
+
+    /**
+     * Încarcă vânzările noi de la ultimul apel (la primul apel, tot istoricul) și
+     * actualizează numele și categoriile produselor.
+     *
+     * @return numărul de linii noi
+     */
+    @SuppressWarnings("try")
+    public synchronized int refresh() throws SQLException {
+        int before = size;
+        try (LatencyHistogram.Sample timing = REFRESH.time();
+             Connection conn = dbService.getReadConnection()) {
+            refreshProducts(conn);
+            try (PreparedStatement pstmt = conn.prepareStatement(NEW_SALES_SQL)) {
+                pstmt.setLong(1, lastSaleId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong(1);
+                        ensureCapacity(size + 1);
+                        minute[size] = localMinute(rs.getLong(5));
+                        product[size] = productCode(conn, rs.getInt(2), id);
+                        quantity[size] = rs.getInt(3);
+                        revenueBani[size] = rs.getLong(4);
+                        size++;
+                        lastSaleId = id;
+                    }
+                }
+            }
+        }
+        publish();
+        int added = size - before;
+        if (added > 0) {
+            logger.debug("Analiză vânzări: {} linii noi, {} în total", added, size);
+        }
+        return added;
+    }
+
+    /**
+     * Golește depozitul (ex. după schimbarea bazei de date); următorul refresh() reîncarcă tot.
+     */
+    public synchronized void clear() {
+        lastSaleId = 0;
+        size = 0;
+        minute = new int[0];
+        product = new int[0];
+        quantity = new int[0];
+        revenueBani = new long[0];
+        productCodes.clear();
+        productIds.clear();
+        productNames.clear();
+        productCategories.clear();
+        categoryCodes.clear();
+        categoryNames.clear();
+        publish();
+    }
+
+    /**
+     * Numărul de linii încărcate.
+     */
+    public int size() {
+        return columns.size();
+    }
+
+    /**
+     * Memoria ocupată de coloane, în octeți (fără dicționare).
+     */
+    public long footprintBytes() {
+        return (long) columns.minute().length * BYTES_PER_ROW;
+    }
+
+    /**
+     * Agregă vânzările zilelor {@code from}-{@code to} (inclusiv, ora locală) după dimensiunea
+     * dată, opțional doar pentru o categorie ({@code null} pentru toate). Grupurile fără vânzări
+     * lipsesc; cele de timp sunt în ordine cronologică, produsele și categoriile după încasări.
+     */
+    @SuppressWarnings("try")
+    public List<Bucket> aggregate(LocalDate from, LocalDate to, Dimension by, String category) {
+        Columns c = columns;
+        int categoryFilter = -1;
+        if (category != null) {
+            categoryFilter = Arrays.asList(c.categoryNames()).indexOf(category);
+            if (categoryFilter < 0) {
+                return List.of();
+            }
+        }
+        Query query = new Query(c, by, from, to, categoryFilter);
+        long[] totals;
+        try (LatencyHistogram.Sample timing = AGGREGATE.time()) {
+            totals = ForkJoinPool.commonPool().invoke(new Aggregation(query, 0, c.size()));
+        }
+
+        List<Bucket> buckets = new ArrayList<>();
+        for (int group = 0; group < query.groups; group++) {
+            long lines = totals[group * 3];
+            if (lines > 0) {
+                buckets.add(new Bucket(query.label(group), lines, totals[group * 3 + 1], totals[group * 3 + 2]));
+            }
+        }
+        if (by == Dimension.PRODUCT || by == Dimension.CATEGORY) {
+            buckets.sort(Comparator.comparingLong(Bucket::revenueBani).reversed());
+        }
+        return buckets;
+    }
+
+    private void refreshProducts(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, name, category FROM products")) {
+            while (rs.next()) {
+                Integer code = productCodes.get(rs.getInt(1));
+                if (code == null) {
+                    code = addProduct(rs.getInt(1), rs.getString(2));
+                }
+                productNames.set(code, rs.getString(2));
+                productCategories.set(code, categoryCode(rs.getString(3)));
+            }
+        }
+    }
+
+    /**
+     * Codul produsului din linie. Un produs șters între timp nu e în dicționar: primește
+     * numele din linia de vânzare și nicio categorie.
+     */
+    private int productCode(Connection conn, int productId, long saleId) throws SQLException {
+        Integer code = productCodes.get(productId);
+        if (code != null) {
+            return code;
+        }
+        String name = null;
+        try (PreparedStatement pstmt = conn.prepareStatement(SALE_PRODUCT_NAME_SQL)) {
+            pstmt.setLong(1, saleId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    name = rs.getString(1);
+                }
+            }
+        }
+        return addProduct(productId, name);
+    }
+
+    private int addProduct(int productId, String name) {
+        int code = productIds.size();
+        productCodes.put(productId, code);
+        productIds.add(productId);
+        productNames.add(name);
+        productCategories.add(categoryCode(null));
+        return code;
+    }
+
+    private int categoryCode(String category) {
+        return categoryCodes.computeIfAbsent(category != null ? category : "", name -> {
+            categoryNames.add(name);
+            return categoryNames.size() - 1;
+        });
+    }
+
+    private int localMinute(long epochSecond) {
+        if (epochSecond < offsetFrom || epochSecond >= offsetTo) {
+            Instant at = Instant.ofEpochSecond(epochSecond);
+            offsetSeconds = zone.getOffset(at).getTotalSeconds();
+            ZoneOffsetTransition previous = zone.previousTransition(at.plusSeconds(1));
+            ZoneOffsetTransition next = zone.nextTransition(at);
+            offsetFrom = previous != null ? previous.toEpochSecond() : Long.MIN_VALUE;
+            offsetTo = next != null ? next.toEpochSecond() : Long.MAX_VALUE;
+        }
+        return (int) Math.floorDiv(epochSecond + offsetSeconds, 60);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= minute.length) {
+            return;
+        }
+        int capacity = Math.max(INITIAL_CAPACITY, Math.max(needed, minute.length + (minute.length >> 1)));
+        minute = Arrays.copyOf(minute, capacity);
+        product = Arrays.copyOf(product, capacity);
+        quantity = Arrays.copyOf(quantity, capacity);
+        revenueBani = Arrays.copyOf(revenueBani, capacity);
+    }
+
+    private void publish() {
+        int[] categories = new int[productCategories.size()];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = productCategories.get(i);
+        }
+        columns = new Columns(size, minute, product, quantity, revenueBani,
+                productIds.stream().mapToInt(Integer::intValue).toArray(),
+                productNames.toArray(new String[0]), categories, categoryNames.toArray(new String[0]));
+    }
+
+    /**
+     * O agregare: intervalul în minute locale și funcția linie → grup.
+     */
+    private static final class Query {
+        final Columns columns;
+        final Dimension by;
+        final int fromMinute;
+        final int toMinute;
+        final int categoryFilter;
+        final int groups;
+        final LocalDate from;
+        final long fromDay;
+        final YearMonth fromMonth;
+        // Pentru MONTH: luna fiecărei zi din interval, ca linia să nu construiască date
+        final int[] monthOfDay;
+
+        Query(Columns columns, Dimension by, LocalDate from, LocalDate to, int categoryFilter) {
+            this.columns = columns;
+            this.by = by;
+            this.from = from;
+            this.categoryFilter = categoryFilter;
+            this.fromDay = from.toEpochDay();
+            this.fromMinute = (int) (fromDay * 1440);
+            this.toMinute = (int) ((to.toEpochDay() + 1) * 1440);
+            this.fromMonth = YearMonth.from(from);
+            this.groups = switch (by) {
+                case HOUR -> 24;
+                case DAY -> (int) Math.max(0, ChronoUnit.DAYS.between(from, to) + 1);
+                case MONTH -> (int) Math.max(0, ChronoUnit.MONTHS.between(fromMonth, YearMonth.from(to)) + 1);
+                case PRODUCT -> columns.productIds().length;
+                case CATEGORY -> columns.categoryNames().length;
+            };
+            if (by == Dimension.MONTH) {
+                monthOfDay = new int[(int) Math.max(0, ChronoUnit.DAYS.between(from, to) + 1)];
+                for (int i = 0; i < monthOfDay.length; i++) {
+                    monthOfDay[i] = (int) ChronoUnit.MONTHS.between(fromMonth, YearMonth.from(from.plusDays(i)));
+                }
+            } else {
+                monthOfDay = null;
+            }
+        }
+
+        /**
+         * Grupul liniei, sau -1 dacă linia nu intră în agregare.
+         */
+        int group(int row) {
+            int m = columns.minute()[row];
+            if (m < fromMinute || m >= toMinute) {
+                return -1;
+            }
+            int code = columns.product()[row];
+            if (categoryFilter >= 0 && columns.productCategories()[code] != categoryFilter) {
+                return -1;
+            }
+            return switch (by) {
+                case HOUR -> (m / 60) % 24;
+                case DAY -> (int) (m / 1440 - fromDay);
+                case MONTH -> monthOfDay[(int) (m / 1440 - fromDay)];
+                case PRODUCT -> code;
+                case CATEGORY -> columns.productCategories()[code];
+            };
+        }
+
+        String label(int group) {
+            return switch (by) {
+                case HOUR -> String.format("%02d", group);
+                case DAY -> from.plusDays(group).toString();
+                case MONTH -> fromMonth.plusMonths(group).toString();
+                case PRODUCT -> columns.productNames()[group];
+                case CATEGORY -> columns.categoryNames()[group];
+            };
+        }
+    }
+
+    /**
+     * Agregă liniile {@code [from, to)}: pentru fiecare grup, linii, cantitate și bani,
+     * la pozițiile {@code 3 * grup}, {@code +1}, {@code +2}.
+     */
+    // RecursiveTask e Serializable, dar sarcina nu se serializează niciodată
+    @SuppressWarnings("serial")
+    private static final class Aggregation extends RecursiveTask<long[]> {
+        private final Query query;
+        private final int from;
+        private final int to;
+
+        Aggregation(Query query, int from, int to) {
+            this.query = query;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > SPLIT) {
+                int middle = (from + to) >>> 1;
+                Aggregation left = new Aggregation(query, from, middle);
+                left.fork();
+                long[] right = new Aggregation(query, middle, to).compute();
+                long[] totals = left.join();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += right[i];
+                }
+                return totals;
+            }
+            long[] totals = new long[query.groups * 3];
+            int[] quantity = query.columns.quantity();
+            long[] revenueBani = query.columns.revenueBani();
+            for (int row = from; row < to; row++) {
+                int group = query.group(row);
+                if (group >= 0) {
+                    totals[group * 3]++;
+                    totals[group * 3 + 1] += quantity[row];
+                    totals[group * 3 + 2] += revenueBani[row];
+                }
+            }
+            return totals;
+        }
+    }
+}
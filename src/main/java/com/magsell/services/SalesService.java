@@ -0,0 +1,82 @@
+package com.magsell.services;
+
+import com.magsell.database.DatabaseService;
+import com.magsell.database.InsufficientStockException;
+import com.magsell.database.SaleWriter;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import com.magsell.models.Money;
+import com.magsell.models.Sale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Serviciu pentru înregistrarea vânzărilor.
+ * Un bon întreg (toate liniile) se salvează într-o singură tranzacție: stocul
+ * fiecărui produs este scăzut condiționat, iar liniile se inserează în batch.
+ */
+public class SalesService {
+    private static final Logger logger = LoggerFactory.getLogger(SalesService.class);
+    private static final LatencyHistogram RECORD = Metrics.getInstance().histogram("sales.record");
+    // De la trimiterea în jurnal până la commit, cât așteaptă casa confirmarea
+    private static final LatencyHistogram RECORD_ASYNC = Metrics.getInstance().histogram("sales.recordAsync");
+    private final DatabaseService dbService = DatabaseService.getInstance();
+    private final ProductCatalog catalog = ProductCatalog.getInstance();
+    private final AuditLog audit = AuditLog.getInstance();
+
+    /**
+     * Înregistrează un bon cu una sau mai multe linii, sincron.
+     * Dacă oricare produs nu are stoc suficient, nicio linie nu se salvează.
+     *
+     * @return totalul bonului
+     * @throws InsufficientStockException dacă un produs nu are stoc suficient
+     */
+    @SuppressWarnings("try")
+    public Money recordSale(List<Sale> items) throws SQLException {
+        Money total;
+        try (LatencyHistogram.Sample timing = RECORD.time();
+             Connection conn = dbService.getConnection()) {
+            conn.setAutoCommit(false);
+            try (SaleWriter writer = new SaleWriter(conn)) {
+                total = writer.write(items, LocalDateTime.now(ZoneOffset.UTC));
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            dbService.getStockLedger().applySale(items);
+        }
+
+        catalog.refreshStock(ProductCatalog.productIds(items));
+        logger.debug("Vânzare înregistrată: {} produse, total {}", items.size(), total);
+        audit.record("sale.record", null, items.size() + " produse, total " + total);
+        return total;
+    }
+
+    /**
+     * Trimite bonul în jurnalul de vânzări, care îl salvează împreună cu alte bonuri
+     * într-un singur commit. Potrivit la orele de vârf, când casa nu trebuie să aștepte discul.
+     *
+     * @return un future cu totalul bonului, completat după commit, sau cu
+     *         {@link InsufficientStockException} dacă un produs nu are stoc suficient
+     */
+    public CompletableFuture<Money> recordSaleAsync(List<Sale> items) throws SQLException {
+        long start = System.nanoTime();
+        return dbService.getSaleJournal().submit(items).thenApply(total -> {
+            RECORD_ASYNC.record(System.nanoTime() - start);
+            audit.record("sale.record", null, items.size() + " produse, total " + total);
+            // Recitirea stocului nu ține firul jurnalului, care face commit-ul următorului lot
+            CompletableFuture.runAsync(() -> catalog.refreshStock(ProductCatalog.productIds(items)));
+            return total;
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package com.magsell.services;
+
+import com.magsell.database.DatabaseService;
+import com.magsell.database.InsufficientStockException;
+import com.magsell.database.StockLedger;
+import com.magsell.database.StockMovement;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import com.magsell.models.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Serviciu pentru mișcările de stoc din afara vânzărilor: recepții, pierderi și corecții
+ * la inventar. Fiecare mișcare schimbă {@code products.quantity} și se adaugă în registrul
+ * de stoc în aceeași tranzacție; soldurile istorice se citesc din registru.
+ */
+public class StockService {
+    private static final Logger logger = LoggerFactory.getLogger(StockService.class);
+    private static final LatencyHistogram RECORD = Metrics.getInstance().histogram("stock.record");
+    private static final String ADJUST_SQL =
+            "UPDATE products SET quantity = quantity + ?, version = version + 1, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id = ? AND quantity + ? >= 0";
+    private final DatabaseService dbService = DatabaseService.getInstance();
+    private final ProductCatalog catalog = ProductCatalog.getInstance();
+    private final AuditLog audit = AuditLog.getInstance();
+
+    /**
+     * Înregistrează o mișcare de stoc. Cantitatea are semn: pozitivă pentru recepții,
+     * negativă pentru pierderi, oricare (dar nenulă) pentru corecții. Vânzările și stocul
+     * inițial nu trec pe aici.
+     *
+     * @throws IllegalArgumentException dacă tipul sau semnul cantității nu sunt permise
+     * @throws InsufficientStockException dacă mișcarea ar face stocul negativ sau produsul nu există
+     */
+    @SuppressWarnings("try")
+    public void recordMovement(int productId, StockMovement.Type type, int quantity, String note)
+            throws SQLException {
+        switch (type) {
+            case RECEIPT -> require(quantity > 0, "Cantitatea recepționată trebuie să fie pozitivă");
+            case WASTE -> require(quantity < 0, "Cantitatea pierdută trebuie să fie negativă");
+            case CORRECTION -> require(quantity != 0, "Corecția trebuie să schimbe cantitatea");
+            default -> throw new IllegalArgumentException("Tip de mișcare nepermis: " + type);
+        }
+
+        // Numele doar pentru mesajul de eroare, citit înainte de a ține conexiunea de scriere
+        Product product = catalog.getById(productId);
+        try (LatencyHistogram.Sample timing = RECORD.time();
+             Connection conn = dbService.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(ADJUST_SQL)) {
+                    pstmt.setInt(1, quantity);
+                    pstmt.setInt(2, productId);
+                    pstmt.setInt(3, quantity);
+                    if (pstmt.executeUpdate() == 0) {
+                        throw new InsufficientStockException(productId, product != null ? product.getName() : null);
+                    }
+                }
+                StockLedger.insert(conn, productId, type, quantity, LocalDateTime.now(ZoneOffset.UTC), note);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            dbService.getStockLedger().apply(productId, quantity);
+        }
+
+        catalog.refreshStock(List.of(productId));
+        logger.debug("Mișcare de stoc {} pentru produsul {}: {}", type, productId, quantity);
+        audit.record("stock." + type.name().toLowerCase(Locale.ROOT), "product:" + productId,
+                note != null ? quantity + " (" + note + ")" : String.valueOf(quantity));
+    }
+
+    /**
+     * Stocul curent, din memorie.
+     */
+    public long getStock(int productId) throws SQLException {
+        return dbService.getStockLedger().getBalance(productId);
+    }
+
+    /**
+     * Stocul produsului la momentul dat (UTC).
+     */
+    public long getStockAt(int productId, LocalDateTime atUtc) throws SQLException {
+        return dbService.getStockLedger().getBalanceAt(productId, atUtc);
+    }
+
+    /**
+     * Mișcările produsului din intervalul dat (UTC, inclusiv capetele).
+     */
+    public List<StockMovement> getMovements(int productId, LocalDateTime fromUtc, LocalDateTime toUtc)
+            throws SQLException {
+        return dbService.getStockLedger().getMovements(productId, fromUtc, toUtc);
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
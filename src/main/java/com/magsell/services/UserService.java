@@ -1,23 +1,33 @@
 package com.magsell.services;
 
 import com.magsell.database.DatabaseService;
+import com.magsell.database.RowMapper;
 import com.magsell.models.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.SecureRandom;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Base64;
 
 public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private final DatabaseService db = DatabaseService.getInstance();
-    private final SecureRandom random = new SecureRandom();
+
+    private static final RowMapper<User> USER_ROWS = new RowMapper<>(
+            "id", "username", "password_hash", "salt", "role") {
+        @Override
+        protected User map(Row row) throws SQLException {
+            User u = new User();
+            u.setId(row.getInt(0));
+            u.setUsername(row.getString(1));
+            u.setPasswordHash(row.getString(2));
+            u.setSalt(row.getString(3));
+            u.setRole(row.getPooledString(4));
+            return u;
+        }
+    };
 
     public void ensureDefaultAdmin() throws SQLException {
         if (getUserByUsername("admin") == null) {
@@ -27,61 +37,50 @@ public class UserService {
     }
 
     public User getUserByUsername(String username) throws SQLException {
-        String sql = "SELECT * FROM users WHERE username = ?";
-        Connection conn = db.getConnection();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        String sql = "SELECT " + USER_ROWS.columns() + " FROM users WHERE username = ?";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    User u = new User();
-                    u.setId(rs.getInt("id"));
-                    u.setUsername(rs.getString("username"));
-                    u.setPasswordHash(rs.getString("password_hash"));
-                    u.setSalt(rs.getString("salt"));
-                    u.setRole(rs.getString("role"));
-                    return u;
-                }
+                return USER_ROWS.first(rs);
             }
         }
-        return null;
     }
 
+    /**
+     * Verifică parola; vezi {@link AuthService#authenticate(String, String)}.
+     * Durează cât derivarea cheii, deci nu se apelează pe firul FX.
+     */
     public boolean authenticate(String username, String password) throws SQLException {
-        User u = getUserByUsername(username);
-        if (u == null) return false;
-        String hash = hashPassword(password, u.getSalt());
-        return hash.equals(u.getPasswordHash());
+        return AuthService.getInstance().authenticate(username, password) != null;
     }
 
     public void createUser(String username, String password, String role) throws SQLException {
-        String salt = generateSalt();
-        String hash = hashPassword(password, salt);
+        PasswordHasher.Hash hash = PasswordHasher.getInstance().hash(password);
         String sql = "INSERT INTO users (username, password_hash, salt, role) VALUES (?, ?, ?, ?)";
-        Connection conn = db.getConnection();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = db.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, username);
-            ps.setString(2, hash);
-            ps.setString(3, salt);
+            ps.setString(2, hash.encoded());
+            ps.setString(3, hash.salt());
             ps.setString(4, role);
             ps.executeUpdate();
-            logger.info("Created user: " + username + " role=" + role);
         }
+        logger.info("Created user: {} role={}", username, role);
+        AuditLog.getInstance().record("user.create", "user:" + username, role);
     }
 
-    private String generateSalt() {
-        byte[] s = new byte[16];
-        random.nextBytes(s);
-        return Base64.getEncoder().encodeToString(s);
-    }
-
-    private String hashPassword(String password, String salt) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(Base64.getDecoder().decode(salt));
-            byte[] bytes = md.digest(password.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(bytes);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    /**
+     * Înlocuiește hash-ul parolei (ex. la trecerea unui hash vechi pe formatul curent).
+     */
+    public void updatePasswordHash(int userId, PasswordHasher.Hash hash) throws SQLException {
+        String sql = "UPDATE users SET password_hash = ?, salt = ? WHERE id = ?";
+        try (Connection conn = db.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, hash.encoded());
+            ps.setString(2, hash.salt());
+            ps.setInt(3, userId);
+            ps.executeUpdate();
         }
     }
 }
@@ -0,0 +1,63 @@
+package com.magsell.ui;
+
+import com.magsell.models.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Texte formatate și păstrate în cache pentru celulele din tabele.
+ * Prețurile și cantitățile se repetă mult între rânduri, așa că la derulare
+ * se refolosesc aceleași String-uri în loc să fie construite din nou.
+ *
+ * Se folosește doar pe firul FX.
+ */
+public final class CellFormats {
+    private static final int CACHED_INTEGERS = 4096;
+    private static final int CACHED_AMOUNTS = 2048;
+
+    private static final String[] integers = new String[CACHED_INTEGERS];
+    private static final Map<BigDecimal, String> amounts = new LinkedHashMap<>(CACHED_AMOUNTS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BigDecimal, String> eldest) {
+            return size() > CACHED_AMOUNTS;
+        }
+    };
+
+    private CellFormats() {
+    }
+
+    /**
+     * Formatează un număr întreg (cantități, ID-uri).
+     */
+    public static String integer(int value) {
+        if (value < 0 || value >= CACHED_INTEGERS) {
+            return Integer.toString(value);
+        }
+        String text = integers[value];
+        if (text == null) {
+            text = Integer.toString(value);
+            integers[value] = text;
+        }
+        return text;
+    }
+
+    /**
+     * Formatează o sumă de bani cu două zecimale.
+     */
+    public static String amount(BigDecimal value) {
+        if (value == null) {
+            return null;
+        }
+        return amounts.computeIfAbsent(value, v -> v.setScale(2, RoundingMode.HALF_UP).toPlainString());
+    }
+
+    /**
+     * Formatează o sumă ținută în bani.
+     */
+    public static String amount(Money value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,164 @@
+package com.magsell.ui;
+
+import com.magsell.metrics.Counter;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import com.magsell.services.BackgroundTasks;
+import com.magsell.services.BackgroundTasks.Priority;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Încărcarea ferestrelor din FXML, cu durata măsurată în histograma
+ * {@code fxml.<fișier>} (ex. {@code fxml.ProductList.fxml}).
+ *
+ * Ferestrele deschise des se pot pregăti în fundal ({@link #preload}): se ține mereu
+ * o fereastră deja parsată, pe care {@link #take} o întoarce imediat și apoi pregătește
+ * alta. În fundal se construiesc doar nodurile; abonările și citirile controlerului pornesc
+ * abia în {@link Preloadable#start()}, pe firul FX, când fereastra e luată. Controlerele au
+ * stare proprie fiecărei ferestre (abonări, sarcini anulate la închidere), deci o fereastră
+ * nu se refolosește după închidere. Metodele cu rezerve se apelează doar pe firul FX.
+ */
+public final class Fxml {
+    private static final Logger logger = LoggerFactory.getLogger(Fxml.class);
+    public static final String MAIN_WINDOW = "/com/magsell/ui/fxml/MainWindow.fxml";
+    public static final String PRODUCT_LIST = "/com/magsell/ui/fxml/ProductList.fxml";
+    public static final String PRODUCT_EDITOR = "/com/magsell/ui/fxml/ProductEditor.fxml";
+    private static final Counter SPARE_HITS = Metrics.getInstance().counter("fxml.spareHits");
+    private static final Counter SPARE_MISSES = Metrics.getInstance().counter("fxml.spareMisses");
+
+    // Doar pe firul FX
+    private static final Map<String, Supplier<?>> preloaded = new HashMap<>();
+    private static final Map<String, View<?>> spares = new HashMap<>();
+    private static final Set<String> preparing = new HashSet<>();
+    private static boolean closed;
+
+    /**
+     * Controler al unei ferestre care se poate pregăti în fundal. {@code initialize()}
+     * construiește doar nodurile, fără abonări sau citiri.
+     */
+    public interface Preloadable {
+        /**
+         * Pornește abonările și citirile ferestrei. Apelat de {@link #take} pe firul FX.
+         */
+        void start();
+
+        /**
+         * Eliberează ce a pornit {@link #start()}; apelat și pentru rezervele nefolosite.
+         */
+        void dispose();
+    }
+
+    /**
+     * O fereastră parsată și controlerul ei.
+     */
+    public record View<C>(Parent root, C controller) {
+    }
+
+    private Fxml() {
+    }
+
+    /**
+     * Echivalent cu {@code loader.load()}. Poate rula și în afara firului FX, cât timp
+     * nodurile nu sunt încă într-o fereastră afișată.
+     */
+    @SuppressWarnings("try")
+    public static <T> T load(FXMLLoader loader) throws IOException {
+        String path = loader.getLocation().getPath();
+        LatencyHistogram histogram = Metrics.getInstance().histogram("fxml." + path.substring(path.lastIndexOf('/') + 1));
+        try (LatencyHistogram.Sample timing = histogram.time()) {
+            return loader.load();
+        }
+    }
+
+    /**
+     * Încarcă fișierul FXML (cale de resursă) cu un controler nou.
+     */
+    public static <C> View<C> create(String resource, Supplier<C> controllers) throws IOException {
+        FXMLLoader loader = new FXMLLoader(Fxml.class.getResource(resource));
+        C controller = controllers.get();
+        loader.setController(controller);
+        Parent root = load(loader);
+        return new View<>(root, controller);
+    }
+
+    /**
+     * Ține de acum încolo o fereastră pregătită pentru fișierul dat. Pregătirea rulează
+     * în fundal cu prioritate scăzută, deci nu întârzie citirile ferestrelor deschise.
+     * Fișierul trebuie folosit mereu cu același tip de controler.
+     */
+    public static <C> void preload(String resource, Supplier<C> controllers) {
+        preloaded.put(resource, controllers);
+        prepare(resource);
+    }
+
+    /**
+     * Întoarce fereastra pregătită pentru fișier, dacă există, altfel o încarcă acum.
+     * Pentru fișierele din {@link #preload} se pregătește imediat următoarea.
+     * Controlerele {@link Preloadable} sunt pornite înainte de a fi întoarse.
+     */
+    @SuppressWarnings("unchecked")
+    public static <C> View<C> take(String resource, Supplier<C> controllers) throws IOException {
+        View<C> view = (View<C>) spares.remove(resource);
+        if (preloaded.containsKey(resource)) {
+            prepare(resource);
+        }
+        if (view != null) {
+            SPARE_HITS.increment();
+        } else {
+            SPARE_MISSES.increment();
+            view = create(resource, controllers);
+        }
+        if (view.controller() instanceof Preloadable preloadable) {
+            preloadable.start();
+        }
+        return view;
+    }
+
+    /**
+     * Eliberează ferestrele pregătite și nefolosite și oprește pregătirea altora.
+     * Se apelează la închiderea aplicației.
+     */
+    public static void disposeSpares() {
+        closed = true;
+        preloaded.clear();
+        for (View<?> spare : spares.values()) {
+            dispose(spare);
+        }
+        spares.clear();
+    }
+
+    private static void dispose(View<?> view) {
+        if (view.controller() instanceof Preloadable preloadable) {
+            preloadable.dispose();
+        }
+    }
+
+    private static void prepare(String resource) {
+        if (spares.containsKey(resource) || !preparing.add(resource)) {
+            return;
+        }
+        Supplier<?> controllers = preloaded.get(resource);
+        BackgroundTasks.getInstance().submit(Priority.REPORT, () -> create(resource, controllers),
+                view -> {
+                    preparing.remove(resource);
+                    if (closed) {
+                        dispose(view);
+                        return;
+                    }
+                    spares.put(resource, view);
+                }, e -> {
+                    preparing.remove(resource);
+                    logger.warn("Fereastra {} nu a putut fi pregătită în fundal", resource, e);
+                });
+    }
+}
@@ -0,0 +1,198 @@
+package com.magsell.ui;
+
+import com.magsell.models.Product;
+import com.magsell.services.BackgroundTasks;
+import com.magsell.services.BackgroundTasks.Priority;
+import com.magsell.services.ProductService;
+import com.magsell.services.ProductService.PageFilter;
+import javafx.collections.ObservableListBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Listă de produse pentru {@code TableView}, încărcată pe pagini la cerere.
+ *
+ * Adăugările și ștergerile recitesc numărul de rânduri ({@link #refresh()}), iar
+ * o modificare înlocuiește doar rândul ei ({@link #update(Product)}).
+ *
+ * Lista cunoaște doar numărul total de rânduri; un rând a cărui pagină nu e încă
+ * în memorie apare gol, iar pagina se aduce prin {@link BackgroundTasks} și se afișează
+ * când sosește. Paginile se citesc cu paginare keyset după nume, iar în memorie
+ * rămân cel mult {@link #MAX_CACHED_PAGES} pagini, indiferent de mărimea catalogului.
+ *
+ * Toate metodele se apelează pe firul FX.
+ */
+public class PagedProductList extends ObservableListBase<Product> {
+    private static final Logger logger = LoggerFactory.getLogger(PagedProductList.class);
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 16;
+
+    private final ProductService productService;
+    private final BackgroundTasks.Group tasks = BackgroundTasks.getInstance().newGroup();
+    private final Map<Integer, List<Product>> pages = new LinkedHashMap<>(MAX_CACHED_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Product>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    // Ultimul produs din fiecare pagină citită: cheia de start pentru pagina următoare
+    private final Map<Integer, Product> pageEndKeys = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+
+    private PageFilter filter = PageFilter.NONE;
+    private int size;
+    private long generation;
+
+    public PagedProductList(ProductService productService) {
+        this.productService = productService;
+    }
+
+    /**
+     * Schimbă filtrul și reîncarcă lista de la început.
+     */
+    public void setFilter(PageFilter filter) {
+        this.filter = filter != null ? filter : PageFilter.NONE;
+        refresh();
+    }
+
+    /**
+     * Golește paginile din memorie și recitește numărul de rânduri.
+     * Se apelează după ce produsele s-au modificat.
+     */
+    public void refresh() {
+        long current = ++generation;
+        PageFilter f = filter;
+        tasks.submit(Priority.INTERACTIVE, () -> productService.countProducts(f), count -> {
+            if (current != generation) {
+                return;
+            }
+            pages.clear();
+            pageEndKeys.clear();
+            loading.clear();
+            int oldSize = size;
+            size = count;
+            beginChange();
+            if (oldSize > 0) {
+                nextRemove(0, Collections.nCopies(oldSize, (Product) null));
+            }
+            if (count > 0) {
+                nextAdd(0, count);
+            }
+            endChange();
+        }, e -> logger.error("Eroare la numărarea produselor", e));
+    }
+
+    /**
+     * Înlocuiește rândul produsului în pagina lui din memorie, fără nicio interogare.
+     * Dacă pagina nu e în memorie, rândul se citește oricum proaspăt când devine vizibil.
+     * Un nume nou (sau o categorie nouă, când lista e filtrată după categorie) poate muta
+     * produsul în altă poziție, deci atunci lista se reîncarcă.
+     *
+     * @return rândul înlocuit, sau null dacă pagina lui nu era în memorie
+     */
+    public Product update(Product product) {
+        for (Map.Entry<Integer, List<Product>> entry : pages.entrySet()) {
+            List<Product> rows = entry.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                Product old = rows.get(i);
+                if (old.getId() != product.getId()) {
+                    continue;
+                }
+                if (!old.getName().equals(product.getName()) || (hasCategoryFilter()
+                        && !Objects.equals(old.getCategory(), product.getCategory()))) {
+                    refresh();
+                    return old;
+                }
+                rows.set(i, product);
+                int index = entry.getKey() * PAGE_SIZE + i;
+                beginChange();
+                nextSet(index, old);
+                endChange();
+                return old;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Anulează încărcările în curs. Se apelează la închiderea ferestrei.
+     */
+    public void dispose() {
+        generation++;
+        tasks.cancelAll();
+    }
+
+    @Override
+    public Product get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int page = index / PAGE_SIZE;
+        List<Product> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = index % PAGE_SIZE;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private boolean hasCategoryFilter() {
+        return filter.category() != null && !filter.category().isEmpty();
+    }
+
+    private void requestPage(int page) {
+        if (!loading.add(page)) {
+            return;
+        }
+        long current = generation;
+        PageFilter f = filter;
+        Product after = page > 0 ? pageEndKeys.get(page - 1) : null;
+
+        tasks.submit(Priority.INTERACTIVE, () -> {
+            if (page == 0) {
+                return productService.getProductsPage(null, 0, PAGE_SIZE, f);
+            } else if (after != null) {
+                return productService.getProductsPage(after.getName(), after.getId(), PAGE_SIZE, f);
+            }
+            return productService.getProductsPageAt(page * PAGE_SIZE, PAGE_SIZE, f);
+        }, rows -> pageLoaded(current, page, rows), e -> {
+            logger.error("Eroare la încărcarea paginii {}", page, e);
+            loading.remove(page);
+        });
+    }
+
+    private void pageLoaded(long requestGeneration, int page, List<Product> rows) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        loading.remove(page);
+        pages.put(page, rows);
+        if (!rows.isEmpty()) {
+            pageEndKeys.put(page, rows.get(rows.size() - 1));
+        }
+
+        int from = page * PAGE_SIZE;
+        int to = Math.min(from + PAGE_SIZE, size);
+        if (from >= to) {
+            return;
+        }
+        beginChange();
+        nextReplace(from, to, Collections.nCopies(to - from, (Product) null));
+        endChange();
+    }
+}
@@ -0,0 +1,185 @@
+package com.magsell.ui;
+
+import com.magsell.models.Product;
+import com.magsell.services.BackgroundTasks;
+import com.magsell.services.BackgroundTasks.Priority;
+import com.magsell.services.ProductCatalog;
+import com.magsell.services.ProductSearchIndex;
+import javafx.animation.PauseTransition;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Filtrarea listei de produse în afara firului FX.
+ *
+ * Textul tastat este întârziat (debounce) până când utilizatorul face o pauză;
+ * filtrarea rulează pe un fir de fundal, iar rezultatele unei interogări depășite
+ * de una mai nouă sunt aruncate. Când interogarea doar se lungește, se verifică
+ * doar produsele rămase de la pasul anterior. Pe firul FX se aplică în tabel
+ * doar diferența față de ce se afișa deja.
+ *
+ * Toate metodele publice se apelează pe firul FX.
+ */
+public class ProductFilterPipeline {
+    private static final Duration DEBOUNCE = Duration.millis(120);
+    // Peste acest număr de rânduri schimbate, un singur setAll() e mai ieftin decât add/remove individuale
+    private static final int MAX_INCREMENTAL_CHANGES = 64;
+
+    private final ObservableList<Product> source;
+    private final ProductCatalog catalog;
+    private final BackgroundTasks.Group tasks = BackgroundTasks.getInstance().newGroup();
+    private final ObservableList<Product> visible = FXCollections.observableArrayList();
+    private final ObservableList<Product> readOnlyVisible = FXCollections.unmodifiableObservableList(visible);
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+    private final ListChangeListener<Product> sourceListener = change -> refresh();
+
+    private String query = "";
+    private String category;
+    private long generation;
+    private BackgroundTasks.Handle running;
+
+    // Ultimul rezultat aplicat, folosit la restrângerea incrementală
+    private String appliedQuery;
+    private String appliedCategory;
+    private BitSet appliedMatches;
+
+    public ProductFilterPipeline(ObservableList<Product> source, ProductCatalog catalog) {
+        this.source = source;
+        this.catalog = catalog;
+        this.debounce.setOnFinished(e -> start(false));
+        this.source.addListener(sourceListener);
+    }
+
+    /**
+     * Lista de produse filtrate, pentru {@code TableView.setItems()}.
+     */
+    public ObservableList<Product> getVisibleProducts() {
+        return readOnlyVisible;
+    }
+
+    /**
+     * Programează filtrarea după o pauză de tastare.
+     */
+    public void setFilter(String query, String category) {
+        this.query = query != null ? query : "";
+        this.category = category;
+        debounce.playFromStart();
+    }
+
+    /**
+     * Refiltrează imediat, complet (ex. după modificarea listei sursă).
+     */
+    public void refresh() {
+        debounce.stop();
+        start(true);
+    }
+
+    /**
+     * Oprește filtrarea în curs și se dezabonează de la lista sursă.
+     */
+    public void dispose() {
+        debounce.stop();
+        generation++;
+        tasks.cancelAll();
+        source.removeListener(sourceListener);
+    }
+
+    private void start(boolean full) {
+        long current = ++generation;
+        if (running != null) {
+            running.cancel();
+        }
+
+        String q = query;
+        String c = category;
+        boolean narrowing = !full && appliedMatches != null && appliedQuery != null
+                && Objects.equals(c, appliedCategory) && ProductSearchIndex.isNarrowing(appliedQuery, q);
+        BitSet narrowFrom = narrowing ? appliedMatches : null;
+
+        running = tasks.submit(Priority.INTERACTIVE, () -> catalog.filter(q, c, narrowFrom), matches -> {
+            if (current != generation) {
+                return;
+            }
+            appliedQuery = q;
+            appliedCategory = c;
+            appliedMatches = matches;
+            apply(matches);
+        }, null);
+    }
+
+    /**
+     * Aduce lista vizibilă la produsele din sursă marcate în {@code matches},
+     * păstrând ordinea sursei. Aplică doar rândurile care s-au schimbat.
+     */
+    private void apply(BitSet matches) {
+        if (countChanges(matches) > MAX_INCREMENTAL_CHANGES) {
+            List<Product> target = new ArrayList<>(matches.cardinality());
+            for (Product p : source) {
+                if (matches.get(p.getId())) {
+                    target.add(p);
+                }
+            }
+            visible.setAll(target);
+            return;
+        }
+
+        int v = 0;
+        for (Product p : source) {
+            // Rândurile care nu mai trebuie afișate (filtrate sau șterse) ies pe loc
+            while (v < visible.size() && !matches.get(visible.get(v).getId())) {
+                visible.remove(v);
+            }
+            if (!matches.get(p.getId())) {
+                continue;
+            }
+            if (v < visible.size() && visible.get(v).getId() == p.getId()) {
+                if (visible.get(v) != p) {
+                    visible.set(v, p);
+                }
+            } else {
+                visible.add(v, p);
+            }
+            v++;
+        }
+        if (v < visible.size()) {
+            visible.remove(v, visible.size());
+        }
+    }
+
+    /**
+     * Numără operațiile pe care le-ar face {@link #apply} în modul incremental, fără să modifice lista.
+     */
+    private int countChanges(BitSet matches) {
+        int changes = 0;
+        int v = 0;
+        int size = visible.size();
+        for (Product p : source) {
+            while (v < size && !matches.get(visible.get(v).getId())) {
+                changes++;
+                v++;
+            }
+            if (!matches.get(p.getId())) {
+                continue;
+            }
+            if (v < size && visible.get(v).getId() == p.getId()) {
+                if (visible.get(v) != p) {
+                    changes++;
+                }
+                v++;
+            } else {
+                changes++;
+            }
+            if (changes > MAX_INCREMENTAL_CHANGES) {
+                return changes;
+            }
+        }
+        return changes + (size - v);
+    }
+}
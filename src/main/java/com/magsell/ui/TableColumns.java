@@ -0,0 +1,133 @@
+package com.magsell.ui;
+
+import com.magsell.models.Money;
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Fabrică de coloane tipizate pentru {@code TableView}, fără reflecție.
+ *
+ * Valoarea fiecărei celule este chiar obiectul rândului; textul se obține printr-o
+ * funcție (ex. {@code Product::getName}) direct în celulă, iar prețurile și
+ * cantitățile trec prin {@link CellFormats}. Spre deosebire de
+ * {@code PropertyValueFactory}, nu se caută getter-e prin reflecție și nu se
+ * creează câte un {@code ReadOnlyObjectWrapper} la fiecare afișare a unei celule.
+ *
+ * Sortarea după coloană folosește valoarea extrasă, nu textul afișat.
+ */
+public final class TableColumns {
+
+    private TableColumns() {
+    }
+
+    /**
+     * Coloană de text (nume, descriere, categorie).
+     */
+    public static <S> TableColumn<S, S> text(String title, double width, Function<S, String> getter) {
+        return column(title, width, getter,
+                Comparator.comparing(getter, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    /**
+     * Coloană cu numere întregi (ID, cantitate).
+     */
+    public static <S> TableColumn<S, S> integer(String title, double width, ToIntFunction<S> getter) {
+        return column(title, width, row -> CellFormats.integer(getter.applyAsInt(row)),
+                Comparator.comparingInt(getter));
+    }
+
+    /**
+     * Coloană cu sume de bani, afișate cu două zecimale.
+     */
+    public static <S> TableColumn<S, S> amount(String title, double width, Function<S, BigDecimal> getter) {
+        return column(title, width, row -> CellFormats.amount(getter.apply(row)),
+                Comparator.comparing(getter, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    /**
+     * Coloană cu sume ținute în bani (rapoarte).
+     */
+    public static <S> TableColumn<S, S> money(String title, double width, Function<S, Money> getter) {
+        return column(title, width, row -> CellFormats.amount(getter.apply(row)),
+                Comparator.comparing(getter, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    /**
+     * Coloană cu durate date în nanosecunde, afișate în milisecunde cu trei zecimale.
+     */
+    public static <S> TableColumn<S, S> duration(String title, double width, ToLongFunction<S> nanos) {
+        return column(title, width, row -> String.format(Locale.ROOT, "%.3f", nanos.applyAsLong(row) / 1e6),
+                Comparator.comparingLong(nanos));
+    }
+
+    private static <S> TableColumn<S, S> column(String title, double width, Function<S, String> renderer,
+                                                Comparator<S> comparator) {
+        TableColumn<S, S> column = new TableColumn<>(title);
+        column.setPrefWidth(width);
+        column.setCellValueFactory(features -> features.getValue() != null ? new RowValue<>(features.getValue()) : null);
+        column.setCellFactory(c -> new RenderedCell<>(renderer));
+        column.setComparator(comparator);
+        return column;
+    }
+
+    /**
+     * Celulă care afișează textul calculat din obiectul rândului.
+     */
+    private static final class RenderedCell<S> extends TableCell<S, S> {
+        private final Function<S, String> renderer;
+
+        RenderedCell(Function<S, String> renderer) {
+            this.renderer = renderer;
+        }
+
+        @Override
+        protected void updateItem(S row, boolean empty) {
+            super.updateItem(row, empty);
+            setText(empty || row == null ? null : renderer.apply(row));
+        }
+    }
+
+    /**
+     * Valoare constantă a unei celule: obiectul rândului. Obiectele de model nu sunt
+     * observabile, deci nu are ce notifica; o modificare a rândului vine ca o
+     * înlocuire în lista tabelului, care reface celula.
+     */
+    private static final class RowValue<S> implements ObservableValue<S> {
+        private final S row;
+
+        RowValue(S row) {
+            this.row = row;
+        }
+
+        @Override
+        public S getValue() {
+            return row;
+        }
+
+        @Override
+        public void addListener(ChangeListener<? super S> listener) {
+        }
+
+        @Override
+        public void removeListener(ChangeListener<? super S> listener) {
+        }
+
+        @Override
+        public void addListener(InvalidationListener listener) {
+        }
+
+        @Override
+        public void removeListener(InvalidationListener listener) {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.magsell.ui.controllers;
+
+import com.magsell.metrics.FxStallMonitor;
+import com.magsell.metrics.LatencyHistogram;
+import com.magsell.metrics.Metrics;
+import com.magsell.ui.TableColumns;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Controlerul pentru fereastra de diagnosticare: contoarele si duratele masurate
+ * (baza de date, servicii, sarcini de fundal, incarcari FXML, firul FX),
+ * actualizate in fiecare secunda, plus ultimul blocaj al firului FX.
+ */
+public class DiagnosticsController {
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final Metrics metrics = Metrics.getInstance();
+    private final Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> refresh()));
+
+    @FXML
+    private TextField filterField;
+    @FXML
+    private TableView<MetricRow> counterTable;
+    @FXML
+    private TableView<MetricRow> timingTable;
+    @FXML
+    private Label stallLabel;
+    @FXML
+    private TextArea stallStack;
+
+    /**
+     * Un rand din tabele; duratele sunt in nanosecunde.
+     */
+    private record MetricRow(String name, long count, long mean, long p50, long p90, long p99, long max) {
+    }
+
+    @FXML
+    public void initialize() {
+        counterTable.getColumns().setAll(List.of(
+                TableColumns.text("Contor", 380, MetricRow::name),
+                TableColumns.text("Valoare", 120, r -> Long.toString(r.count()))));
+        counterTable.setItems(FXCollections.observableArrayList());
+        timingTable.getColumns().setAll(List.of(
+                TableColumns.text("Operatie", 380, MetricRow::name),
+                TableColumns.integer("Nr.", 80, r -> (int) Math.min(Integer.MAX_VALUE, r.count())),
+                TableColumns.duration("Medie ms", 80, MetricRow::mean),
+                TableColumns.duration("p50 ms", 80, MetricRow::p50),
+                TableColumns.duration("p90 ms", 80, MetricRow::p90),
+                TableColumns.duration("p99 ms", 80, MetricRow::p99),
+                TableColumns.duration("Max ms", 80, MetricRow::max)));
+        timingTable.setItems(FXCollections.observableArrayList());
+        filterField.textProperty().addListener((obs, old, text) -> refresh());
+
+        refresh.setCycleCount(Timeline.INDEFINITE);
+        refresh.play();
+        refresh();
+    }
+
+    /**
+     * Opreste actualizarea periodica. Se apeleaza la inchiderea ferestrei.
+     */
+    public void dispose() {
+        refresh.stop();
+    }
+
+    @FXML
+    public void handleReset() {
+        metrics.reset();
+        refresh();
+    }
+
+    @FXML
+    public void handleClose() {
+        dispose();
+        Stage stage = (Stage) timingTable.getScene().getWindow();
+        stage.close();
+    }
+
+    private void refresh() {
+        Metrics.Snapshot snapshot = metrics.snapshot();
+        String filter = filterField.getText() == null ? "" : filterField.getText().strip().toLowerCase(Locale.ROOT);
+
+        List<MetricRow> counters = new ArrayList<>();
+        for (Map.Entry<String, Long> counter : snapshot.counters().entrySet()) {
+            if (matches(counter.getKey(), filter)) {
+                counters.add(new MetricRow(counter.getKey(), counter.getValue(), 0, 0, 0, 0, 0));
+            }
+        }
+        List<MetricRow> timings = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : snapshot.histograms().entrySet()) {
+            LatencyHistogram.Snapshot h = entry.getValue();
+            if (h.count() > 0 && matches(entry.getKey(), filter)) {
+                timings.add(new MetricRow(entry.getKey(), h.count(), Math.round(h.meanNanos()),
+                        h.percentile(0.5), h.percentile(0.9), h.percentile(0.99), h.maxNanos()));
+            }
+        }
+        counterTable.getItems().setAll(counters);
+        timingTable.getItems().setAll(timings);
+        // Ordinea aleasa de utilizator (clic pe antet) se pastreaza la fiecare actualizare
+        counterTable.sort();
+        timingTable.sort();
+
+        FxStallMonitor.Stall stall = FxStallMonitor.getInstance().getLastStall();
+        if (stall == null) {
+            stallLabel.setText("Niciun blocaj al firului FX");
+        } else {
+            stallLabel.setText("Ultimul blocaj al firului FX: " + stall.at().format(TIME) + ", "
+                    + stall.durationNanos() / 1_000_000 + " ms");
+            stallStack.setText(stall.stack());
+        }
+    }
+
+    private static boolean matches(String name, String filter) {
+        return filter.isEmpty() || name.toLowerCase(Locale.ROOT).contains(filter);
+    }
+}
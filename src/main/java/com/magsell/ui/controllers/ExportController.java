@@ -0,0 +1,103 @@
+package com.magsell.ui.controllers;
+
+import com.magsell.services.BackgroundTasks;
+import com.magsell.services.BackgroundTasks.Priority;
+import com.magsell.services.ExportService;
+import com.magsell.services.ExportService.Dataset;
+import com.magsell.services.ExportService.Format;
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.stage.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Controlerul pentru fereastra de progres a unui export.
+ * Exportul ruleaza in fundal; butonul il anuleaza, apoi inchide fereastra.
+ */
+public class ExportController {
+    private static final Logger logger = LoggerFactory.getLogger(ExportController.class);
+
+    private final ExportService exportService = new ExportService();
+    // Cel mult o actualizare de progres in asteptare pe firul FX
+    private final AtomicBoolean progressPending = new AtomicBoolean();
+    private volatile long rows;
+    private volatile long total;
+    private BackgroundTasks.Handle handle;
+
+    @FXML
+    private Label titleLabel;
+    @FXML
+    private ProgressBar progressBar;
+    @FXML
+    private Label statusLabel;
+    @FXML
+    private Button actionButton;
+
+    /**
+     * Porneste exportul tabelului in fisierul dat. Formatul si compresia se deduc
+     * din extensie (.csv, .json, optional urmate de .gz).
+     */
+    public void start(Dataset dataset, Path target) {
+        String name = target.getFileName().toString().toLowerCase();
+        boolean gzip = name.endsWith(".gz");
+        Format format = name.endsWith(".json") || name.endsWith(".json.gz") ? Format.JSON : Format.CSV;
+        titleLabel.setText("Export in " + target.getFileName());
+        statusLabel.setText("Se pregateste exportul...");
+
+        handle = BackgroundTasks.getInstance().submit(Priority.REPORT,
+                () -> exportService.export(dataset, target, format, gzip, this::progress), exported -> {
+                    progressBar.setProgress(1);
+                    statusLabel.setText("Export finalizat: " + exported + " randuri");
+                    actionButton.setText("Inchide");
+                }, e -> {
+                    logger.error("Eroare la export", e);
+                    progressBar.setProgress(0);
+                    statusLabel.setText("Eroare la export: " + e.getMessage());
+                    actionButton.setText("Inchide");
+                });
+    }
+
+    /**
+     * Anuleaza exportul daca inca ruleaza. Se apeleaza la inchiderea ferestrei.
+     */
+    public void dispose() {
+        if (handle != null) {
+            handle.cancel();
+        }
+    }
+
+    @FXML
+    public void handleAction() {
+        dispose();
+        Stage stage = (Stage) actionButton.getScene().getWindow();
+        stage.close();
+    }
+
+    /**
+     * Apelat de pe firul exportului; actualizarile care sosesc mai repede decat
+     * le poate desena firul FX se comaseaza.
+     */
+    private void progress(long rows, long total) {
+        this.rows = rows;
+        this.total = total;
+        if (progressPending.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                progressPending.set(false);
+                if (handle == null || handle.isDone()) {
+                    return;
+                }
+                long done = this.rows;
+                long all = this.total;
+                progressBar.setProgress(all > 0 ? (double) done / all : -1);
+                statusLabel.setText(done + " / " + all + " randuri");
+            });
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.magsell.ui.controllers;
+
+import com.magsell.services.BackgroundTasks;
+import com.magsell.services.BackgroundTasks.Priority;
+import com.magsell.services.ImportService;
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.stage.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Controlerul pentru fereastra de progres a unui import.
+ * Importul ruleaza in fundal; la final, randurile respinse se scriu intr-un
+ * raport de erori langa fisierul importat.
+ */
+public class ImportController {
+    private static final Logger logger = LoggerFactory.getLogger(ImportController.class);
+
+    /**
+     * Ce se importa din fisier.
+     */
+    public enum Kind {
+        PRODUCTS,
+        SALES
+    }
+
+    private final ImportService importService = new ImportService();
+    // Cel mult o actualizare de progres in asteptare pe firul FX
+    private final AtomicBoolean progressPending = new AtomicBoolean();
+    private volatile long rows;
+    private volatile long bytesRead;
+    private volatile long totalBytes;
+    private BackgroundTasks.Handle handle;
+
+    @FXML
+    private Label titleLabel;
+    @FXML
+    private ProgressBar progressBar;
+    @FXML
+    private Label statusLabel;
+    @FXML
+    private Button actionButton;
+
+    /**
+     * Porneste importul fisierului dat.
+     */
+    public void start(Kind kind, Path source) {
+        Path errorReport = source.resolveSibling(source.getFileName() + ".erori.csv");
+        titleLabel.setText("Import din " + source.getFileName());
+        statusLabel.setText("Se citeste fisierul...");
+
+        Callable<ImportService.Result> work = () -> {
+            ImportService.Result result = kind == Kind.PRODUCTS
+                    ? importService.importProducts(source, this::progress)
+                    : importService.importSales(source, this::progress);
+            if (!result.errors().isEmpty()) {
+                ImportService.writeErrorReport(errorReport, result);
+            }
+            return result;
+        };
+        handle = BackgroundTasks.getInstance().submit(Priority.REPORT, work, result -> {
+            progressBar.setProgress(1);
+            String text = "Importate " + result.imported() + " din " + result.rows() + " randuri";
+            if (result.rejected() > 0) {
+                text += "\n" + result.rejected() + " respinse, vezi " + errorReport.getFileName();
+            }
+            statusLabel.setText(text);
+            actionButton.setText("Inchide");
+        }, e -> {
+            logger.error("Eroare la import", e);
+            progressBar.setProgress(0);
+            statusLabel.setText("Eroare la import: " + e.getMessage());
+            actionButton.setText("Inchide");
+        });
+    }
+
+    /**
+     * Anuleaza importul daca inca ruleaza. Bucatile deja salvate raman in baza de date.
+     */
+    public void dispose() {
+        if (handle != null) {
+            handle.cancel();
+        }
+    }
+
+    @FXML
+    public void handleAction() {
+        dispose();
+        Stage stage = (Stage) actionButton.getScene().getWindow();
+        stage.close();
+    }
+
+    /**
+     * Apelat de pe firul importului; actualizarile se comaseaza pe firul FX.
+     */
+    private void progress(long rows, long bytesRead, long totalBytes) {
+        this.rows = rows;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        if (progressPending.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                progressPending.set(false);
+                if (handle == null || handle.isDone()) {
+                    return;
+                }
+                long all = this.totalBytes;
+                progressBar.setProgress(all > 0 ? (double) this.bytesRead / all : -1);
+                statusLabel.setText(this.rows + " randuri citite");
+            });
+        }
+    }
+}
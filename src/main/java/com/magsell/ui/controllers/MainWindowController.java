@@ -6,7 +6,11 @@ import javafx.scene.control.Alert.AlertType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.magsell.App;
+import com.magsell.services.BackgroundTasks;
+import com.magsell.services.BackgroundTasks.Priority;
+import com.magsell.services.ExportService.Dataset;
 import com.magsell.services.UserService;
+import com.magsell.ui.Fxml;
 import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.ButtonType;
@@ -14,6 +18,10 @@ import javafx.scene.control.PasswordField;
 import javafx.scene.layout.GridPane;
 import javafx.scene.control.TextField;
 import javafx.geometry.Insets;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.time.LocalDate;
 
 /**
  * Controller pentru fereastra principală a aplicației MagSell
@@ -27,6 +35,26 @@ public class MainWindowController {
         System.exit(0);
     }
 
+    @FXML
+    private void handleExportSales() {
+        openExport(Dataset.SALES, "vanzari");
+    }
+
+    @FXML
+    private void handleExportProducts() {
+        openExport(Dataset.PRODUCTS, "produse");
+    }
+
+    @FXML
+    private void handleImportProducts() {
+        openImport(ImportController.Kind.PRODUCTS, "produse");
+    }
+
+    @FXML
+    private void handleImportSales() {
+        openImport(ImportController.Kind.SALES, "vânzări");
+    }
+
     @FXML
     private void handleManageUsers() {
         try {
@@ -75,21 +103,23 @@ public class MainWindowController {
                         a.showAndWait();
                         return;
                     }
-                    try {
+                    BackgroundTasks.getInstance().submit(Priority.INTERACTIVE, () -> {
                         new UserService().createUser(u, p, r);
+                        return null;
+                    }, ignored -> {
                         Alert ok = new Alert(Alert.AlertType.INFORMATION);
                         ok.setTitle("Utilizator creat");
                         ok.setHeaderText(null);
                         ok.setContentText("Utilizatorul a fost creat cu succes.");
                         ok.showAndWait();
-                    } catch (Exception ex) {
+                    }, ex -> {
                         logger.error("Eroare la crearea utilizatorului", ex);
                         Alert err = new Alert(Alert.AlertType.ERROR);
                         err.setTitle("Eroare");
                         err.setHeaderText("Nu s-a putut crea utilizatorul");
                         err.setContentText(ex.getMessage());
                         err.showAndWait();
-                    }
+                    });
                 }
             });
 
@@ -120,7 +150,12 @@ public class MainWindowController {
 
     @FXML
     private void handleViewSales() {
-        showNotImplemented("Vezi vânzări");
+        openSalesReport();
+    }
+
+    @FXML
+    private void handleDiagnostics() {
+        openDiagnostics();
     }
 
     @FXML
@@ -139,7 +174,7 @@ public class MainWindowController {
         alert.setHeaderText(feature);
         alert.setContentText("Această funcționalitate este în dezvoltare...");
         alert.showAndWait();
-        logger.info("Utilizator a accesat: " + feature);
+        logger.debug("Utilizator a accesat: {}", feature);
     }
 
     /**
@@ -147,15 +182,14 @@ public class MainWindowController {
      */
     private void openProductEditor() {
         try {
-            javafx.fxml.FXMLLoader loader = new javafx.fxml.FXMLLoader(
-                    getClass().getResource("/com/magsell/ui/fxml/ProductEditor.fxml"));
-            loader.setController(new ProductController());
-            javafx.scene.Parent root = loader.load();
+            Fxml.View<ProductController> view = Fxml.take(Fxml.PRODUCT_EDITOR, ProductController::new);
 
             javafx.stage.Stage stage = new javafx.stage.Stage();
             stage.setTitle("Adaugă produs");
-            stage.setScene(new javafx.scene.Scene(root, 500, 400));
+            stage.setScene(new javafx.scene.Scene(view.root(), 500, 400));
+            view.controller().setEditorStage(stage);
             stage.showAndWait();
+            view.controller().dispose();
         } catch (Exception e) {
             logger.error("Eroare la deschiderea editorului de produs", e);
             Alert alert = new Alert(AlertType.ERROR);
@@ -170,16 +204,14 @@ public class MainWindowController {
      */
     private void openProductList() {
         try {
-            javafx.fxml.FXMLLoader loader = new javafx.fxml.FXMLLoader(
-                    getClass().getResource("/com/magsell/ui/fxml/ProductList.fxml"));
-            ProductController controller = new ProductController();
-            loader.setController(controller);
-            javafx.scene.Parent root = loader.load();
+            // De obicei deja pregatita in fundal; produsele se citesc la deschidere
+            Fxml.View<ProductController> view = Fxml.take(Fxml.PRODUCT_LIST, ProductController::new);
 
             javafx.stage.Stage stage = new javafx.stage.Stage();
             stage.setTitle("Gestiona Produse");
-            stage.setScene(new javafx.scene.Scene(root, 1000, 600));
+            stage.setScene(new javafx.scene.Scene(view.root(), 1000, 600));
             stage.showAndWait();
+            view.controller().dispose();
         } catch (Exception e) {
             logger.error("Eroare la deschiderea listei de produse", e);
             Alert alert = new Alert(AlertType.ERROR);
@@ -188,4 +220,129 @@ public class MainWindowController {
             alert.showAndWait();
         }
     }
+
+    /**
+     * Deschide fereastra cu rapoartele de vânzări
+     */
+    private void openSalesReport() {
+        try {
+            javafx.fxml.FXMLLoader loader = new javafx.fxml.FXMLLoader(
+                    getClass().getResource("/com/magsell/ui/fxml/SalesReport.fxml"));
+            SalesReportController controller = new SalesReportController();
+            loader.setController(controller);
+            javafx.scene.Parent root = Fxml.load(loader);
+
+            javafx.stage.Stage stage = new javafx.stage.Stage();
+            stage.setTitle("Rapoarte vânzări");
+            stage.setScene(new javafx.scene.Scene(root, 900, 600));
+            stage.showAndWait();
+            controller.dispose();
+        } catch (Exception e) {
+            logger.error("Eroare la deschiderea rapoartelor", e);
+            Alert alert = new Alert(AlertType.ERROR);
+            alert.setTitle("Eroare");
+            alert.setContentText("Eroare la deschiderea rapoartelor: " + e.getMessage());
+            alert.showAndWait();
+        }
+    }
+
+    /**
+     * Deschide fereastra de diagnosticare; rămâne deschisă alături de celelalte ferestre
+     */
+    private void openDiagnostics() {
+        try {
+            javafx.fxml.FXMLLoader loader = new javafx.fxml.FXMLLoader(
+                    getClass().getResource("/com/magsell/ui/fxml/Diagnostics.fxml"));
+            DiagnosticsController controller = new DiagnosticsController();
+            loader.setController(controller);
+            javafx.scene.Parent root = Fxml.load(loader);
+
+            javafx.stage.Stage stage = new javafx.stage.Stage();
+            stage.setTitle("Diagnosticare");
+            stage.setScene(new javafx.scene.Scene(root, 900, 600));
+            stage.setOnHidden(e -> controller.dispose());
+            stage.show();
+        } catch (Exception e) {
+            logger.error("Eroare la deschiderea ferestrei de diagnosticare", e);
+            Alert alert = new Alert(AlertType.ERROR);
+            alert.setTitle("Eroare");
+            alert.setContentText("Eroare la deschiderea ferestrei de diagnosticare: " + e.getMessage());
+            alert.showAndWait();
+        }
+    }
+
+    /**
+     * Cere fișierul destinație și deschide fereastra de progres a exportului
+     */
+    private void openExport(Dataset dataset, String baseName) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export " + baseName);
+        chooser.setInitialFileName(baseName + "-" + LocalDate.now() + ".csv");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("CSV comprimat", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("JSON", "*.json"),
+                new FileChooser.ExtensionFilter("JSON comprimat", "*.json.gz"));
+        File file = chooser.showSaveDialog(null);
+        if (file == null) {
+            return;
+        }
+
+        try {
+            javafx.fxml.FXMLLoader loader = new javafx.fxml.FXMLLoader(
+                    getClass().getResource("/com/magsell/ui/fxml/TaskProgress.fxml"));
+            ExportController controller = new ExportController();
+            loader.setController(controller);
+            javafx.scene.Parent root = Fxml.load(loader);
+
+            javafx.stage.Stage stage = new javafx.stage.Stage();
+            stage.setTitle("Export " + baseName);
+            stage.setScene(new javafx.scene.Scene(root, 420, 160));
+            controller.start(dataset, file.toPath());
+            stage.showAndWait();
+            controller.dispose();
+        } catch (Exception e) {
+            logger.error("Eroare la pornirea exportului", e);
+            Alert alert = new Alert(AlertType.ERROR);
+            alert.setTitle("Eroare");
+            alert.setContentText("Eroare la pornirea exportului: " + e.getMessage());
+            alert.showAndWait();
+        }
+    }
+
+    /**
+     * Cere fișierul CSV și deschide fereastra de progres a importului
+     */
+    private void openImport(ImportController.Kind kind, String what) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import " + what);
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("Toate fișierele", "*.*"));
+        File file = chooser.showOpenDialog(null);
+        if (file == null) {
+            return;
+        }
+
+        try {
+            javafx.fxml.FXMLLoader loader = new javafx.fxml.FXMLLoader(
+                    getClass().getResource("/com/magsell/ui/fxml/TaskProgress.fxml"));
+            ImportController controller = new ImportController();
+            loader.setController(controller);
+            javafx.scene.Parent root = Fxml.load(loader);
+
+            javafx.stage.Stage stage = new javafx.stage.Stage();
+            stage.setTitle("Import " + what);
+            stage.setScene(new javafx.scene.Scene(root, 420, 180));
+            controller.start(kind, file.toPath());
+            stage.showAndWait();
+            controller.dispose();
+        } catch (Exception e) {
+            logger.error("Eroare la pornirea importului", e);
+            Alert alert = new Alert(AlertType.ERROR);
+            alert.setTitle("Eroare");
+            alert.setContentText("Eroare la pornirea importului: " + e.getMessage());
+            alert.showAndWait();
+        }
+    }
 }
@@ -1,7 +1,18 @@
 package com.magsell.ui.controllers;
 
+import com.magsell.database.InsufficientStockException;
+import com.magsell.database.StockMovement;
+import com.magsell.database.VersionConflictException;
 import com.magsell.models.Product;
+import com.magsell.services.BackgroundTasks;
+import com.magsell.services.BackgroundTasks.Priority;
+import com.magsell.services.ProductCatalog;
 import com.magsell.services.ProductService;
+import com.magsell.services.StockService;
+import com.magsell.ui.Fxml;
+import com.magsell.ui.PagedProductList;
+import com.magsell.ui.ProductFilterPipeline;
+import com.magsell.ui.TableColumns;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -10,24 +21,33 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import javafx.collections.transformation.FilteredList;
-import javafx.scene.control.cell.PropertyValueFactory;
+import java.util.Objects;
 
 /**
  * Controlerul pentru managerul de produse.
  * Gestionate lista de produse, filtru, editare, stergere.
  */
-public class ProductController {
+public class ProductController implements Fxml.Preloadable {
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
+    private static final Comparator<Product> BY_NAME = Comparator.comparing(Product::getName);
+    // Peste acest numar de produse lista se incarca paginat, nu integral in memorie
+    private static final int IN_MEMORY_PRODUCT_LIMIT = 20_000;
+    private final ProductCatalog catalog = ProductCatalog.getInstance();
     private final ProductService productService = new ProductService();
+    private final StockService stockService = new StockService();
+    // Citirile ferestrei; se anulează la închidere
+    private final BackgroundTasks.Group tasks = BackgroundTasks.getInstance().newGroup();
 
     @FXML
     private TableView<Product> productTable;
@@ -50,19 +70,135 @@ public class ProductController {
 
     private Product currentEditingProduct;
     private Stage editorStage;
-    private ObservableList<Product> productList = FXCollections.observableArrayList();
-    private FilteredList<Product> filteredList;
+    private final ObservableList<Product> productList = FXCollections.observableArrayList();
+    private ProductFilterPipeline filterPipeline;
+    private PagedProductList pagedList;
+    private boolean initialized;
+
+    // Actualizarile venite cat se incarca lista; se aplica dupa setAll, altfel ar fi suprascrise
+    private List<Runnable> pendingUpdates;
+    private volatile boolean disposed;
+
+    /**
+     * Aplica in tabela doar randul modificat, fara reincarcarea intregii liste.
+     * Categoriile se recitesc doar cand se poate schimba lista lor.
+     */
+    private final ProductCatalog.Listener catalogListener = new ProductCatalog.Listener() {
+        @Override
+        public void onProductAdded(Product product) {
+            Platform.runLater(() -> applyUpdate(() -> {
+                if (pagedList != null) {
+                    pagedList.refresh();
+                } else {
+                    insertSorted(product);
+                }
+                if (isNewCategory(product.getCategory())) {
+                    loadCategories();
+                }
+            }));
+        }
+
+        @Override
+        public void onProductUpdated(Product product) {
+            Platform.runLater(() -> applyUpdate(() -> {
+                if (pagedList != null) {
+                    // Doar randul modificat, daca pagina lui e incarcata
+                    Product old = pagedList.update(product);
+                    if (old != null ? !Objects.equals(old.getCategory(), product.getCategory())
+                            : isNewCategory(product.getCategory())) {
+                        loadCategories();
+                    }
+                    return;
+                }
+                int index = indexOfProduct(product.getId());
+                Product old = index >= 0 ? productList.get(index) : null;
+                if (old != null && old.getName().equals(product.getName())) {
+                    productList.set(index, product);
+                } else {
+                    if (old != null) {
+                        productList.remove(index);
+                    }
+                    insertSorted(product);
+                }
+                if (old != null ? !Objects.equals(old.getCategory(), product.getCategory())
+                        : isNewCategory(product.getCategory())) {
+                    loadCategories();
+                }
+            }));
+        }
+
+        @Override
+        public void onProductRemoved(Product product) {
+            Platform.runLater(() -> applyUpdate(() -> {
+                if (pagedList != null) {
+                    pagedList.refresh();
+                }
+                int index = indexOfProduct(product.getId());
+                if (index >= 0) {
+                    productList.remove(index);
+                }
+                // Poate fi ultimul produs din categorie
+                loadCategories();
+            }));
+        }
+
+        @Override
+        public void onCatalogReloaded() {
+            // Ex. dupa un import: randurile modificate nu se stiu, se reincarca tot
+            Platform.runLater(() -> applyUpdate(() -> {
+                if (pagedList != null) {
+                    pagedList.refresh();
+                } else {
+                    loadProducts();
+                }
+                loadCategories();
+            }));
+        }
+    };
 
     @FXML
     public void initialize() {
-        logger.info("Initializing ProductController");
+        if (initialized) {
+            // Editorul se incarca cu acelasi controler ca lista; doar campurile lui sunt noi
+            loadCategories();
+            return;
+        }
+        initialized = true;
+        logger.debug("Initializing ProductController");
+        // Doar nodurile: initialize() poate rula in fundal, cand fereastra se pregateste dinainte
         setupTableColumns();
-        loadProducts();
-        loadCategories();
 
         // Set up table selection
         if (productTable != null) {
-            productTable.setItems(filteredList);
+            filterPipeline = new ProductFilterPipeline(productList, catalog);
+            productTable.setItems(filterPipeline.getVisibleProducts());
+        }
+    }
+
+    /**
+     * Incarca produsele si categoriile si aboneaza fereastra la catalog.
+     * Se apeleaza pe firul FX cand fereastra e deschisa (vezi Fxml.take).
+     */
+    @Override
+    public void start() {
+        loadProducts();
+        loadCategories();
+    }
+
+    /**
+     * Dezaboneaza controlerul de la catalog si anuleaza citirile in curs.
+     * Se apeleaza la inchiderea ferestrei.
+     */
+    @Override
+    public void dispose() {
+        disposed = true;
+        catalog.removeListener(catalogListener);
+        tasks.cancelAll();
+        if (filterPipeline != null) {
+            filterPipeline.dispose();
+        }
+        if (pagedList != null) {
+            pagedList.dispose();
         }
     }
 
@@ -72,29 +208,12 @@ public class ProductController {
     private void setupTableColumns() {
         if (productTable == null) return;
 
-        TableColumn<Product, Integer> idCol = new TableColumn<>("ID");
-        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        idCol.setPrefWidth(50);
-
-        TableColumn<Product, String> nameCol = new TableColumn<>("Nume");
-        nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        nameCol.setPrefWidth(150);
-
-        TableColumn<Product, String> descCol = new TableColumn<>("Descriere");
-        descCol.setCellValueFactory(new PropertyValueFactory<>("description"));
-        descCol.setPrefWidth(200);
-
-        TableColumn<Product, BigDecimal> priceCol = new TableColumn<>("Pret");
-        priceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
-        priceCol.setPrefWidth(100);
-
-        TableColumn<Product, Integer> qtyCol = new TableColumn<>("Cant.");
-        qtyCol.setCellValueFactory(new PropertyValueFactory<>("quantity"));
-        qtyCol.setPrefWidth(80);
-
-        TableColumn<Product, String> catCol = new TableColumn<>("Categoria");
-        catCol.setCellValueFactory(new PropertyValueFactory<>("category"));
-        catCol.setPrefWidth(100);
+        TableColumn<Product, Product> idCol = TableColumns.integer("ID", 50, Product::getId);
+        TableColumn<Product, Product> nameCol = TableColumns.text("Nume", 150, Product::getName);
+        TableColumn<Product, Product> descCol = TableColumns.text("Descriere", 200, Product::getDescription);
+        TableColumn<Product, Product> priceCol = TableColumns.amount("Pret", 100, Product::getPrice);
+        TableColumn<Product, Product> qtyCol = TableColumns.integer("Cant.", 80, Product::getQuantity);
+        TableColumn<Product, Product> catCol = TableColumns.text("Categoria", 100, Product::getCategory);
 
         ObservableList<TableColumn<Product, ?>> columns = FXCollections.observableArrayList();
         columns.addAll(idCol, nameCol, descCol, priceCol, qtyCol, catCol);
@@ -102,47 +221,75 @@ public class ProductController {
     }
 
     /**
-     * Incarc lista de produse din baza de date.
+     * Incarc lista de produse din catalog (o singura interogare, la primul acces).
+     * Pentru cataloage foarte mari, tabela trece pe lista paginata.
+     * Abonarea la catalog se face odata cu citirea listei, iar evenimentele venite
+     * pana la afisarea ei se aplica dupa aceea.
      */
     private void loadProducts() {
-        new Thread(() -> {
-            try {
-                List<Product> products = productService.getAllProducts();
-                Platform.runLater(() -> {
-                    productList = FXCollections.observableArrayList(products);
-                    filteredList = new FilteredList<>(productList);
-                    if (productTable != null) {
-                        productTable.setItems(filteredList);
-                    }
-                    logger.info("Incarcate " + products.size() + " produse");
-                });
-            } catch (SQLException e) {
-                logger.error("Eroare la incarcarea produselor", e);
-                Platform.runLater(() -> showAlert("Eroare", "Eroare la incarcarea produselor: " + e.getMessage()));
+        if (productTable == null) return;
+
+        pendingUpdates = new ArrayList<>();
+        tasks.submit(Priority.INTERACTIVE, () -> {
+            List<Product> products = null;
+            if (!catalog.isLoaded() && productService.countProducts(ProductService.PageFilter.NONE) > IN_MEMORY_PRODUCT_LIMIT) {
+                catalog.addListener(catalogListener);
+            } else {
+                products = catalog.subscribe(catalogListener);
             }
-        }).start();
+            if (disposed) {
+                // Fereastra s-a inchis intre timp; dispose() poate sa nu fi gasit abonarea
+                catalog.removeListener(catalogListener);
+            }
+            return products;
+        }, products -> {
+            if (products == null) {
+                usePagedList();
+            } else {
+                productList.setAll(products);
+                logger.debug("Incarcate {} produse", products.size());
+            }
+            List<Runnable> updates = pendingUpdates;
+            pendingUpdates = null;
+            updates.forEach(Runnable::run);
+        }, e -> {
+            pendingUpdates = null;
+            logger.error("Eroare la incarcarea produselor", e);
+            showAlert("Eroare", "Eroare la incarcarea produselor: " + e.getMessage());
+        });
+    }
+
+    /**
+     * Trece tabela pe lista paginata: se incarca doar paginile vizibile.
+     */
+    private void usePagedList() {
+        if (filterPipeline != null) {
+            filterPipeline.dispose();
+            filterPipeline = null;
+        }
+        pagedList = new PagedProductList(productService);
+        productTable.setItems(pagedList);
+        pagedList.refresh();
+        logger.debug("Lista de produse incarcata paginat");
     }
 
     /**
      * Incarc lista de categorii disponibile.
      */
     private void loadCategories() {
-        new Thread(() -> {
-            try {
-                List<String> categories = productService.getCategories();
-                Platform.runLater(() -> {
+        // Fara catalog incarcat (ex. lista paginata), categoriile vin direct din index
+        tasks.submit(Priority.INTERACTIVE,
+                () -> catalog.isLoaded() ? catalog.getCategories() : productService.getCategories(),
+                categories -> {
                     if (categoryCombo != null) {
                         categoryCombo.setItems(FXCollections.observableArrayList(categories));
                     }
                     if (categoryField != null) {
                         categoryField.setItems(FXCollections.observableArrayList(categories));
                     }
-                    logger.info("Incarcate " + categories.size() + " categorii");
-                });
-            } catch (SQLException e) {
-                logger.error("Eroare la incarcarea categoriilor", e);
-            }
-        }).start();
+                    logger.debug("Incarcate {} categorii", categories.size());
+                },
+                e -> logger.error("Eroare la incarcarea categoriilor", e));
     }
 
     @FXML
@@ -176,23 +323,84 @@ public class ProductController {
         confirmDialog.setContentText("Sunteti sigur ca doriti sa stergeti produsul: " + selected.getName() + "?");
 
         if (confirmDialog.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-            new Thread(() -> {
-                try {
-                    productService.deleteProduct(selected.getId());
-                    Platform.runLater(() -> {
-                        productList.remove(selected);
-                        filteredList.remove(selected);
-                        logger.info("Produs sters: " + selected.getName());
-                        showAlert("Succes", "Produs sters cu succes");
-                    });
-                } catch (SQLException e) {
-                    logger.error("Eroare la stergerea produsului", e);
-                    Platform.runLater(() -> showAlert("Eroare", "Eroare la stergerea produsului: " + e.getMessage()));
-                }
-            }).start();
+            // Stergerea nu face parte din grupul ferestrei: se duce la capat si daca fereastra se inchide
+            BackgroundTasks.getInstance().submit(Priority.INTERACTIVE, () -> {
+                catalog.delete(selected.getId());
+                return null;
+            }, ignored -> {
+                logger.debug("Produs sters: {}", selected.getName());
+                showAlert("Succes", "Produs sters cu succes");
+            }, e -> {
+                logger.error("Eroare la stergerea produsului", e);
+                showAlert("Eroare", "Eroare la stergerea produsului: " + e.getMessage());
+            });
         }
     }
 
+    /**
+     * Inregistreaza o receptie, o pierdere sau o corectie de inventar pentru produsul selectat.
+     * Cantitatea noua apare in tabela prin evenimentul catalogului.
+     */
+    @FXML
+    public void handleStockMovement() {
+        Product selected = productTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showAlert("Selectie", "Va rog selectati un produs");
+            return;
+        }
+
+        ComboBox<StockMovement.Type> typeField = new ComboBox<>(FXCollections.observableArrayList(
+                StockMovement.Type.RECEIPT, StockMovement.Type.WASTE, StockMovement.Type.CORRECTION));
+        typeField.setValue(StockMovement.Type.RECEIPT);
+        TextField amountField = new TextField();
+        amountField.setPromptText("Receptie/pierdere: pozitiv; corectie: cu semn");
+        TextField noteField = new TextField();
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.addRow(0, new Label("Tip:"), typeField);
+        grid.addRow(1, new Label("Cantitate:"), amountField);
+        grid.addRow(2, new Label("Nota:"), noteField);
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Miscare stoc");
+        dialog.setHeaderText(selected.getName() + " (stoc: " + selected.getQuantity() + ")");
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        if (dialog.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+            return;
+        }
+
+        StockMovement.Type type = typeField.getValue();
+        int quantity;
+        try {
+            quantity = Integer.parseInt(amountField.getText().strip());
+        } catch (NumberFormatException e) {
+            showAlert("Eroare", "Cantitatea trebuie sa fie un numar intreg");
+            return;
+        }
+        if (type == StockMovement.Type.WASTE) {
+            // Pierderea se introduce ca numar de bucati, dar se inregistreaza cu minus
+            quantity = -Math.abs(quantity);
+        }
+        int signed = quantity;
+        String note = noteField.getText().isBlank() ? null : noteField.getText().strip();
+
+        // Ca si salvarea produsului: se duce la capat si daca fereastra se inchide
+        BackgroundTasks.getInstance().submit(Priority.INTERACTIVE, () -> {
+            stockService.recordMovement(selected.getId(), type, signed, note);
+            return null;
+        }, ignored -> logger.debug("Miscare de stoc {} pentru {}: {}", type, selected.getName(), signed), e -> {
+            if (e instanceof InsufficientStockException || e instanceof IllegalArgumentException) {
+                showAlert("Validare", e.getMessage());
+                return;
+            }
+            logger.error("Eroare la inregistrarea miscarii de stoc", e);
+            showAlert("Eroare", "Eroare la inregistrarea miscarii de stoc: " + e.getMessage());
+        });
+    }
+
     @FXML
     public void handleSearchProducts() {
         filterProducts();
@@ -205,34 +413,42 @@ public class ProductController {
 
     /**
      * Filtreaza lista de produse dupa cautare si categorie.
+     * Filtrarea ruleaza in fundal, dupa o scurta pauza de tastare.
      */
     private void filterProducts() {
-        String searchText = searchField != null ? searchField.getText().toLowerCase() : "";
+        String searchText = searchField != null ? searchField.getText() : "";
         String selectedCategory = categoryCombo != null ? categoryCombo.getValue() : null;
 
-        filteredList.setPredicate(product -> {
-            boolean matchesSearch = searchText.isEmpty() || product.getName().toLowerCase().contains(searchText)
-                    || (product.getDescription() != null && product.getDescription().toLowerCase().contains(searchText));
-
-            boolean matchesCategory = selectedCategory == null || selectedCategory.isEmpty()
-                    || (product.getCategory() != null && product.getCategory().equals(selectedCategory));
+        if (pagedList != null) {
+            // In modul paginat cautarea se face in baza de date, dupa inceputul numelui
+            pagedList.setFilter(new ProductService.PageFilter(selectedCategory, searchText.strip()));
+        } else if (filterPipeline != null) {
+            filterPipeline.setFilter(searchText, selectedCategory);
+        }
+    }
 
-            return matchesSearch && matchesCategory;
-        });
+    /**
+     * Fereastra in care e afisat editorul, cand editorul e incarcat singur (fara lista).
+     */
+    void setEditorStage(Stage stage) {
+        this.editorStage = stage;
     }
 
     /**
-     * Deschide dialogul de editare a produsului.
+     * Deschide dialogul de editare a produsului. Fereastra editorului se incarca
+     * la prima deschidere si se refoloseste apoi.
      */
     private void openEditorDialog() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/magsell/ui/fxml/ProductEditor.fxml"));
-            loader.setController(this);
-            Parent root = loader.load();
+            if (editorStage == null) {
+                FXMLLoader loader = new FXMLLoader(getClass().getResource(Fxml.PRODUCT_EDITOR));
+                loader.setController(this);
+                Parent root = Fxml.load(loader);
 
-            editorStage = new Stage();
+                editorStage = new Stage();
+                editorStage.setScene(new Scene(root, 500, 400));
+            }
             editorStage.setTitle(currentEditingProduct == null ? "Adauga Produs" : "Editeaza Produs");
-            editorStage.setScene(new Scene(root, 500, 400));
 
             // Pre-populate fields if editing
             if (currentEditingProduct != null) {
@@ -261,38 +477,51 @@ public class ProductController {
                 return;
             }
 
-            Product product = currentEditingProduct != null ? currentEditingProduct : new Product();
+            // Produsul din tabela ramane neschimbat: e baza pentru combinarea cu modificarile concurente
+            Product base = currentEditingProduct;
+            Product product = new Product();
+            if (base != null) {
+                product.setId(base.getId());
+            }
             product.setName(nameField.getText());
             product.setDescription(descriptionField.getText());
             product.setPrice(new BigDecimal(priceField.getText().isEmpty() ? "0" : priceField.getText()));
             product.setQuantity(Integer.parseInt(quantityField.getText().isEmpty() ? "0" : quantityField.getText()));
             product.setCategory(categoryField.getValue());
 
-            if (currentEditingProduct == null) {
-                // Create new
-                productService.createProduct(product);
-                Platform.runLater(() -> {
-                    loadProducts();
-                    logger.info("Produs adaugat: " + product.getName());
+            boolean creating = base == null;
+            Stage stage = editorStage;
+            // Scrierea nu face parte din grupul ferestrei: se duce la capat si daca fereastra se inchide
+            BackgroundTasks.getInstance().submit(Priority.INTERACTIVE, () -> {
+                if (creating) {
+                    catalog.create(product);
+                } else {
+                    catalog.update(base, product);
+                }
+                return null;
+            }, ignored -> {
+                if (creating) {
+                    logger.debug("Produs adaugat: {}", product.getName());
                     showAlert("Succes", "Produs adaugat cu succes");
-                });
-            } else {
-                // Update existing
-                productService.updateProduct(product);
-                Platform.runLater(() -> {
-                    loadProducts();
-                    logger.info("Produs actualizat: " + product.getName());
+                } else {
+                    logger.debug("Produs actualizat: {}", product.getName());
                     showAlert("Succes", "Produs actualizat cu succes");
-                });
-            }
-
-            editorStage.close();
+                }
+                stage.close();
+            }, e -> {
+                if (e instanceof VersionConflictException conflict) {
+                    logger.warn("Conflict la salvarea produsului {}: {}", product.getName(), conflict.getFields());
+                    showAlert("Conflict", "Produsul a fost modificat intre timp din alta fereastra"
+                            + (conflict.getFields().isEmpty() ? "" : " (" + String.join(", ", conflict.getFields()) + ")")
+                            + ". Redeschideti produsul si reaplicati modificarile.");
+                    return;
+                }
+                showAlert("Eroare", "Eroare la salvarea produsului: " + e.getMessage());
+                logger.error("Eroare la salvarea produsului", e);
+            });
         } catch (NumberFormatException e) {
             showAlert("Eroare", "Pret si Cantitate trebuie sa fie numere");
             logger.error("Eroare format numeric", e);
-        } catch (SQLException e) {
-            showAlert("Eroare", "Eroare la salvarea produsului: " + e.getMessage());
-            logger.error("Eroare la salvarea produsului", e);
         }
     }
 
@@ -303,10 +532,37 @@ public class ProductController {
 
     @FXML
     public void handleClose() {
+        dispose();
         Stage stage = (Stage) productTable.getScene().getWindow();
         stage.close();
     }
 
+    private int indexOfProduct(int id) {
+        for (int i = 0; i < productList.size(); i++) {
+            if (productList.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void applyUpdate(Runnable update) {
+        if (pendingUpdates != null) {
+            pendingUpdates.add(update);
+        } else {
+            update.run();
+        }
+    }
+
+    private boolean isNewCategory(String category) {
+        return category != null && categoryCombo != null && !categoryCombo.getItems().contains(category);
+    }
+
+    private void insertSorted(Product product) {
+        int index = Collections.binarySearch(productList, product, BY_NAME);
+        productList.add(index < 0 ? -index - 1 : index, product);
+    }
+
     private void clearEditorFields() {
         nameField.clear();
         descriptionField.clear();
@@ -0,0 +1,175 @@
+package com.magsell.ui.controllers;
+
+import com.magsell.services.BackgroundTasks;
+import com.magsell.services.BackgroundTasks.Priority;
+import com.magsell.services.ReportService;
+import com.magsell.services.ReportService.CategorySales;
+import com.magsell.services.ReportService.Granularity;
+import com.magsell.services.ReportService.PeriodSales;
+import com.magsell.services.ReportService.ProductSales;
+import com.magsell.services.SalesAnalytics;
+import com.magsell.services.SalesAnalytics.Bucket;
+import com.magsell.services.SalesAnalytics.Dimension;
+import com.magsell.ui.CellFormats;
+import com.magsell.ui.TableColumns;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableView;
+import javafx.stage.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Controlerul pentru fereastra de rapoarte de vanzari.
+ * Rapoartele se calculeaza in fundal, din agregatele zilnice; distributia pe ore
+ * din depozitul de analiza in memorie, adus la zi la fiecare actualizare.
+ */
+public class SalesReportController {
+    private static final Logger logger = LoggerFactory.getLogger(SalesReportController.class);
+    private static final int TOP_PRODUCTS = 50;
+    private static final String NO_CATEGORY = "(fara categorie)";
+
+    private final ReportService reportService = new ReportService();
+    private final SalesAnalytics analytics = SalesAnalytics.getInstance();
+    private final BackgroundTasks.Group tasks = BackgroundTasks.getInstance().newGroup();
+
+    @FXML
+    private DatePicker fromDate;
+    @FXML
+    private DatePicker toDate;
+    @FXML
+    private ComboBox<Granularity> granularityCombo;
+    @FXML
+    private TableView<PeriodSales> periodTable;
+    @FXML
+    private TableView<ProductSales> productTable;
+    @FXML
+    private TableView<CategorySales> categoryTable;
+    @FXML
+    private TableView<Bucket> hourTable;
+    @FXML
+    private Label summaryLabel;
+
+    /**
+     * Rezultatele celor patru interogari ale unui raport.
+     */
+    private record Report(PeriodSales totals, List<PeriodSales> periods,
+                          List<ProductSales> products, List<CategorySales> categories, List<Bucket> hours) {
+    }
+
+    @FXML
+    public void initialize() {
+        LocalDate today = LocalDate.now();
+        fromDate.setValue(today.withDayOfMonth(1));
+        toDate.setValue(today);
+        granularityCombo.setItems(FXCollections.observableArrayList(Granularity.values()));
+        granularityCombo.setValue(Granularity.DAY);
+
+        periodTable.getColumns().setAll(List.of(
+                TableColumns.text("Perioada", 120, p -> p.periodStart().toString()),
+                TableColumns.integer("Bonuri", 80, PeriodSales::receipts),
+                TableColumns.integer("Cant.", 80, PeriodSales::quantity),
+                TableColumns.money("Incasari", 120, PeriodSales::revenue),
+                TableColumns.money("Marja", 120, PeriodSales::margin)));
+        productTable.getColumns().setAll(List.of(
+                TableColumns.text("Produs", 200, ProductSales::productName),
+                TableColumns.text("Categoria", 120, p -> categoryName(p.category())),
+                TableColumns.integer("Cant.", 80, ProductSales::quantity),
+                TableColumns.money("Incasari", 120, ProductSales::revenue),
+                TableColumns.money("Marja", 120, ProductSales::margin)));
+        categoryTable.getColumns().setAll(List.of(
+                TableColumns.text("Categoria", 200, c -> categoryName(c.category())),
+                TableColumns.integer("Cant.", 80, CategorySales::quantity),
+                TableColumns.money("Incasari", 120, CategorySales::revenue),
+                TableColumns.money("Marja", 120, CategorySales::margin)));
+        hourTable.getColumns().setAll(List.of(
+                TableColumns.text("Ora", 80, Bucket::label),
+                TableColumns.integer("Linii", 80, b -> (int) b.lines()),
+                TableColumns.integer("Cant.", 80, b -> (int) b.quantity()),
+                TableColumns.money("Incasari", 120, Bucket::revenue)));
+
+        loadReport();
+    }
+
+    /**
+     * Anuleaza rapoartele in curs. Se apeleaza la inchiderea ferestrei.
+     */
+    public void dispose() {
+        tasks.cancelAll();
+    }
+
+    @FXML
+    public void handleRefresh() {
+        loadReport();
+    }
+
+    @FXML
+    public void handleClose() {
+        dispose();
+        Stage stage = (Stage) periodTable.getScene().getWindow();
+        stage.close();
+    }
+
+    private void loadReport() {
+        LocalDate from = fromDate.getValue();
+        LocalDate to = toDate.getValue();
+        Granularity granularity = granularityCombo.getValue();
+        if (from == null || to == null || from.isAfter(to)) {
+            summaryLabel.setText("Interval invalid");
+            return;
+        }
+        summaryLabel.setText("Se calculeaza...");
+
+        tasks.submit(Priority.REPORT, () -> new Report(
+                reportService.getTotals(from, to),
+                reportService.getSalesByPeriod(from, to, granularity),
+                reportService.getTopProducts(from, to, TOP_PRODUCTS),
+                reportService.getSalesByCategory(from, to),
+                hourlySales(from, to)), report -> {
+            periodTable.setItems(FXCollections.observableArrayList(report.periods()));
+            productTable.setItems(FXCollections.observableArrayList(report.products()));
+            categoryTable.setItems(FXCollections.observableArrayList(report.categories()));
+            hourTable.setItems(FXCollections.observableArrayList(report.hours()));
+            summaryLabel.setText(summary(report.totals()));
+        }, e -> {
+            logger.error("Eroare la calcularea raportului", e);
+            summaryLabel.setText("");
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Eroare");
+            alert.setContentText("Eroare la calcularea raportului: " + e.getMessage());
+            alert.showAndWait();
+        });
+    }
+
+    /**
+     * Aduce depozitul la zi (doar vanzarile noi de la ultima actualizare) si grupeaza pe ore.
+     */
+    private List<Bucket> hourlySales(LocalDate from, LocalDate to) throws SQLException {
+        analytics.refresh();
+        return analytics.aggregate(from, to, Dimension.HOUR, null);
+    }
+
+    private static String summary(PeriodSales totals) {
+        if (totals == null) {
+            return "Nicio vanzare in interval";
+        }
+        String text = totals.receipts() + " bonuri, " + totals.quantity() + " produse, incasari "
+                + CellFormats.amount(totals.revenue()) + " lei";
+        if (totals.margin() != null) {
+            text += ", marja " + CellFormats.amount(totals.margin()) + " lei";
+        }
+        return text;
+    }
+
+    private static String categoryName(String category) {
+        return category == null || category.isEmpty() ? NO_CATEGORY : category;
+    }
+}
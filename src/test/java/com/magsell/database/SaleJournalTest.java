@@ -0,0 +1,133 @@
+package com.magsell.database;
+
+import com.magsell.models.Money;
+import com.magsell.models.Sale;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SaleJournalTest {
+    private static final int STOCK = 100;
+
+    @TempDir
+    Path dir;
+
+    private DatabaseService db;
+    private int productId;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        db = DatabaseService.getInstance();
+        db.init(dir);
+        try (Connection conn = db.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO products (name, price_bani, quantity) VALUES ('Ecler', 750, " + STOCK + ")");
+            try (ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+                rs.next();
+                productId = rs.getInt(1);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void committedSaleIsNotReplayed() throws Exception {
+        Path logFile = dir.resolve("test.journal");
+        try (SaleJournal journal = new SaleJournal(db, 10, 5, 100, logFile)) {
+            assertEquals(Money.ofBani(1500), journal.submit(List.of(sale(2))).get(5, TimeUnit.SECONDS));
+        }
+
+        try (Connection conn = db.getConnection()) {
+            assertEquals(0, SaleJournal.replay(conn, logFile));
+        }
+        assertEquals(1, countSales());
+        assertEquals(STOCK - 2, stock());
+    }
+
+    @Test
+    void failedBatchIsNotReplayed() throws Exception {
+        Path logFile = dir.resolve("test.journal");
+        // Orice scriere în sales eșuează, deci tot lotul se anulează (ca la SQLITE_BUSY sau o eroare de I/O)
+        execute("CREATE TRIGGER fail_sales BEFORE INSERT ON sales BEGIN SELECT RAISE(ABORT, 'test'); END");
+        // Loturi de câte un bon: al doilea e deja în fișier când primul eșuează, deci se scrie o anulare
+        try (SaleJournal journal = new SaleJournal(db, 1, 5, 100, logFile)) {
+            CompletableFuture<Money> first = journal.submit(List.of(sale(1)));
+            CompletableFuture<Money> second = journal.submit(List.of(sale(3)));
+            assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        }
+        execute("DROP TRIGGER fail_sales");
+
+        // Pornirea următoare nu trebuie să aplice vânzările raportate casei ca eșuate
+        try (Connection conn = db.getConnection()) {
+            assertEquals(0, SaleJournal.replay(conn, logFile));
+        }
+        assertEquals(0, countSales());
+        assertEquals(STOCK, stock());
+    }
+
+    @Test
+    void overflowingReceiptFailsAlone() throws Exception {
+        Path logFile = dir.resolve("test.journal");
+        Sale overflowing = sale(3);
+        overflowing.setUnitPrice(Money.ofBani(Long.MAX_VALUE / 2));
+        try (SaleJournal journal = new SaleJournal(db, 10, 5, 100, logFile)) {
+            CompletableFuture<Money> bad = journal.submit(List.of(overflowing));
+            CompletableFuture<Money> good = journal.submit(List.of(sale(2)));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            assertEquals(Money.ofBani(1500), good.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, countSales());
+        assertEquals(STOCK - 2, stock());
+    }
+
+    private Sale sale(int quantity) {
+        Sale sale = new Sale();
+        sale.setProductId(productId);
+        sale.setProductName("Ecler");
+        sale.setQuantity(quantity);
+        sale.setUnitPrice(Money.ofBani(750));
+        return sale;
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection conn = db.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private int countSales() throws SQLException {
+        try (Connection conn = db.getReadConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sales")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private int stock() throws SQLException {
+        try (Connection conn = db.getReadConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT quantity FROM products WHERE id = " + productId)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.magsell.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    void parseAcceptsDotAndComma() {
+        assertEquals(Money.ofBani(1250), Money.parse("12,5"));
+        assertEquals(Money.ofBani(1250), Money.parse("12.50"));
+        assertEquals(Money.ofBani(1200), Money.parse("12"));
+        assertEquals(Money.ofBani(1200), Money.parse("12."));
+        assertEquals(Money.ofBani(50), Money.parse(",5"));
+    }
+
+    @Test
+    void parseAcceptsSigns() {
+        assertEquals(Money.ofBani(-307), Money.parse("-3.07"));
+        assertEquals(Money.ofBani(307), Money.parse("+3,07"));
+        assertEquals(Money.ZERO, Money.parse("-0"));
+    }
+
+    @Test
+    void parseRoundsExtraDecimalsHalfUp() {
+        assertEquals(Money.ofBani(101), Money.parse("1.005"));
+        assertEquals(Money.ofBani(100), Money.parse("1,0049"));
+        assertEquals(Money.ofBani(-101), Money.parse("-1.005"));
+        assertEquals(Money.ofBani(10000), Money.parse("1e2"));
+    }
+
+    @Test
+    void parseLeavesNonAsciiDigitsToBigDecimal() {
+        // Cifre arabe-indice: Character.isDigit le acceptă, dar nu se pot converti cu c - '0'
+        assertEquals(Money.of(new BigDecimal("١٢")), Money.parse("١٢"));
+        assertEquals(Money.ofBani(1200), Money.parse("١٢"));
+    }
+
+    @Test
+    void parseRejectsText() {
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("12 lei"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.234,5"));
+    }
+
+    @Test
+    void roundingIsHalfUpAwayFromZero() {
+        assertEquals(Money.ofBani(10), Money.ofBani(5).roundTo(10));
+        assertEquals(Money.ofBani(-10), Money.ofBani(-5).roundTo(10));
+        assertEquals(Money.ofBani(0), Money.ofBani(4).roundTo(10));
+        // 19% din 0,50 lei = 9,5 bani
+        assertEquals(Money.ofBani(10), Money.ofBani(50).percent(19));
+        assertEquals(Money.ofBani(-10), Money.ofBani(-50).percent(19));
+    }
+
+    @Test
+    void vatSplitAddsUpToGross() {
+        Money gross = Money.ofBani(11900);
+        assertEquals(Money.ofBani(1900), gross.vatOfGross(19));
+        assertEquals(Money.ofBani(10000), gross.netOfGross(19));
+
+        for (long bani = 1; bani <= 1000; bani++) {
+            Money price = Money.ofBani(bani);
+            assertEquals(price, price.vatOfGross(19).plus(price.netOfGross(19)));
+            assertEquals(price, price.vatOfGross(9).plus(price.netOfGross(9)));
+        }
+        // 1 leu cu TVA 19%: 100 × 19 / 119 = 15,97 bani
+        assertEquals(Money.ofBani(16), Money.ofBani(100).vatOfGross(19));
+        assertEquals(Money.ofBani(11900), Money.ofBani(10000).grossOfNet(19));
+    }
+
+    @Test
+    void arithmeticOverflowThrows() {
+        assertThrows(ArithmeticException.class, () -> Money.ofBani(Long.MAX_VALUE).plus(Money.ofBani(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofBani(Long.MAX_VALUE / 2).times(3));
+    }
+
+    @Test
+    void toStringHasTwoDecimals() {
+        assertEquals("-3.07", Money.ofBani(-307).toString());
+        assertEquals("0.05", Money.ofBani(5).toString());
+        assertEquals("12.50", Money.parse("12,5").toString());
+    }
+}